@@ -20,12 +20,12 @@ package edu.pitt.dbmi.calibration.util;
 
 import edu.cmu.tetrad.data.DataModel;
 import edu.cmu.tetrad.graph.Graph;
-import edu.cmu.tetrad.graph.GraphPersistence;
 import edu.cmu.tetrad.util.DataConvertUtils;
 import edu.pitt.dbmi.data.reader.Delimiter;
 import edu.pitt.dbmi.data.reader.tabular.VerticalDiscreteTabularDatasetFileReader;
 import edu.pitt.dbmi.data.reader.tabular.VerticalDiscreteTabularDatasetReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 
 /**
@@ -39,8 +39,19 @@ public final class ResourceLoader {
     private ResourceLoader() {
     }
 
+    /**
+     * Load the graph from a file in Tetrad's text format.
+     *
+     * @param graphFile graph file
+     * @return the graph
+     * @see GraphTextReader
+     */
     public static Graph loadGraph(Path graphFile) {
-        return GraphPersistence.loadGraphTxt(graphFile.toFile());
+        try {
+            return GraphTextReader.read(graphFile);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
     }
 
     public static DataModel readInDataModel(Path dataFile, Delimiter delimiter) throws IOException {
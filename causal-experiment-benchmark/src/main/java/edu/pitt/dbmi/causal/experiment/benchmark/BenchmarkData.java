@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.benchmark;
+
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.search.SearchGraphUtils;
+import edu.cmu.tetrad.util.Parameters;
+import edu.cmu.tetrad.util.Params;
+import edu.pitt.dbmi.causal.experiment.data.SimulatedData;
+import edu.pitt.dbmi.causal.experiment.util.FileIO;
+import edu.pitt.dbmi.causal.experiment.util.ResourceLoader;
+import edu.pitt.dbmi.causal.experiment.util.SimulatedDataFactory;
+import edu.pitt.dbmi.data.reader.Delimiter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Datasets the benchmarks run on. The bundled dataset is read from the test
+ * resources of the causal-experiment module, which can be changed with the
+ * system property {@value #DATA_DIR_PROPERTY}. The larger datasets are
+ * simulated from a fixed seed so every run gets the same data.
+ *
+ * Apr 24, 2023 9:42:31 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+@State(Scope.Benchmark)
+public class BenchmarkData {
+
+    public static final String DATA_DIR_PROPERTY = "benchmark.data.dir";
+
+    public static final String BUNDLED_DATA = "discrete_20var_1kcase";
+    public static final String SIMULATED_50VAR_1KCASE = "simulated_50var_1kcase";
+    public static final String SIMULATED_100VAR_5KCASE = "simulated_100var_5kcase";
+
+    private static final String DEFAULT_DATA_DIR = "../causal-experiment/src/test/resources/data";
+
+    private static final long SIMULATION_SEED = 1682343751L;
+
+    @Param({BUNDLED_DATA, SIMULATED_50VAR_1KCASE, SIMULATED_100VAR_5KCASE})
+    public String dataset;
+
+    private DataSet dataSet;
+
+    private Graph pagFromDagGraph;
+
+    @Setup
+    public void setup() throws Exception {
+        SimulatedData simulatedData;
+        switch (dataset) {
+            case BUNDLED_DATA:
+                simulatedData = loadBundledData();
+                break;
+            case SIMULATED_50VAR_1KCASE:
+                simulatedData = simulateData(50, 1000);
+                break;
+            case SIMULATED_100VAR_5KCASE:
+                simulatedData = simulateData(100, 5000);
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("Unknown dataset '%s'.", dataset));
+        }
+
+        this.dataSet = simulatedData.getDataSet();
+        this.pagFromDagGraph = simulatedData.getPagFromDagGraph();
+    }
+
+    /**
+     * Create the parameters of the RFCI search and of the bootstrapping.
+     *
+     * @return parameters
+     */
+    public static Parameters createParameters() {
+        Parameters parameters = new Parameters();
+        parameters.set(Params.ALPHA, 0.05);
+        parameters.set(Params.DEPTH, 3);
+        parameters.set(Params.MAX_PATH_LENGTH, -1);
+        parameters.set(Params.VERBOSE, false);
+        parameters.set(Params.NO_RANDOMLY_DETERMINED_INDEPENDENCE, true);
+        parameters.set(Params.CUTOFF_IND_TEST, 0.5);
+        parameters.set(Params.PRIOR_EQUIVALENT_SAMPLE_SIZE, 10);
+        parameters.set(Params.NUMBER_RESAMPLING, 20);
+        parameters.set(Params.ADD_ORIGINAL_DATASET, false);
+        parameters.set(Params.RESAMPLING_WITH_REPLACEMENT, true);
+        parameters.set(Params.SEED, SIMULATION_SEED);
+
+        return parameters;
+    }
+
+    private SimulatedData loadBundledData() throws Exception {
+        Path dataDir = Paths.get(System.getProperty(DATA_DIR_PROPERTY, DEFAULT_DATA_DIR), BUNDLED_DATA, "simulation");
+        DataSet data = (DataSet) ResourceLoader.loadDataModel(Paths.get(dataDir.toString(), "data", "data.1.txt"), Delimiter.TAB);
+        Graph trueGraph = ResourceLoader.loadGraph(Paths.get(dataDir.toString(), "graph", "graph.1.txt"));
+
+        return new SimulatedData(data, trueGraph, SearchGraphUtils.dagToPag(trueGraph));
+    }
+
+    private SimulatedData simulateData(int numOfVariables, int numOfCases) throws Exception {
+        Path dirOut = Files.createTempDirectory("benchmark");
+        try {
+            return SimulatedDataFactory.createBayesNetSimulationData(numOfVariables, numOfCases, 2, SIMULATION_SEED, dirOut);
+        } finally {
+            FileIO.deleteDirectory(dirOut);
+        }
+    }
+
+    public DataSet getDataSet() {
+        return dataSet;
+    }
+
+    public Graph getPagFromDagGraph() {
+        return pagFromDagGraph;
+    }
+
+}
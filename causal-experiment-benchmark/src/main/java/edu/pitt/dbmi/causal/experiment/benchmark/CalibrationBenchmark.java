@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.benchmark;
+
+import edu.cmu.tetrad.graph.Graph;
+import edu.pitt.dbmi.causal.experiment.calibration.CalibrationData;
+import edu.pitt.dbmi.causal.experiment.calibration.EdgeValue;
+import edu.pitt.dbmi.causal.experiment.calibration.GraphData;
+import edu.pitt.dbmi.causal.experiment.tetrad.EdgeTypeAggregator;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Examining the directed edges of the high-edge-probability graph against
+ * the PAG of the true graph.
+ *
+ * Apr 24, 2023 11:38:52 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CalibrationBenchmark {
+
+    private Graph searchGraph;
+
+    private Graph trueGraph;
+
+    @Setup
+    public void setup(BenchmarkData data, ReplicatePags pags) {
+        EdgeTypeAggregator edgeTypeAggregator = new EdgeTypeAggregator();
+        pags.getGraphs().forEach(edgeTypeAggregator::add);
+
+        searchGraph = edgeTypeAggregator.createGraphWithHighProbabilityEdges();
+        trueGraph = data.getPagFromDagGraph();
+    }
+
+    @Benchmark
+    public Set<EdgeValue> graphDataExamineDirectEdge() {
+        return GraphData.examineDirectEdge(searchGraph, trueGraph);
+    }
+
+    @Benchmark
+    public CalibrationData calibrationDataExamineDirectEdge() {
+        return CalibrationData.examineDirectEdge(searchGraph, trueGraph);
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.benchmark;
+
+import edu.cmu.tetrad.graph.Graph;
+import edu.pitt.dbmi.causal.experiment.tetrad.EdgeTypeAggregator;
+import edu.pitt.dbmi.causal.experiment.tetrad.GraphImageRenderer;
+import edu.pitt.dbmi.causal.experiment.tetrad.GraphSvgWriter;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Drawing the high-edge-probability graph into the 1000x1000 image the
+ * runners save as graph.png, and writing it as graph.svg instead.
+ *
+ * Apr 29, 2023 3:12:05 PM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class GraphImageBenchmark {
+
+    private Graph searchGraph;
+
+    @Setup
+    public void setup(ReplicatePags pags) {
+        EdgeTypeAggregator edgeTypeAggregator = new EdgeTypeAggregator();
+        pags.getGraphs().forEach(edgeTypeAggregator::add);
+
+        searchGraph = edgeTypeAggregator.createGraphWithHighProbabilityEdges();
+    }
+
+    @Benchmark
+    public BufferedImage render() {
+        return GraphImageRenderer.render(searchGraph, 1000, 1000);
+    }
+
+    @Benchmark
+    public String writeSvg() throws IOException {
+        StringWriter writer = new StringWriter();
+        GraphSvgWriter.write(searchGraph, 1000, 1000, writer);
+
+        return writer.toString();
+    }
+
+}
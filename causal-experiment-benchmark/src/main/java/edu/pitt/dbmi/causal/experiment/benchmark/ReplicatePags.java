@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.benchmark;
+
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.search.IndTestGSquare;
+import edu.cmu.tetrad.search.Rfci;
+import edu.cmu.tetrad.util.Parameters;
+import edu.cmu.tetrad.util.Params;
+import edu.pitt.dbmi.causal.experiment.util.BootstrapReplicates;
+import edu.pitt.dbmi.causal.experiment.util.DataSampling;
+import java.util.ArrayList;
+import java.util.List;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * PAGs of RFCI searches with the G square test on bootstrap replicates of
+ * the dataset, the input of the aggregation benchmarks.
+ *
+ * Apr 24, 2023 11:02:17 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+@State(Scope.Benchmark)
+public class ReplicatePags {
+
+    private final List<Graph> graphs = new ArrayList<>();
+
+    @Setup
+    public void setup(BenchmarkData data) {
+        Parameters parameters = BenchmarkData.createParameters();
+        BootstrapReplicates replicates = new BootstrapReplicates(data.getDataSet(), parameters, DataSampling.getSeed(parameters));
+
+        graphs.clear();
+        for (int i = 0; i < replicates.getNumOfReplicates(); i++) {
+            Rfci rfci = new Rfci(new IndTestGSquare(replicates.get(i), parameters.getDouble(Params.ALPHA)));
+            rfci.setDepth(parameters.getInt(Params.DEPTH));
+            rfci.setMaxPathLength(parameters.getInt(Params.MAX_PATH_LENGTH));
+            rfci.setVerbose(parameters.getBoolean(Params.VERBOSE));
+
+            graphs.add(rfci.search());
+        }
+    }
+
+    public List<Graph> getGraphs() {
+        return graphs;
+    }
+
+}
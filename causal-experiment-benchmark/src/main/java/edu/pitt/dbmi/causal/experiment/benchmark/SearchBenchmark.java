@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.benchmark;
+
+import edu.cmu.tetrad.algcomparison.independence.ChiSquare;
+import edu.cmu.tetrad.algcomparison.independence.Gsquare;
+import edu.cmu.tetrad.algcomparison.independence.IndependenceWrapper;
+import edu.cmu.tetrad.algcomparison.independence.ProbabilisticTest;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.search.Rfci;
+import edu.cmu.tetrad.util.Parameters;
+import edu.cmu.tetrad.util.Params;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A single RFCI search on the dataset for each test of independence.
+ *
+ * Apr 24, 2023 10:31:48 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"gSquare", "chiSquare", "probabilistic"})
+    public String test;
+
+    private IndependenceWrapper independenceWrapper;
+
+    private Parameters parameters;
+
+    @Setup
+    public void setup() {
+        switch (test) {
+            case "gSquare":
+                independenceWrapper = new Gsquare();
+                break;
+            case "chiSquare":
+                independenceWrapper = new ChiSquare();
+                break;
+            case "probabilistic":
+                independenceWrapper = new ProbabilisticTest();
+                break;
+            default:
+                throw new IllegalArgumentException(String.format("Unknown test '%s'.", test));
+        }
+
+        parameters = BenchmarkData.createParameters();
+    }
+
+    @Benchmark
+    public Graph rfci(BenchmarkData data) {
+        Rfci rfci = new Rfci(independenceWrapper.getTest(data.getDataSet(), parameters));
+        rfci.setDepth(parameters.getInt(Params.DEPTH));
+        rfci.setMaxPathLength(parameters.getInt(Params.MAX_PATH_LENGTH));
+        rfci.setVerbose(parameters.getBoolean(Params.VERBOSE));
+
+        return rfci.search();
+    }
+
+}
@@ -24,13 +24,16 @@ import edu.cmu.tetrad.search.SearchGraphUtils;
 import edu.cmu.tetrad.util.Parameters;
 import edu.cmu.tetrad.util.Params;
 import edu.pitt.dbmi.causal.experiment.data.SimulatedData;
+import edu.pitt.dbmi.causal.experiment.run.OutputStage;
 import edu.pitt.dbmi.causal.experiment.run.PagSamplingRfciRunner;
 import edu.pitt.dbmi.causal.experiment.run.RficGSquareBootstrapRunner;
 import edu.pitt.dbmi.causal.experiment.run.RficProbabilisticBootstrapRunner;
+import edu.pitt.dbmi.causal.experiment.run.RunnerParams;
 import edu.pitt.dbmi.causal.experiment.tetrad.Graphs;
 import edu.pitt.dbmi.causal.experiment.util.FileIO;
 import edu.pitt.dbmi.causal.experiment.util.ResourceLoader;
 import edu.pitt.dbmi.data.reader.Delimiter;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
@@ -42,34 +45,61 @@ import java.nio.file.Paths;
  */
 public class FileSimulatedDataExperimentApp {
 
-    private static void run(Path dataFile, Path graphFile, Path dirout) throws Exception {
-        // clean
+    private static void run(Path dataFile, Path graphFile, Path dirout, boolean resume) throws Exception {
+        // clean, unless the runs are to continue from their checkpoints
         Path experimentFolder = Paths.get(dirout.toString(), "experiments");
-        FileIO.createNewDirectory(experimentFolder);
-        for (int i = 0; i < 1; i++) {
-            Path iExperimentFolder = FileIO.createSubdirectory(experimentFolder, String.format("experiment_%d", i + 1));
+        if (resume) {
+            FileIO.createDirectory(experimentFolder);
+        } else {
+            FileIO.createNewDirectory(experimentFolder);
+        }
+
+        // kept between invocations so that unchanged runs are not searched again
+        Path resultCacheFolder = Paths.get(dirout.toString(), "result_cache");
+
+        // write the outputs of a runner while the next one searches
+        try (OutputStage outputStage = new OutputStage()) {
+            for (int i = 0; i < 1; i++) {
+                Path iExperimentFolder = createDirectory(experimentFolder, String.format("experiment_%d", i + 1), resume);
 
-            SimulatedData simData = getBayesNetSimulationData(dataFile, graphFile);
+                SimulatedData simData = getBayesNetSimulationData(dataFile, graphFile);
 
-            Path graphFolder = FileIO.createSubdirectory(iExperimentFolder, "graphs");
-            Graphs.saveSourceGraphs(graphFolder, simData);
+                Path graphFolder = createDirectory(iExperimentFolder, "graphs", resume);
+                Graphs.saveSourceGraphs(graphFolder, simData);
 
-            Path runFolder = FileIO.createSubdirectory(iExperimentFolder, "runs");
+                Path runFolder = createDirectory(iExperimentFolder, "runs", resume);
 
-            // run pag-sampling-rfci
-            PagSamplingRfciRunner pagSamplingRfciRunner = new PagSamplingRfciRunner(simData, getPagSamplingRfciParameters());
-            pagSamplingRfciRunner.run(runFolder);
+                // run pag-sampling-rfci
+                PagSamplingRfciRunner pagSamplingRfciRunner = new PagSamplingRfciRunner(simData, setRunnerParams(getPagSamplingRfciParameters(), resume, resultCacheFolder));
+                pagSamplingRfciRunner.setOutputStage(outputStage);
+                pagSamplingRfciRunner.run(runFolder);
 
-            // run rfci with probabilistic test via bootstrapping
-            RficProbabilisticBootstrapRunner rficProbabilisticBootstrapRunner = new RficProbabilisticBootstrapRunner(simData, getRficProbabilisticBootstrapParameters());
-            rficProbabilisticBootstrapRunner.run(runFolder);
+                // run rfci with probabilistic test via bootstrapping
+                RficProbabilisticBootstrapRunner rficProbabilisticBootstrapRunner = new RficProbabilisticBootstrapRunner(simData, setRunnerParams(getRficProbabilisticBootstrapParameters(), resume, resultCacheFolder));
+                rficProbabilisticBootstrapRunner.setOutputStage(outputStage);
+                rficProbabilisticBootstrapRunner.run(runFolder);
 
-            // run rfci with g2 test via bootstrapping
-            RficGSquareBootstrapRunner rficGSquareBootstrapRunner = new RficGSquareBootstrapRunner(simData, getRficGSquareBootstrapParameters());
-            rficGSquareBootstrapRunner.run(runFolder);
+                // run rfci with g2 test via bootstrapping
+                RficGSquareBootstrapRunner rficGSquareBootstrapRunner = new RficGSquareBootstrapRunner(simData, setRunnerParams(getRficGSquareBootstrapParameters(), resume, resultCacheFolder));
+                rficGSquareBootstrapRunner.setOutputStage(outputStage);
+                rficGSquareBootstrapRunner.run(runFolder);
+            }
         }
     }
 
+    private static Path createDirectory(Path dir, String name, boolean resume) throws IOException {
+        return resume
+                ? FileIO.createDirectory(Paths.get(dir.toString(), name))
+                : FileIO.createSubdirectory(dir, name);
+    }
+
+    private static Parameters setRunnerParams(Parameters parameters, boolean resume, Path resultCacheFolder) {
+        parameters.set(RunnerParams.RESUME, resume);
+        parameters.set(RunnerParams.RESULT_CACHE_DIR, resultCacheFolder.toString());
+
+        return parameters;
+    }
+
     private static Parameters getRficGSquareBootstrapParameters() {
         Parameters parameters = new Parameters();
 
@@ -165,12 +195,22 @@ public class FileSimulatedDataExperimentApp {
         return new SimulatedData(dataSet, trueGraph, pagFromDagGraph);
     }
 
+    /**
+     * The arguments are the data file, the true graph file and the output
+     * directory. With --resume as the fourth argument, the existing outputs
+     * are kept and the bootstrap runs continue from their last checkpoint.
+     * The search results of the bootstrap runs are cached in the
+     * result_cache directory of the output directory.
+     *
+     * @param args the command line arguments
+     */
     public static void main(String[] args) {
         System.out.println("================================================================================");
         System.out.println("File Simulated Data Experiments");
         System.out.println("================================================================================");
         try {
-            run(Paths.get(args[0]), Paths.get(args[1]), Paths.get(args[2]));
+            boolean resume = args.length > 3 && "--resume".equals(args[3]);
+            run(Paths.get(args[0]), Paths.get(args[1]), Paths.get(args[2]), resume);
         } catch (Exception exception) {
             exception.printStackTrace(System.err);
         }
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment;
+
+import edu.pitt.dbmi.causal.experiment.data.SimulatedData;
+import edu.pitt.dbmi.causal.experiment.run.AbstractRunner;
+import edu.pitt.dbmi.causal.experiment.run.ExperimentScheduler;
+import edu.pitt.dbmi.causal.experiment.run.OutputStage;
+import edu.pitt.dbmi.causal.experiment.run.ParameterSweep;
+import edu.pitt.dbmi.causal.experiment.run.RunnerParams;
+import edu.pitt.dbmi.causal.experiment.tetrad.Graphs;
+import edu.pitt.dbmi.causal.experiment.util.FileIO;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Runs the runner jobs of a parameter sweep on data from files. The jobs
+ * share the data and graphs, which are loaded once, and are run
+ * concurrently. Jobs that differ only in how their results are written out
+ * run one after the other, so that all but the first reuse the cached
+ * search results.
+ *
+ * May 9, 2023 2:18:33 PM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class ParameterSweepApp {
+
+    private static void run(Path sweepFile, Path dataFile, Path graphFile, Path dirout, int maxConcurrency) throws Exception {
+        ParameterSweep sweep = ParameterSweep.read(sweepFile);
+
+        // clean
+        Path sweepFolder = Paths.get(dirout.toString(), "sweep");
+        FileIO.createNewDirectory(sweepFolder);
+
+        SimulatedData simData = FileSimulatedDataExperimentApp.getBayesNetSimulationData(dataFile, graphFile);
+
+        Path graphFolder = FileIO.createSubdirectory(sweepFolder, "graphs");
+        Graphs.saveSourceGraphs(graphFolder, simData);
+
+        // kept between invocations so that unchanged jobs are not searched again
+        Path resultCacheFolder = Paths.get(dirout.toString(), "result_cache");
+
+        // write the outputs of the jobs while the others search
+        try (OutputStage outputStage = new OutputStage();
+                ExperimentScheduler scheduler = new ExperimentScheduler(maxConcurrency)) {
+            for (List<ParameterSweep.Job> jobs : sweep.getJobGroups()) {
+                scheduler.submit(() -> {
+                    for (ParameterSweep.Job job : jobs) {
+                        runJob(job, simData, sweepFolder, resultCacheFolder, scheduler.getNumOfThreadsPerTask(), outputStage);
+                    }
+                });
+            }
+            scheduler.await();
+        }
+    }
+
+    private static void runJob(ParameterSweep.Job job, SimulatedData simData, Path sweepFolder, Path resultCacheFolder, int numOfThreads, OutputStage outputStage) throws Exception {
+        Path jobFolder = FileIO.createSubdirectory(sweepFolder, job.getName());
+
+        // write out the parameters before the runner adds its defaults
+        try (PrintStream writer = new PrintStream(Paths.get(jobFolder.toString(), "parameters.txt").toFile())) {
+            writer.printf("runner: %s%n", job.getRunnerType().getName());
+            job.getParameterValues().forEach((name, value) -> writer.printf("%s: %s%n", name, value));
+        }
+
+        if (!job.getParameters().getParametersNames().contains(RunnerParams.RESULT_CACHE_DIR)) {
+            job.getParameters().set(RunnerParams.RESULT_CACHE_DIR, resultCacheFolder.toString());
+        }
+
+        // the jobs running at the same time share the processors
+        if (!job.getParameters().getParametersNames().contains(RunnerParams.NUM_THREADS)) {
+            job.getParameters().set(RunnerParams.NUM_THREADS, numOfThreads);
+        }
+
+        AbstractRunner runner = job.getRunnerType().createRunner(simData, job.getParameters());
+        runner.setOutputStage(outputStage);
+        runner.run(jobFolder);
+    }
+
+    /**
+     * The arguments are the sweep file, the data file, the true graph file
+     * and the output directory. The optional fifth argument is the maximum
+     * number of jobs run at the same time, which defaults to the number of
+     * processors. Unless the sweep file sets numThreads, each job searches
+     * with as many threads as the number of processors divided by that
+     * maximum, and at least 1. See {@link ParameterSweep} for the sweep file.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        System.out.println("================================================================================");
+        System.out.println("Parameter Sweep");
+        System.out.println("================================================================================");
+        try {
+            int maxConcurrency = (args.length > 4)
+                    ? Integer.parseInt(args[4])
+                    : ExperimentScheduler.DEFAULT_MAX_CONCURRENCY;
+            run(Paths.get(args[0]), Paths.get(args[1]), Paths.get(args[2]), Paths.get(args[3]), maxConcurrency);
+        } catch (Exception exception) {
+            exception.printStackTrace(System.err);
+        }
+        System.out.println("================================================================================");
+    }
+
+}
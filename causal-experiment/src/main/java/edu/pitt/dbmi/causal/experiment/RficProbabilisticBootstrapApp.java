@@ -41,7 +41,6 @@ import java.time.format.DateTimeFormatter;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
-import org.apache.commons.math3.random.RandomGenerator;
 
 /**
  *
@@ -63,8 +62,8 @@ public class RficProbabilisticBootstrapApp {
         // get algorithm parameters
         Parameters parameters = getParameters();
 
-        RandomGenerator randGen = DataSampling.createRandomGenerator(parameters);
-        List<DataSet> dataSets = DataSampling.sample(dataSet, parameters, randGen);
+        long seed = DataSampling.getSeed(parameters);
+        List<DataSet> dataSets = DataSampling.sample(dataSet, parameters, seed);
 
         // start the timer
         final LocalDateTime startDateTime = LocalDateTime.now();
@@ -84,10 +83,10 @@ public class RficProbabilisticBootstrapApp {
         // continue to run searches until the number of desire graphs has reached
         int numOfAdditionalDataSampling = 0;
         while (graphs.size() < dataSets.size()) {
+            DataSet sampleData = DataSampling.sampleWithReplacement(dataSet, seed, numOfSearchRuns);
+
             numOfAdditionalDataSampling++;
             numOfSearchRuns++;
-
-            DataSet sampleData = DataSampling.sampleWithReplacement(dataSet, randGen);
             Graph graph = runSearch(sampleData, parameters);
             if (SearchGraphUtils.isLegalPag(graph).isLegalPag()) {
                 graphs.add(graph);
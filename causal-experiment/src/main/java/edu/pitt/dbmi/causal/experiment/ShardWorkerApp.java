@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment;
+
+import edu.pitt.dbmi.causal.experiment.run.ShardWorker;
+import java.nio.file.Paths;
+
+/**
+ * Worker process of a sharded bootstrap run. The runner starts local
+ * workers itself; more workers can be started on any machine that mounts
+ * the shard directory.
+ *
+ * May 10, 2023 12:20:15 PM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class ShardWorkerApp {
+
+    /**
+     * The argument is the directory of the run under the shard directory,
+     * which the run prints when it starts.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        try {
+            ShardWorker.run(Paths.get(args[0]));
+        } catch (Exception exception) {
+            exception.printStackTrace(System.err);
+            System.exit(1);
+        }
+    }
+
+}
@@ -21,9 +21,12 @@ package edu.pitt.dbmi.causal.experiment;
 import edu.cmu.tetrad.util.Parameters;
 import edu.cmu.tetrad.util.Params;
 import edu.pitt.dbmi.causal.experiment.data.SimulatedData;
+import edu.pitt.dbmi.causal.experiment.run.ExperimentScheduler;
+import edu.pitt.dbmi.causal.experiment.run.OutputStage;
 import edu.pitt.dbmi.causal.experiment.run.PagSamplingRfciRunner;
 import edu.pitt.dbmi.causal.experiment.run.RficGSquareBootstrapRunner;
 import edu.pitt.dbmi.causal.experiment.run.RficProbabilisticBootstrapRunner;
+import edu.pitt.dbmi.causal.experiment.run.RunnerParams;
 import edu.pitt.dbmi.causal.experiment.tetrad.Graphs;
 import edu.pitt.dbmi.causal.experiment.util.FileIO;
 import edu.pitt.dbmi.causal.experiment.util.SimulatedDataFactory;
@@ -51,36 +54,68 @@ public class SimulatedDataExperimentApp {
         3870659553831L
     };
 
-    private static void run(Path dirout) throws Exception {
+    /**
+     * Run the experiments of all the seeds. Each seed is simulated in its own
+     * task, which then submits one task per runner, so the seeds and the
+     * runners are run concurrently, up to the given number of tasks at a
+     * time. The runners share the processors: each searches with as many
+     * threads as the number of processors divided by the maximum concurrency.
+     */
+    private static void run(Path dirout, int maxConcurrency) throws Exception {
         // clean
         Path experimentFolder = Paths.get(dirout.toString(), "experiments");
         FileIO.createNewDirectory(experimentFolder);
-        for (int i = 0; i < SEEDS.length; i++) {
-            Path iExperimentFolder = FileIO.createSubdirectory(experimentFolder, String.format("experiment_%d", i + 1));
 
-            int numOfVariables = 20;
-            int numOfCases = 1000;
-            int avgDegree = 3;
-            Path dataFolder = FileIO.createSubdirectory(iExperimentFolder, "data");
-            SimulatedData simData = SimulatedDataFactory.createBayesNetSimulationData(numOfVariables, numOfCases, avgDegree, SEEDS[i], dataFolder);
+        // write the outputs of the runners while the others search
+        try (OutputStage outputStage = new OutputStage();
+                ExperimentScheduler scheduler = new ExperimentScheduler(maxConcurrency)) {
+            for (int i = 0; i < SEEDS.length; i++) {
+                Path iExperimentFolder = FileIO.createSubdirectory(experimentFolder, String.format("experiment_%d", i + 1));
+                long seed = SEEDS[i];
+                scheduler.submit(() -> runExperiment(iExperimentFolder, seed, scheduler, outputStage));
+            }
+            scheduler.await();
+        }
+    }
+
+    private static void runExperiment(Path iExperimentFolder, long seed, ExperimentScheduler scheduler, OutputStage outputStage) throws Exception {
+        int numOfVariables = 20;
+        int numOfCases = 1000;
+        int avgDegree = 3;
+        Path dataFolder = FileIO.createSubdirectory(iExperimentFolder, "data");
+        SimulatedData simData = SimulatedDataFactory.createBayesNetSimulationData(numOfVariables, numOfCases, avgDegree, seed, dataFolder);
 
-            Path graphFolder = FileIO.createSubdirectory(iExperimentFolder, "graphs");
-            Graphs.saveSourceGraphs(graphFolder, simData);
+        Path graphFolder = FileIO.createSubdirectory(iExperimentFolder, "graphs");
+        Graphs.saveSourceGraphs(graphFolder, simData);
 
-            Path runFolder = FileIO.createSubdirectory(iExperimentFolder, "runs");
+        Path runFolder = FileIO.createSubdirectory(iExperimentFolder, "runs");
 
-            // run pag-sampling-rfci
-            PagSamplingRfciRunner pagSamplingRfciRunner = new PagSamplingRfciRunner(simData, getPagSamplingRfciParameters());
+        // run pag-sampling-rfci
+        scheduler.submit(() -> {
+            PagSamplingRfciRunner pagSamplingRfciRunner = new PagSamplingRfciRunner(simData, withNumOfThreads(getPagSamplingRfciParameters(), scheduler));
+            pagSamplingRfciRunner.setOutputStage(outputStage);
             pagSamplingRfciRunner.run(runFolder);
+        });
 
-            // run rfci with probabilistic test via bootstrapping
-            RficProbabilisticBootstrapRunner rficProbabilisticBootstrapRunner = new RficProbabilisticBootstrapRunner(simData, getRficProbabilisticBootstrapParameters());
+        // run rfci with probabilistic test via bootstrapping
+        scheduler.submit(() -> {
+            RficProbabilisticBootstrapRunner rficProbabilisticBootstrapRunner = new RficProbabilisticBootstrapRunner(simData, withNumOfThreads(getRficProbabilisticBootstrapParameters(), scheduler));
+            rficProbabilisticBootstrapRunner.setOutputStage(outputStage);
             rficProbabilisticBootstrapRunner.run(runFolder);
+        });
 
-            // run rfci with g2 test via bootstrapping
-            RficGSquareBootstrapRunner rficGSquareBootstrapRunner = new RficGSquareBootstrapRunner(simData, getRficGSquareBootstrapParameters());
+        // run rfci with g2 test via bootstrapping
+        scheduler.submit(() -> {
+            RficGSquareBootstrapRunner rficGSquareBootstrapRunner = new RficGSquareBootstrapRunner(simData, withNumOfThreads(getRficGSquareBootstrapParameters(), scheduler));
+            rficGSquareBootstrapRunner.setOutputStage(outputStage);
             rficGSquareBootstrapRunner.run(runFolder);
-        }
+        });
+    }
+
+    private static Parameters withNumOfThreads(Parameters parameters, ExperimentScheduler scheduler) {
+        parameters.set(RunnerParams.NUM_THREADS, scheduler.getNumOfThreadsPerTask());
+
+        return parameters;
     }
 
     private static Parameters getRficGSquareBootstrapParameters() {
@@ -170,6 +205,12 @@ public class SimulatedDataExperimentApp {
     }
 
     /**
+     * The first argument is the output directory. The optional second
+     * argument is the maximum number of seeds and runners run at the same
+     * time, which defaults to the number of processors. Each runner searches
+     * with as many threads as the number of processors divided by that
+     * maximum, and at least 1.
+     *
      * @param args the command line arguments
      */
     public static void main(String[] args) {
@@ -177,7 +218,10 @@ public class SimulatedDataExperimentApp {
         System.out.println("Simulated Data Experiments");
         System.out.println("================================================================================");
         try {
-            run(Paths.get(args[0]));
+            int maxConcurrency = (args.length > 1)
+                    ? Integer.parseInt(args[1])
+                    : ExperimentScheduler.DEFAULT_MAX_CONCURRENCY;
+            run(Paths.get(args[0]), maxConcurrency);
         } catch (Exception exception) {
             exception.printStackTrace(System.err);
         }
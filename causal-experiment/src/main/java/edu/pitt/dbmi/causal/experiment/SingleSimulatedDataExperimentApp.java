@@ -3,6 +3,7 @@ package edu.pitt.dbmi.causal.experiment;
 import edu.cmu.tetrad.util.Parameters;
 import edu.cmu.tetrad.util.Params;
 import edu.pitt.dbmi.causal.experiment.data.SimulatedData;
+import edu.pitt.dbmi.causal.experiment.run.OutputStage;
 import edu.pitt.dbmi.causal.experiment.run.PagSamplingRfciRunner;
 import edu.pitt.dbmi.causal.experiment.run.RficChiSquareBootstrapRunner;
 import edu.pitt.dbmi.causal.experiment.run.RficProbabilisticBootstrapRunner;
@@ -28,31 +29,38 @@ public class SingleSimulatedDataExperimentApp {
         // clean
         Path experimentFolder = Paths.get(dirout.toString(), "experiments");
         FileIO.createNewDirectory(experimentFolder);
-        for (int i = 0; i < SEEDS.length; i++) {
-            Path iExperimentFolder = FileIO.createSubdirectory(experimentFolder, String.format("experiment_%d", i + 1));
 
-            int numOfVariables = 20;
-            int numOfCases = 1000;
-            int avgDegree = 3;
-            Path dataFolder = FileIO.createSubdirectory(iExperimentFolder, "data");
-            SimulatedData simData = SimulatedDataFactory.createBayesNetSimulationData(numOfVariables, numOfCases, avgDegree, SEEDS[i], dataFolder);
-
-            Path graphFolder = FileIO.createSubdirectory(iExperimentFolder, "graphs");
-            Graphs.saveSourceGraphs(graphFolder, simData);
-
-            Path runFolder = FileIO.createSubdirectory(iExperimentFolder, "runs");
-
-            // run pag-sampling-rfci
-            PagSamplingRfciRunner pagSamplingRfciRunner = new PagSamplingRfciRunner(simData, getPagSamplingRfciParameters());
-            pagSamplingRfciRunner.run(runFolder);
-
-            // run rfci with probabilistic test via bootstrapping
-            RficProbabilisticBootstrapRunner rficProbabilisticBootstrapRunner = new RficProbabilisticBootstrapRunner(simData, getRficProbabilisticBootstrapParameters());
-            rficProbabilisticBootstrapRunner.run(runFolder);
-
-            // run rfci with chi2 test via bootstrapping
-            RficChiSquareBootstrapRunner rficGSquareBootstrapRunner = new RficChiSquareBootstrapRunner(simData, getRficChiSquareBootstrapParameters());
-            rficGSquareBootstrapRunner.run(runFolder);
+        // write the outputs of a runner while the next one searches
+        try (OutputStage outputStage = new OutputStage()) {
+            for (int i = 0; i < SEEDS.length; i++) {
+                Path iExperimentFolder = FileIO.createSubdirectory(experimentFolder, String.format("experiment_%d", i + 1));
+
+                int numOfVariables = 20;
+                int numOfCases = 1000;
+                int avgDegree = 3;
+                Path dataFolder = FileIO.createSubdirectory(iExperimentFolder, "data");
+                SimulatedData simData = SimulatedDataFactory.createBayesNetSimulationData(numOfVariables, numOfCases, avgDegree, SEEDS[i], dataFolder);
+
+                Path graphFolder = FileIO.createSubdirectory(iExperimentFolder, "graphs");
+                Graphs.saveSourceGraphs(graphFolder, simData);
+
+                Path runFolder = FileIO.createSubdirectory(iExperimentFolder, "runs");
+
+                // run pag-sampling-rfci
+                PagSamplingRfciRunner pagSamplingRfciRunner = new PagSamplingRfciRunner(simData, getPagSamplingRfciParameters());
+                pagSamplingRfciRunner.setOutputStage(outputStage);
+                pagSamplingRfciRunner.run(runFolder);
+
+                // run rfci with probabilistic test via bootstrapping
+                RficProbabilisticBootstrapRunner rficProbabilisticBootstrapRunner = new RficProbabilisticBootstrapRunner(simData, getRficProbabilisticBootstrapParameters());
+                rficProbabilisticBootstrapRunner.setOutputStage(outputStage);
+                rficProbabilisticBootstrapRunner.run(runFolder);
+
+                // run rfci with chi2 test via bootstrapping
+                RficChiSquareBootstrapRunner rficGSquareBootstrapRunner = new RficChiSquareBootstrapRunner(simData, getRficChiSquareBootstrapParameters());
+                rficGSquareBootstrapRunner.setOutputStage(outputStage);
+                rficGSquareBootstrapRunner.run(runFolder);
+            }
         }
     }
 
@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.calibration;
+
+import edu.cmu.tetrad.graph.Edge;
+import edu.cmu.tetrad.graph.EdgeTypeProbability;
+import edu.cmu.tetrad.graph.EdgeTypeProbability.EdgeType;
+import edu.cmu.tetrad.graph.Graph;
+import edu.pitt.dbmi.causal.experiment.tetrad.Edges;
+import edu.pitt.dbmi.lib.math.classification.data.ObservedPredictedValue;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Observed and predicted values of the node pairs of a true graph, kept in
+ * primitive arrays indexed by node pair. The nodes are numbered once, in the
+ * order of the true graph, and each graph is read in a single pass over its
+ * edges.
+ *
+ * The node pairs are in the same order, and the values are the same, as the
+ * edge values of {@link GraphData#examineDirectEdge(Graph, Graph)} and
+ * {@link GraphData#examineEdges(Graph, Graph)}.
+ *
+ * Apr 21, 2023 2:37:15 PM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class CalibrationData {
+
+    private final String[] nodeNames;
+
+    private final EdgeType edgeType;
+
+    /**
+     * Ordered node pairs when true, node pairs (i, j) with i &lt; j
+     * otherwise.
+     */
+    private final boolean ordered;
+
+    private final double[] predictedValues;
+
+    private final byte[] observedValues;
+
+    private CalibrationData(String[] nodeNames, EdgeType edgeType, boolean ordered) {
+        this.nodeNames = nodeNames;
+        this.edgeType = edgeType;
+        this.ordered = ordered;
+
+        int numOfNodes = nodeNames.length;
+        int numOfPairs = ordered
+                ? numOfNodes * (numOfNodes - 1)
+                : numOfNodes * (numOfNodes - 1) / 2;
+        this.predictedValues = new double[numOfPairs];
+        this.observedValues = new byte[numOfPairs];
+    }
+
+    /**
+     * Examine the directed edges (-->) in both directions of every node pair.
+     * The observed value is 1 if the true graph has the directed edge. The
+     * predicted value is the probability of the directed edge in the search
+     * graph.
+     *
+     * @param searchGraph graph with edge-type probabilities
+     * @param trueGraph true graph
+     * @return calibration data
+     */
+    public static CalibrationData examineDirectEdge(Graph searchGraph, Graph trueGraph) {
+        EdgeType edgeType = EdgeType.ta;
+        Map<String, Integer> nodeIds = getNodeIds(trueGraph);
+        CalibrationData data = new CalibrationData(getNodeNames(trueGraph), edgeType, true);
+
+        for (Edge edge : trueGraph.getEdges()) {
+            int id1 = nodeIds.get(edge.getNode1().getName());
+            int id2 = nodeIds.get(edge.getNode2().getName());
+            if (Edges.getEdgeType(edge, edge.getNode1(), edge.getNode2()) == edgeType) {
+                data.observedValues[data.getIndex(id1, id2)] = 1;
+            }
+            if (Edges.getEdgeType(edge, edge.getNode2(), edge.getNode1()) == edgeType) {
+                data.observedValues[data.getIndex(id2, id1)] = 1;
+            }
+        }
+
+        for (Edge edge : searchGraph.getEdges()) {
+            Integer id1 = nodeIds.get(edge.getNode1().getName());
+            Integer id2 = nodeIds.get(edge.getNode2().getName());
+            List<EdgeTypeProbability> edgeTypeProbs = edge.getEdgeTypeProbabilities();
+            if (id1 == null || id2 == null || edgeTypeProbs == null) {
+                continue;
+            }
+
+            // the edge types are with respect to the nodes of the edge in their order
+            for (EdgeTypeProbability edgeTypeProb : edgeTypeProbs) {
+                if (edgeTypeProb.getEdgeType() == edgeType) {
+                    data.predictedValues[data.getIndex(id1, id2)] = edgeTypeProb.getProbability();
+                }
+                if (Edges.getReversed(edgeTypeProb.getEdgeType()) == edgeType) {
+                    data.predictedValues[data.getIndex(id2, id1)] = edgeTypeProb.getProbability();
+                }
+            }
+        }
+
+        return data;
+    }
+
+    /**
+     * Examine the adjacencies of every node pair. The observed value is 1 if
+     * the true graph has an edge between the nodes. The predicted value is
+     * the probability of the edge between the nodes in the search graph.
+     *
+     * @param searchGraph graph with edge probabilities
+     * @param trueGraph true graph
+     * @return calibration data
+     */
+    public static CalibrationData examineEdges(Graph searchGraph, Graph trueGraph) {
+        Map<String, Integer> nodeIds = getNodeIds(trueGraph);
+        CalibrationData data = new CalibrationData(getNodeNames(trueGraph), EdgeType.tt, false);
+
+        for (Edge edge : trueGraph.getEdges()) {
+            int id1 = nodeIds.get(edge.getNode1().getName());
+            int id2 = nodeIds.get(edge.getNode2().getName());
+            data.observedValues[data.getIndex(id1, id2)] = 1;
+        }
+
+        for (Edge edge : searchGraph.getEdges()) {
+            Integer id1 = nodeIds.get(edge.getNode1().getName());
+            Integer id2 = nodeIds.get(edge.getNode2().getName());
+            if (id1 != null && id2 != null) {
+                data.predictedValues[data.getIndex(id1, id2)] = edge.getProbability();
+            }
+        }
+
+        return data;
+    }
+
+    public void write(PrintStream writer) {
+        for (int i = 0; i < nodeNames.length; i++) {
+            for (int j = ordered ? 0 : i + 1; j < nodeNames.length; j++) {
+                if (i != j) {
+                    writer.println(lineData(i, j, getIndex(i, j)));
+                }
+            }
+        }
+    }
+
+    public ObservedPredictedValue[] toObservedPredictedValues() {
+        ObservedPredictedValue[] values = new ObservedPredictedValue[predictedValues.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = new ObservedPredictedValue(observedValues[i], predictedValues[i]);
+        }
+
+        return values;
+    }
+
+    public int size() {
+        return predictedValues.length;
+    }
+
+    private String lineData(int id1, int id2, int index) {
+        String edge = (edgeType == EdgeType.nil)
+                ? "no edge"
+                : String.format("%s %s %s", nodeNames[id1], Edges.toString(edgeType), nodeNames[id2]);
+        double probability = predictedValues[index];
+
+        return (probability > 0)
+                ? String.format("%s,%f,%d", edge, probability, observedValues[index])
+                : String.format("%s,0,%d", edge, observedValues[index]);
+    }
+
+    /**
+     * Get the index of the node pair. The ordered pairs are in the order of
+     * the first node, then the second. The unordered pairs are in the order
+     * of the node with the smaller id, then the larger.
+     */
+    private int getIndex(int id1, int id2) {
+        int numOfNodes = nodeNames.length;
+        if (ordered) {
+            return id1 * (numOfNodes - 1) + ((id2 < id1) ? id2 : id2 - 1);
+        } else {
+            int i = Math.min(id1, id2);
+            int j = Math.max(id1, id2);
+
+            return i * (2 * numOfNodes - i - 1) / 2 + (j - i - 1);
+        }
+    }
+
+    private static String[] getNodeNames(Graph graph) {
+        return graph.getNodeNames().stream().toArray(String[]::new);
+    }
+
+    private static Map<String, Integer> getNodeIds(Graph graph) {
+        List<String> nodeNames = graph.getNodeNames();
+        Map<String, Integer> nodeIds = new HashMap<>(nodeNames.size() * 2);
+        for (int i = 0; i < nodeNames.size(); i++) {
+            nodeIds.put(nodeNames.get(i), i);
+        }
+
+        return nodeIds;
+    }
+
+}
@@ -22,15 +22,11 @@ import edu.cmu.tetrad.graph.Graph;
 import edu.pitt.dbmi.lib.math.classification.calibration.HosmerLemeshow;
 import edu.pitt.dbmi.lib.math.classification.calibration.HosmerLemeshowRiskGroup;
 import edu.pitt.dbmi.lib.math.classification.calibration.plot.HosmerLemeshowPlot;
-import edu.pitt.dbmi.lib.math.classification.data.ObservedPredictedValue;
 import edu.pitt.dbmi.lib.math.classification.plot.PlotColors;
 import edu.pitt.dbmi.lib.math.classification.plot.PlotShapes;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.file.Path;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Set;
 
 /**
  *
@@ -40,17 +36,15 @@ import java.util.Set;
  */
 public class GraphStatistics {
 
-    private final Set<EdgeValue> graphData;
-    private final Set<EdgeValue> edgeData;
+    private final CalibrationData graphData;
+    private final CalibrationData edgeData;
 
     private final HosmerLemeshow hosmerLemeshow;
 
     public GraphStatistics(Graph searchGraph, Graph trueGraph) {
-        this.graphData = GraphData.examineDirectEdge(searchGraph, trueGraph);
-        this.edgeData = GraphData.examineEdges(searchGraph, trueGraph);
-
-        ObservedPredictedValue[] observedPredictedValues = toObservedPredictedValues(graphData);
-        this.hosmerLemeshow = new HosmerLemeshowRiskGroup(observedPredictedValues);
+        this.graphData = CalibrationData.examineDirectEdge(searchGraph, trueGraph);
+        this.edgeData = CalibrationData.examineEdges(searchGraph, trueGraph);
+        this.hosmerLemeshow = new HosmerLemeshowRiskGroup(graphData.toObservedPredictedValues());
     }
 
     public void saveStatistics(Path file) throws IOException {
@@ -78,24 +72,14 @@ public class GraphStatistics {
 
     public void saveGraphData(Path file) throws IOException {
         try (PrintStream writer = new PrintStream(file.toFile())) {
-            GraphData.write(graphData, writer);
+            graphData.write(writer);
         }
     }
 
     public void saveEdgeData(Path file) throws IOException {
         try (PrintStream writer = new PrintStream(file.toFile())) {
-            GraphData.write(edgeData, writer);
+            edgeData.write(writer);
         }
     }
 
-    private ObservedPredictedValue[] toObservedPredictedValues(Set<EdgeValue> graphData) {
-        List<ObservedPredictedValue> values = new LinkedList<>();
-
-        graphData.forEach(data -> {
-            values.add(new ObservedPredictedValue(data.getObservedValue(), data.getPredictedValue()));
-        });
-
-        return values.stream().toArray(ObservedPredictedValue[]::new);
-    }
-
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.data;
+
+import edu.cmu.tetrad.data.DataBox;
+import edu.cmu.tetrad.data.VerticalIntDataBox;
+import java.nio.ByteBuffer;
+
+/**
+ * A read-only data box of discrete values stored one byte per cell, column
+ * by column, in a byte buffer such as a memory-mapped file. A missing value
+ * is stored as -1.
+ *
+ * Apr 25, 2023 10:12:44 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class ByteColumnDataBox implements DataBox {
+
+    private static final long serialVersionUID = 23L;
+
+    public static final byte MISSING_VALUE = -1;
+
+    private final transient ByteBuffer data;
+
+    private final int numRows;
+
+    private final int numCols;
+
+    /**
+     * View the buffer, from its position, as numCols columns of numRows
+     * bytes each.
+     *
+     * @param data column values
+     * @param numRows number of rows
+     * @param numCols number of columns
+     */
+    public ByteColumnDataBox(ByteBuffer data, int numRows, int numCols) {
+        if ((long) numRows * numCols > data.remaining()) {
+            throw new IllegalArgumentException("Buffer is smaller than the data.");
+        }
+
+        this.data = data.slice();
+        this.numRows = numRows;
+        this.numCols = numCols;
+    }
+
+    @Override
+    public int numRows() {
+        return numRows;
+    }
+
+    @Override
+    public int numCols() {
+        return numCols;
+    }
+
+    @Override
+    public void set(int row, int col, Number value) throws IllegalArgumentException {
+        throw new UnsupportedOperationException("Byte-column data box is read-only.");
+    }
+
+    @Override
+    public Number get(int row, int col) {
+        byte value = data.get(col * numRows + row);
+
+        return (value == MISSING_VALUE) ? null : (int) value;
+    }
+
+    /**
+     * Copy the column into the array, with missing values as -99.
+     *
+     * @param col column index
+     * @param values array of at least numRows values
+     */
+    public void getColumn(int col, int[] values) {
+        int offset = col * numRows;
+        for (int row = 0; row < numRows; row++) {
+            byte value = data.get(offset + row);
+            values[row] = (value == MISSING_VALUE) ? -99 : value;
+        }
+    }
+
+    /**
+     * Copy the data into a modifiable data box.
+     *
+     * @return a copy of the data
+     */
+    @Override
+    public DataBox copy() {
+        if (numCols == 0) {
+            return like();
+        }
+
+        int[][] columns = new int[numCols][numRows];
+        for (int col = 0; col < numCols; col++) {
+            getColumn(col, columns[col]);
+        }
+
+        return new VerticalIntDataBox(columns);
+    }
+
+    @Override
+    public DataBox viewSelection(int[] rows, int[] cols) {
+        VerticalIntDataBox dataBox = new VerticalIntDataBox(rows.length, cols.length);
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = 0; j < cols.length; j++) {
+                dataBox.set(i, j, get(rows[i], cols[j]));
+            }
+        }
+
+        return dataBox;
+    }
+
+    @Override
+    public DataBox like() {
+        return new VerticalIntDataBox(numRows, numCols);
+    }
+
+    /**
+     * The buffer is not serializable, so a copy of the data is serialized
+     * instead.
+     */
+    private Object writeReplace() {
+        return copy();
+    }
+
+}
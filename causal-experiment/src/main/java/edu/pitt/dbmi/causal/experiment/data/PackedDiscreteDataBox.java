@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.data;
+
+import edu.cmu.tetrad.data.BoxDataSet;
+import edu.cmu.tetrad.data.DataBox;
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.data.DiscreteVariable;
+
+/**
+ * A data box of discrete values that stores each column with the fewest
+ * bits its number of categories needs. A value is stored as its category
+ * index plus one, and a missing value as zero, so a 3-category variable
+ * takes 2 bits per cell instead of the 32 bits of an int. The values do not
+ * cross word boundaries, so a column can be unpacked a word at a time.
+ *
+ * Apr 26, 2023 9:28:15 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class PackedDiscreteDataBox implements DataBox {
+
+    private static final long serialVersionUID = 23L;
+
+    private final int numRows;
+
+    private final int[] numOfCategories;
+
+    private final int[] bitsPerValue;
+
+    private final long[][] words;
+
+    /**
+     * Create a data box of the given shape with all the values missing.
+     *
+     * @param numRows number of rows
+     * @param numOfCategories number of categories of each column
+     */
+    public PackedDiscreteDataBox(int numRows, int[] numOfCategories) {
+        this.numRows = numRows;
+        this.numOfCategories = numOfCategories.clone();
+        this.bitsPerValue = new int[numOfCategories.length];
+        this.words = new long[numOfCategories.length][];
+        for (int col = 0; col < numOfCategories.length; col++) {
+            if (numOfCategories[col] < 1) {
+                throw new IllegalArgumentException("Number of categories must be at least 1.");
+            }
+
+            // enough bits for the codes 0 (missing) to numOfCategories
+            bitsPerValue[col] = Integer.SIZE - Integer.numberOfLeadingZeros(numOfCategories[col]);
+
+            int valuesPerWord = Long.SIZE / bitsPerValue[col];
+            words[col] = new long[(numRows + valuesPerWord - 1) / valuesPerWord];
+        }
+    }
+
+    /**
+     * Pack the values of a discrete dataset.
+     *
+     * @param dataSet discrete dataset
+     */
+    public PackedDiscreteDataBox(DataSet dataSet) {
+        this(dataSet.getNumRows(), getNumOfCategories(dataSet));
+
+        int numCols = numOfCategories.length;
+        for (int col = 0; col < numCols; col++) {
+            for (int row = 0; row < numRows; row++) {
+                setValue(row, col, dataSet.getInt(row, col));
+            }
+        }
+    }
+
+    private PackedDiscreteDataBox(PackedDiscreteDataBox dataBox) {
+        this.numRows = dataBox.numRows;
+        this.numOfCategories = dataBox.numOfCategories;
+        this.bitsPerValue = dataBox.bitsPerValue;
+        this.words = new long[dataBox.words.length][];
+        for (int col = 0; col < words.length; col++) {
+            words[col] = dataBox.words[col].clone();
+        }
+    }
+
+    /**
+     * Copy a discrete dataset into a dataset backed by a packed data box.
+     *
+     * @param dataSet discrete dataset
+     * @return packed dataset with the same variables
+     */
+    public static DataSet pack(DataSet dataSet) {
+        BoxDataSet packedDataSet = new BoxDataSet(new PackedDiscreteDataBox(dataSet), dataSet.getVariables());
+        packedDataSet.setName(dataSet.getName());
+        packedDataSet.setKnowledge(dataSet.getKnowledge());
+
+        return packedDataSet;
+    }
+
+    @Override
+    public int numRows() {
+        return numRows;
+    }
+
+    @Override
+    public int numCols() {
+        return numOfCategories.length;
+    }
+
+    @Override
+    public void set(int row, int col, Number value) throws IllegalArgumentException {
+        setValue(row, col, (value == null) ? DiscreteVariable.MISSING_VALUE : value.intValue());
+    }
+
+    @Override
+    public Number get(int row, int col) {
+        int bits = bitsPerValue[col];
+        int valuesPerWord = Long.SIZE / bits;
+        long word = words[col][row / valuesPerWord];
+        int code = (int) ((word >>> ((row % valuesPerWord) * bits)) & ((1L << bits) - 1));
+
+        return (code == 0) ? null : code - 1;
+    }
+
+    /**
+     * Unpack the column into the array, with missing values as -99.
+     *
+     * @param col column index
+     * @param values array of at least numRows values
+     */
+    public void getColumn(int col, int[] values) {
+        int bits = bitsPerValue[col];
+        int valuesPerWord = Long.SIZE / bits;
+        long mask = (1L << bits) - 1;
+        long[] column = words[col];
+
+        int row = 0;
+        for (long word : column) {
+            int end = Math.min(row + valuesPerWord, numRows);
+            for (; row < end; row++) {
+                int code = (int) (word & mask);
+                values[row] = (code == 0) ? DiscreteVariable.MISSING_VALUE : code - 1;
+                word >>>= bits;
+            }
+        }
+    }
+
+    public int getNumOfCategories(int col) {
+        return numOfCategories[col];
+    }
+
+    @Override
+    public DataBox copy() {
+        return new PackedDiscreteDataBox(this);
+    }
+
+    @Override
+    public DataBox viewSelection(int[] rows, int[] cols) {
+        int[] selectedCategories = new int[cols.length];
+        for (int j = 0; j < cols.length; j++) {
+            selectedCategories[j] = numOfCategories[cols[j]];
+        }
+
+        PackedDiscreteDataBox dataBox = new PackedDiscreteDataBox(rows.length, selectedCategories);
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = 0; j < cols.length; j++) {
+                dataBox.set(i, j, get(rows[i], cols[j]));
+            }
+        }
+
+        return dataBox;
+    }
+
+    @Override
+    public DataBox like() {
+        return new PackedDiscreteDataBox(numRows, numOfCategories);
+    }
+
+    private void setValue(int row, int col, int value) {
+        int code;
+        if (value == DiscreteVariable.MISSING_VALUE) {
+            code = 0;
+        } else if (value >= 0 && value < numOfCategories[col]) {
+            code = value + 1;
+        } else {
+            throw new IllegalArgumentException(String.format("Value %d is not a category index of column %d.", value, col));
+        }
+
+        int bits = bitsPerValue[col];
+        int valuesPerWord = Long.SIZE / bits;
+        int shift = (row % valuesPerWord) * bits;
+        long mask = ((1L << bits) - 1) << shift;
+        long[] column = words[col];
+        int index = row / valuesPerWord;
+        column[index] = (column[index] & ~mask) | ((long) code << shift);
+    }
+
+    private static int[] getNumOfCategories(DataSet dataSet) {
+        int[] numOfCategories = new int[dataSet.getNumColumns()];
+        for (int col = 0; col < numOfCategories.length; col++) {
+            numOfCategories[col] = ((DiscreteVariable) dataSet.getVariable(col)).getNumCategories();
+        }
+
+        return numOfCategories;
+    }
+
+}
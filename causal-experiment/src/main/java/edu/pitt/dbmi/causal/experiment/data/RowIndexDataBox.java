@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.data;
+
+import edu.cmu.tetrad.data.DataBox;
+import edu.cmu.tetrad.data.DoubleDataBox;
+import edu.cmu.tetrad.data.FloatDataBox;
+import edu.cmu.tetrad.data.VerticalDoubleDataBox;
+import edu.cmu.tetrad.data.VerticalIntDataBox;
+
+/**
+ * A read-only view of the selected rows and columns of another data box. The
+ * view keeps only the row and column indices, so a bootstrap sample costs
+ * O(rows) memory instead of a copy of the whole data. Rows may be selected
+ * more than once.
+ *
+ * Apr 16, 2023 2:18:40 PM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class RowIndexDataBox implements DataBox {
+
+    private static final long serialVersionUID = 23L;
+
+    private final DataBox dataBox;
+
+    private final int[] rows;
+
+    private final int[] cols;
+
+    /**
+     * View the given rows of the data box, with all of its columns.
+     *
+     * @param dataBox data box to view
+     * @param rows row indices into the data box
+     */
+    public RowIndexDataBox(DataBox dataBox, int[] rows) {
+        this(dataBox, rows, allIndices(dataBox.numCols()));
+    }
+
+    /**
+     * View the given rows and columns of the data box. The arrays are not
+     * copied and must not be changed afterward.
+     *
+     * @param dataBox data box to view
+     * @param rows row indices into the data box
+     * @param cols column indices into the data box
+     */
+    public RowIndexDataBox(DataBox dataBox, int[] rows, int[] cols) {
+        // view the source directly instead of stacking views
+        if (dataBox instanceof RowIndexDataBox) {
+            RowIndexDataBox view = (RowIndexDataBox) dataBox;
+            this.dataBox = view.dataBox;
+            this.rows = select(view.rows, rows);
+            this.cols = select(view.cols, cols);
+        } else {
+            this.dataBox = dataBox;
+            this.rows = rows;
+            this.cols = cols;
+        }
+    }
+
+    @Override
+    public int numRows() {
+        return rows.length;
+    }
+
+    @Override
+    public int numCols() {
+        return cols.length;
+    }
+
+    @Override
+    public void set(int row, int col, Number value) throws IllegalArgumentException {
+        throw new UnsupportedOperationException("Row-index view is read-only.");
+    }
+
+    @Override
+    public Number get(int row, int col) {
+        return dataBox.get(rows[row], cols[col]);
+    }
+
+    /**
+     * Copy the viewed data into a data box of the same type as the source.
+     *
+     * @return a copy of the viewed data
+     */
+    @Override
+    public DataBox copy() {
+        return dataBox.viewSelection(rows, cols);
+    }
+
+    @Override
+    public DataBox viewSelection(int[] rows, int[] cols) {
+        return new RowIndexDataBox(this, rows, cols);
+    }
+
+    /**
+     * Create an empty data box of the size of the view, without copying the
+     * viewed data. A view of doubles gives a box of doubles, and any other
+     * view a box of ints, like {@link ByteColumnDataBox}.
+     *
+     * @return an empty data box of the size of the view
+     */
+    @Override
+    public DataBox like() {
+        return (dataBox instanceof DoubleDataBox || dataBox instanceof VerticalDoubleDataBox || dataBox instanceof FloatDataBox)
+                ? new VerticalDoubleDataBox(numRows(), numCols())
+                : new VerticalIntDataBox(numRows(), numCols());
+    }
+
+    private static int[] select(int[] indices, int[] selection) {
+        int[] selected = new int[selection.length];
+        for (int i = 0; i < selection.length; i++) {
+            selected[i] = indices[selection[i]];
+        }
+
+        return selected;
+    }
+
+    private static int[] allIndices(int size) {
+        int[] indices = new int[size];
+        for (int i = 0; i < size; i++) {
+            indices[i] = i;
+        }
+
+        return indices;
+    }
+
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.independence;
+
+import edu.cmu.tetrad.data.DataModel;
+import edu.cmu.tetrad.graph.IndependenceFact;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.search.IndependenceResult;
+import edu.cmu.tetrad.search.IndependenceTest;
+import edu.cmu.tetrad.search.SearchLogUtils;
+import edu.cmu.tetrad.util.TetradLogger;
+import java.util.List;
+
+/**
+ * Base of the discrete tests of independence that count a bootstrap replicate
+ * as weighted cases of the original data instead of resampled rows.
+ *
+ * Apr 18, 2023 10:31:15 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public abstract class AbstractWeightedDiscreteTest implements IndependenceTest {
+
+    protected final DiscreteColumns data;
+
+    protected final DiscreteCountEngine countEngine;
+
+    protected double alpha;
+
+    protected double pValue;
+
+    protected boolean verbose;
+
+    /**
+     * @param data original data
+     * @param weights number of times each case of the original data is in the
+     * replicate, or null for the original data
+     * @param alpha significance level
+     */
+    public AbstractWeightedDiscreteTest(DiscreteColumns data, int[] weights, double alpha) {
+        this(new DiscreteCountEngine(data, weights), alpha);
+    }
+
+    /**
+     * @param countEngine counts of the replicate
+     * @param alpha significance level
+     */
+    public AbstractWeightedDiscreteTest(DiscreteCountEngine countEngine, double alpha) {
+        if (alpha < 0.0 || alpha > 1.0) {
+            throw new IllegalArgumentException("Significance level must be in [0, 1]: " + alpha);
+        }
+
+        this.data = countEngine.getData();
+        this.countEngine = countEngine;
+        this.alpha = alpha;
+    }
+
+    /**
+     * Test the independence of the first two variables given the rest.
+     *
+     * @param cells cell counts, laid out as [x][y][z]
+     * @param numOfRows number of values of x
+     * @param numOfCols number of values of y
+     * @param numOfStrata number of combinations of the values of z
+     * @return true if x and y are independent given z
+     */
+    protected abstract boolean isIndependent(long[] cells, int numOfRows, int numOfCols, int numOfStrata);
+
+    @Override
+    public IndependenceResult checkIndependence(Node x, Node y, List<Node> z) {
+        if (x == null || y == null || z == null) {
+            throw new NullPointerException();
+        }
+
+        List<Node> variables = data.getVariables();
+        int[] testIndices = new int[2 + z.size()];
+        testIndices[0] = variables.indexOf(x);
+        testIndices[1] = variables.indexOf(y);
+        for (int i = 0; i < z.size(); i++) {
+            Node node = z.get(i);
+            if (node == null) {
+                throw new NullPointerException();
+            }
+            testIndices[i + 2] = variables.indexOf(node);
+        }
+        for (int i = 0; i < testIndices.length; i++) {
+            if (testIndices[i] < 0) {
+                throw new IllegalArgumentException("Variable " + i + " was not used in the constructor.");
+            }
+        }
+
+        int numOfStrata = 1;
+        for (int i = 2; i < testIndices.length; i++) {
+            numOfStrata *= data.getDimension(testIndices[i]);
+        }
+
+        long[] cells = countEngine.getCounts(testIndices);
+        boolean indep = isIndependent(cells, data.getDimension(testIndices[0]), data.getDimension(testIndices[1]), numOfStrata);
+        if (verbose && indep) {
+            TetradLogger.getInstance().forceLogMessage(SearchLogUtils.independenceFactMsg(x, y, z, pValue));
+        }
+
+        return new IndependenceResult(new IndependenceFact(x, y, z), indep, pValue);
+    }
+
+    @Override
+    public List<Node> getVariables() {
+        return data.getVariables();
+    }
+
+    /**
+     * Get the original data. The replicate has as many cases as the original
+     * data.
+     *
+     * @return original data
+     */
+    @Override
+    public DataModel getData() {
+        return data.getDataSet();
+    }
+
+    @Override
+    public double getScore() {
+        return pValue;
+    }
+
+    public double getPValue() {
+        return pValue;
+    }
+
+    @Override
+    public double getAlpha() {
+        return alpha;
+    }
+
+    @Override
+    public void setAlpha(double alpha) {
+        if (alpha < 0.0 || alpha > 1.0) {
+            throw new IllegalArgumentException("Significance level must be in [0, 1]: " + alpha);
+        }
+
+        this.alpha = alpha;
+    }
+
+    @Override
+    public boolean isVerbose() {
+        return verbose;
+    }
+
+    @Override
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    /**
+     * Sum the counts of row i of the given stratum over the columns.
+     */
+    protected static long sumRow(long[] cells, int i, int numOfCols, int numOfStrata, int stratum) {
+        long sum = 0;
+        for (int j = 0; j < numOfCols; j++) {
+            sum += cells[(((i * numOfCols) + j) * numOfStrata) + stratum];
+        }
+
+        return sum;
+    }
+
+    /**
+     * Sum the counts of column j of the given stratum over the rows.
+     */
+    protected static long sumCol(long[] cells, int j, int numOfRows, int numOfCols, int numOfStrata, int stratum) {
+        long sum = 0;
+        for (int i = 0; i < numOfRows; i++) {
+            sum += cells[(((i * numOfCols) + j) * numOfStrata) + stratum];
+        }
+
+        return sum;
+    }
+
+    /**
+     * Count the attested rows or columns.
+     */
+    protected static int count(boolean[] flags) {
+        int count = 0;
+        for (boolean flag : flags) {
+            if (flag) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+}
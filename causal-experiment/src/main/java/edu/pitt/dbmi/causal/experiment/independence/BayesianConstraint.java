@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.independence;
+
+import java.util.Arrays;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * Posterior probability of independence of the probabilistic test computed
+ * from contingency counts. It follows Tetrad's BCInference, which scores
+ * x, y and the joint (x, y) given z with BDeu and a prior probability of
+ * independence of 0.5, but takes the counts from a table instead of filing
+ * each case. BCInference sums the scores of the configurations of z in the
+ * order they first appear in the data; here they are summed in table order,
+ * so the two can differ by floating-point rounding.
+ *
+ * Apr 20, 2023 1:55:08 PM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public final class BayesianConstraint {
+
+    private static final double PRIOR_INDEPENDENT = 0.5;
+
+    private BayesianConstraint() {
+    }
+
+    /**
+     * Compute the probability that x and y are independent given z.
+     *
+     * @param cells cell counts, laid out as [x][y][z]
+     * @param numOfRows number of values of x
+     * @param numOfCols number of values of y
+     * @param numOfStrata number of combinations of the values of z, or 1 if z
+     * is empty
+     * @param conditioned true if z is not empty
+     * @param priorEquivalentSampleSize BDeu prior equivalent sample size
+     * @return probability of independence
+     */
+    public static double probIndependent(long[] cells, int numOfRows, int numOfCols, int numOfStrata, boolean conditioned, double priorEquivalentSampleSize) {
+        double q = numOfStrata;
+        double[] scoresX = new double[numOfStrata];
+        double[] scoresY = new double[numOfStrata];
+        double[] scoresXY = new double[numOfStrata];
+
+        long[] countsX = new long[numOfRows];
+        long[] countsY = new long[numOfCols];
+        long[] countsXY = new long[numOfRows * numOfCols];
+        double lnMarginalLikelihoodX = 0.0;
+        double lnMarginalLikelihoodY = 0.0;
+        int numOfScores = 0;
+        for (int stratum = 0; stratum < numOfStrata; stratum++) {
+            Arrays.fill(countsX, 0);
+            Arrays.fill(countsY, 0);
+            long total = 0;
+            for (int i = 0; i < numOfRows; i++) {
+                for (int j = 0; j < numOfCols; j++) {
+                    long count = cells[(((i * numOfCols) + j) * numOfStrata) + stratum];
+                    countsX[i] += count;
+                    countsY[j] += count;
+                    countsXY[(i * numOfCols) + j] = count;
+                    total += count;
+                }
+            }
+
+            // only the configurations of z found in the data are scored
+            if (conditioned && total == 0) {
+                continue;
+            }
+
+            scoresX[numOfScores] = score(countsX, q, priorEquivalentSampleSize);
+            scoresY[numOfScores] = score(countsY, q, priorEquivalentSampleSize);
+            scoresXY[numOfScores] = score(countsXY, q, priorEquivalentSampleSize);
+            lnMarginalLikelihoodX += scoresX[numOfScores];
+            lnMarginalLikelihoodY += scoresY[numOfScores];
+            numOfScores++;
+        }
+
+        double scoreIndependent = (lnMarginalLikelihoodX + lnMarginalLikelihoodY) + FastMath.log(PRIOR_INDEPENDENT);
+
+        double lnTermPriorIndependent = FastMath.log(PRIOR_INDEPENDENT) / numOfScores;
+        double lnTermPriorDependent = FastMath.log(1.0 - FastMath.exp(lnTermPriorIndependent));
+        double scoreAll = 0.0;
+        for (int i = 0; i < numOfScores; i++) {
+            scoreAll += lnXpluslnY(lnTermPriorIndependent + (scoresX[i] + scoresY[i]), lnTermPriorDependent + scoresXY[i]);
+        }
+
+        return FastMath.exp(scoreIndependent - scoreAll);
+    }
+
+    /**
+     * BDeu score of a node for one configuration of its parents.
+     */
+    private static double score(long[] counts, double q, double pess) {
+        int r = counts.length;
+        double pessDivQR = pess / (q * r);
+        double pessDivQ = pess / q;
+        double lngammPessDivQR = gammln(pessDivQR);
+
+        long nij = 0;
+        double scoreOfSum = 0.0;
+        for (long nijk : counts) {
+            nij += nijk;
+            scoreOfSum += gammln(nijk + pessDivQR) - lngammPessDivQR;
+        }
+
+        return gammln(pessDivQ) - gammln(nij + pessDivQ) + scoreOfSum;
+    }
+
+    private static double lnXpluslnY(double lnX, double lnY) {
+        if (lnY > lnX) {
+            double temp = lnX;
+            lnX = lnY;
+            lnY = temp;
+        }
+
+        double lnYminusLnX = lnY - lnX;
+        if (lnYminusLnX < -1022.0) {
+            return lnX;
+        }
+
+        return FastMath.log1p(FastMath.exp(lnYminusLnX)) + lnX;
+    }
+
+    /**
+     * The log-gamma approximation used by BCInference.
+     */
+    private static double gammln(double xx) {
+        if (xx == 1.0) {
+            return 0.0;
+        }
+        if (xx > 1.0) {
+            return gammlnCore(xx);
+        }
+
+        double z = 1.0 - xx;
+
+        return FastMath.log(Math.PI * z) - gammlnCore(1.0 + z) - FastMath.log(FastMath.sin(Math.PI * z));
+    }
+
+    private static double gammlnCore(double xx) {
+        double[] cof = {0.0, 76.18009173, -86.50532033, 24.01409822, -1.231739516, 0.00120858003, -5.36382E-6};
+        double x = xx - 1.0;
+        double tmp = x + 5.5;
+        tmp = (x + 0.5) * FastMath.log(tmp) - tmp;
+        double ser = 1.0;
+        for (int j = 1; j <= 6; j++) {
+            ser += cof[j] / (x += 1.0);
+        }
+
+        return tmp + FastMath.log(2.50662827465 * ser);
+    }
+
+}
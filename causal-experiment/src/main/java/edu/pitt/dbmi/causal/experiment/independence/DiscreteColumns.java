@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.independence;
+
+import edu.cmu.tetrad.data.BoxDataSet;
+import edu.cmu.tetrad.data.DataBox;
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.data.DiscreteVariable;
+import edu.cmu.tetrad.graph.Node;
+import edu.pitt.dbmi.causal.experiment.data.PackedDiscreteDataBox;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Discrete data stored column by column in primitive arrays. It is read-only
+ * after construction, so one instance can be shared by the tests of all the
+ * searches on the same dataset.
+ *
+ * The columns of a dataset backed by a {@link PackedDiscreteDataBox} are kept
+ * packed and are unpacked when they are counted.
+ *
+ * Apr 18, 2023 9:47:31 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class DiscreteColumns {
+
+    /**
+     * Value of a missing cell, the same as Tetrad's discrete missing value.
+     */
+    public static final int MISSING_VALUE = -99;
+
+    private final DataSet dataSet;
+
+    private final List<Node> variables;
+
+    private final int[][] columns;
+
+    private final PackedDiscreteDataBox packedData;
+
+    private final int[] dims;
+
+    private final boolean[] hasMissingValues;
+
+    private final int numOfRows;
+
+    public DiscreteColumns(DataSet dataSet) {
+        this.dataSet = dataSet;
+        this.variables = Collections.unmodifiableList(new ArrayList<>(dataSet.getVariables()));
+        this.numOfRows = dataSet.getNumRows();
+
+        int numOfColumns = dataSet.getNumColumns();
+        this.dims = new int[numOfColumns];
+        this.hasMissingValues = new boolean[numOfColumns];
+        for (int col = 0; col < numOfColumns; col++) {
+            dims[col] = ((DiscreteVariable) dataSet.getVariable(col)).getNumCategories();
+        }
+
+        DataBox dataBox = (dataSet instanceof BoxDataSet) ? ((BoxDataSet) dataSet).getDataBox() : null;
+        if (dataBox instanceof PackedDiscreteDataBox) {
+            this.packedData = (PackedDiscreteDataBox) dataBox;
+            this.columns = null;
+
+            int[] column = new int[numOfRows];
+            for (int col = 0; col < numOfColumns; col++) {
+                packedData.getColumn(col, column);
+                hasMissingValues[col] = hasMissingValue(column);
+            }
+        } else {
+            this.packedData = null;
+            this.columns = new int[numOfColumns][numOfRows];
+            for (int col = 0; col < numOfColumns; col++) {
+                int[] column = columns[col];
+                for (int row = 0; row < numOfRows; row++) {
+                    column[row] = dataSet.getInt(row, col);
+                }
+                hasMissingValues[col] = hasMissingValue(column);
+            }
+        }
+    }
+
+    /**
+     * Get the values of the variable at the given column index. The array is
+     * shared and must not be changed.
+     *
+     * @param index column index
+     * @return values of the variable, one per case
+     */
+    public int[] getColumn(int index) {
+        if (packedData != null) {
+            return getColumn(index, new int[numOfRows]);
+        }
+
+        return columns[index];
+    }
+
+    /**
+     * Get the values of the variable at the given column index, unpacking
+     * them into the buffer if the columns are packed. The array returned is
+     * either the buffer or a shared array that must not be changed.
+     *
+     * @param index column index
+     * @param buffer array of at least numOfRows values
+     * @return values of the variable, one per case
+     */
+    public int[] getColumn(int index, int[] buffer) {
+        if (packedData == null) {
+            return columns[index];
+        }
+
+        packedData.getColumn(index, buffer);
+
+        return buffer;
+    }
+
+    /**
+     * Check whether the variable at the given column index has a missing
+     * value.
+     *
+     * @param index column index
+     * @return true if any case is missing the value of the variable
+     */
+    public boolean hasMissingValues(int index) {
+        return hasMissingValues[index];
+    }
+
+    /**
+     * Check whether the columns are kept packed.
+     *
+     * @return true if the columns are unpacked when they are read
+     */
+    public boolean isPacked() {
+        return packedData != null;
+    }
+
+    public int getDimension(int index) {
+        return dims[index];
+    }
+
+    public int getNumOfRows() {
+        return numOfRows;
+    }
+
+    public List<Node> getVariables() {
+        return variables;
+    }
+
+    public DataSet getDataSet() {
+        return dataSet;
+    }
+
+    private static boolean hasMissingValue(int[] column) {
+        for (int value : column) {
+            if (value == MISSING_VALUE) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.independence;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contingency counts of discrete data shared by the tests of independence.
+ *
+ * A table is cached under the sorted set of its variables, so the queries
+ * (x, y | z), (y, x | z) and the ones with z in another order are counted
+ * once. A table that is not cached is derived by summing out a variable of a
+ * cached table with one more variable when possible, and counted from the
+ * data otherwise. Counting reuses a per-thread scratch buffer, so one engine
+ * can be shared by many threads.
+ *
+ * Apr 20, 2023 9:36:24 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class DiscreteCountEngine {
+
+    /**
+     * Default limit on the number of cells of all the cached tables.
+     */
+    public static final long DEFAULT_MAX_CACHED_CELLS = 1L << 22;
+
+    private final DiscreteColumns data;
+
+    private final int[] weights;
+
+    private final long maxCachedCells;
+
+    private final Map<VariableSet, long[]> tables = new ConcurrentHashMap<>();
+
+    private final AtomicLong numOfCachedCells = new AtomicLong();
+
+    private final ThreadLocal<int[]> cellIndices;
+
+    /**
+     * Buffer the packed columns are unpacked into.
+     */
+    private final ThreadLocal<int[]> columnValues;
+
+    public DiscreteCountEngine(DiscreteColumns data) {
+        this(data, null, DEFAULT_MAX_CACHED_CELLS);
+    }
+
+    public DiscreteCountEngine(DiscreteColumns data, int[] weights) {
+        this(data, weights, DEFAULT_MAX_CACHED_CELLS);
+    }
+
+    /**
+     * @param data discrete data
+     * @param weights number of times each case is counted, or null to count
+     * each case once
+     * @param maxCachedCells limit on the number of cells of all the cached
+     * tables
+     */
+    public DiscreteCountEngine(DiscreteColumns data, int[] weights, long maxCachedCells) {
+        this.data = data;
+        this.weights = weights;
+        this.maxCachedCells = maxCachedCells;
+        this.cellIndices = ThreadLocal.withInitial(() -> new int[data.getNumOfRows()]);
+        this.columnValues = ThreadLocal.withInitial(() -> new int[data.getNumOfRows()]);
+    }
+
+    /**
+     * Get the number of cases of each combination of values of the given
+     * variables. The cells are laid out like Tetrad's cell tables, with the
+     * last variable varying the fastest. Cases with a missing value in any of
+     * the variables are not counted. The returned array may be shared and
+     * must not be changed.
+     *
+     * @param indices column indices of the variables
+     * @return cell counts
+     */
+    public long[] getCounts(int[] indices) {
+        int[] sortedIndices = Arrays.copyOf(indices, indices.length);
+        Arrays.sort(sortedIndices);
+
+        long[] table = getSortedCounts(sortedIndices);
+
+        return Arrays.equals(indices, sortedIndices)
+                ? table
+                : permute(table, sortedIndices, indices);
+    }
+
+    public DiscreteColumns getData() {
+        return data;
+    }
+
+    private long[] getSortedCounts(int[] sortedIndices) {
+        VariableSet key = new VariableSet(sortedIndices);
+        long[] table = tables.get(key);
+        if (table == null) {
+            table = marginalizeCachedTable(sortedIndices);
+            if (table == null) {
+                table = countCells(sortedIndices);
+            }
+
+            if (numOfCachedCells.addAndGet(table.length) <= maxCachedCells) {
+                tables.putIfAbsent(key, table);
+            } else {
+                numOfCachedCells.addAndGet(-table.length);
+            }
+        }
+
+        return table;
+    }
+
+    /**
+     * Sum out one variable of a cached table that has the given variables and
+     * one more. The variable summed out must not have missing values since
+     * its cases are not counted in the larger table.
+     */
+    private long[] marginalizeCachedTable(int[] sortedIndices) {
+        int numOfColumns = data.getVariables().size();
+        int[] superset = new int[sortedIndices.length + 1];
+        for (int index = 0; index < numOfColumns; index++) {
+            if (data.hasMissingValues(index) || Arrays.binarySearch(sortedIndices, index) >= 0) {
+                continue;
+            }
+
+            // insert the variable in sorted order
+            int position = -(Arrays.binarySearch(sortedIndices, index) + 1);
+            System.arraycopy(sortedIndices, 0, superset, 0, position);
+            superset[position] = index;
+            System.arraycopy(sortedIndices, position, superset, position + 1, sortedIndices.length - position);
+
+            long[] table = tables.get(new VariableSet(superset));
+            if (table != null) {
+                return sumOut(table, superset, position);
+            }
+        }
+
+        return null;
+    }
+
+    private long[] sumOut(long[] table, int[] indices, int position) {
+        int dim = data.getDimension(indices[position]);
+
+        // number of cells of the variables after the one summed out
+        int innerSize = 1;
+        for (int i = position + 1; i < indices.length; i++) {
+            innerSize *= data.getDimension(indices[i]);
+        }
+        int outerSize = table.length / (dim * innerSize);
+
+        long[] cells = new long[outerSize * innerSize];
+        for (int outer = 0; outer < outerSize; outer++) {
+            int offset = outer * dim * innerSize;
+            int cellOffset = outer * innerSize;
+            for (int value = 0; value < dim; value++) {
+                int valueOffset = offset + (value * innerSize);
+                for (int inner = 0; inner < innerSize; inner++) {
+                    cells[cellOffset + inner] += table[valueOffset + inner];
+                }
+            }
+        }
+
+        return cells;
+    }
+
+    private long[] countCells(int[] indices) {
+        int numOfRows = data.getNumOfRows();
+        int[] cellIndex = cellIndices.get();
+        Arrays.fill(cellIndex, 0);
+
+        // compute the cell of each case one variable at a time
+        int numOfCells = 1;
+        for (int index : indices) {
+            int dim = data.getDimension(index);
+            int[] column = data.isPacked() ? data.getColumn(index, columnValues.get()) : data.getColumn(index);
+            boolean hasMissingValues = data.hasMissingValues(index);
+            for (int row = 0; row < numOfRows; row++) {
+                if (hasMissingValues && (column[row] == DiscreteColumns.MISSING_VALUE || cellIndex[row] < 0)) {
+                    cellIndex[row] = -1;
+                } else if (cellIndex[row] >= 0) {
+                    cellIndex[row] = (cellIndex[row] * dim) + column[row];
+                }
+            }
+            numOfCells *= dim;
+        }
+
+        long[] cells = new long[numOfCells];
+        if (weights == null) {
+            for (int row = 0; row < numOfRows; row++) {
+                if (cellIndex[row] >= 0) {
+                    cells[cellIndex[row]]++;
+                }
+            }
+        } else {
+            for (int row = 0; row < numOfRows; row++) {
+                if (cellIndex[row] >= 0) {
+                    cells[cellIndex[row]] += weights[row];
+                }
+            }
+        }
+
+        return cells;
+    }
+
+    /**
+     * Lay out the cells of a table with sorted variables in the order of the
+     * given variables.
+     */
+    private long[] permute(long[] table, int[] sortedIndices, int[] indices) {
+        int numOfVariables = indices.length;
+
+        // stride of each requested variable in the sorted table
+        int[] sortedStrides = new int[numOfVariables];
+        int stride = 1;
+        for (int i = numOfVariables - 1; i >= 0; i--) {
+            sortedStrides[i] = stride;
+            stride *= data.getDimension(sortedIndices[i]);
+        }
+        int[] strides = new int[numOfVariables];
+        int[] dims = new int[numOfVariables];
+        for (int i = 0; i < numOfVariables; i++) {
+            strides[i] = sortedStrides[Arrays.binarySearch(sortedIndices, indices[i])];
+            dims[i] = data.getDimension(indices[i]);
+        }
+
+        long[] cells = new long[table.length];
+        int[] coords = new int[numOfVariables];
+        int sourceIndex = 0;
+        for (int cell = 0; cell < cells.length; cell++) {
+            cells[cell] = table[sourceIndex];
+
+            // advance the coordinates with the last variable varying the fastest
+            for (int i = numOfVariables - 1; i >= 0; i--) {
+                coords[i]++;
+                sourceIndex += strides[i];
+                if (coords[i] < dims[i]) {
+                    break;
+                }
+                sourceIndex -= coords[i] * strides[i];
+                coords[i] = 0;
+            }
+        }
+
+        return cells;
+    }
+
+    private static final class VariableSet {
+
+        private final int[] indices;
+
+        private final int hashCode;
+
+        private VariableSet(int[] indices) {
+            this.indices = indices.clone();
+            this.hashCode = Arrays.hashCode(indices);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof VariableSet)) {
+                return false;
+            }
+
+            return Arrays.equals(indices, ((VariableSet) obj).indices);
+        }
+
+    }
+
+}
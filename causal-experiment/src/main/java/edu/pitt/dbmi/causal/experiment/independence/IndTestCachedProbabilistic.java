@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.independence;
+
+import edu.cmu.tetrad.data.DataModel;
+import edu.cmu.tetrad.graph.IndependenceFact;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.search.IndependenceResult;
+import edu.cmu.tetrad.search.IndependenceTest;
+import edu.cmu.tetrad.search.SearchLogUtils;
+import edu.cmu.tetrad.util.Parameters;
+import edu.cmu.tetrad.util.Params;
+import edu.cmu.tetrad.util.TetradLogger;
+import java.util.List;
+import org.apache.commons.math3.random.RandomGenerator;
+
+/**
+ * Probabilistic test of independence that looks up the probabilities of
+ * independence in a shared cache. It decides independence the same way as
+ * Tetrad's IndTestProbabilistic, with a cutoff or a random draw. The random
+ * draws come from the generator of the search instead of Tetrad's
+ * RandomUtil, so a search is reproduced by its seed and can run on any
+ * thread.
+ *
+ * Apr 19, 2023 11:03:37 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class IndTestCachedProbabilistic implements IndependenceTest {
+
+    private final ProbabilisticTestCache cache;
+
+    private final boolean threshold;
+
+    private final double cutoff;
+
+    private final RandomGenerator randomGenerator;
+
+    private double posterior;
+
+    private boolean verbose;
+
+    /**
+     * @param cache probabilities of independence
+     * @param parameters test parameters
+     * @param randomGenerator generator of the random draws of the search,
+     * used only when independence is drawn at random
+     */
+    public IndTestCachedProbabilistic(ProbabilisticTestCache cache, Parameters parameters, RandomGenerator randomGenerator) {
+        this.cache = cache;
+        this.threshold = parameters.getBoolean(Params.NO_RANDOMLY_DETERMINED_INDEPENDENCE);
+        this.cutoff = parameters.getDouble(Params.CUTOFF_IND_TEST);
+        this.randomGenerator = randomGenerator;
+    }
+
+    @Override
+    public IndependenceResult checkIndependence(Node x, Node y, List<Node> z) {
+        double p = cache.getProbability(x, y, z);
+        if (Double.isNaN(p)) {
+            // no case has values for all the variables
+            return new IndependenceResult(new IndependenceFact(x, y, z), true, p);
+        }
+
+        posterior = p;
+
+        boolean ind = threshold
+                ? p >= cutoff
+                : randomGenerator.nextDouble() < p;
+        if (verbose && ind) {
+            TetradLogger.getInstance().forceLogMessage(SearchLogUtils.independenceFactMsg(x, y, z, p));
+        }
+
+        return new IndependenceResult(new IndependenceFact(x, y, z), ind, p);
+    }
+
+    @Override
+    public List<Node> getVariables() {
+        return cache.getDataSet().getVariables();
+    }
+
+    @Override
+    public DataModel getData() {
+        return cache.getDataSet();
+    }
+
+    @Override
+    public double getScore() {
+        return posterior;
+    }
+
+    public double getPosterior() {
+        return posterior;
+    }
+
+    @Override
+    public boolean isVerbose() {
+        return verbose;
+    }
+
+    @Override
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    @Override
+    public String toString() {
+        return "Cached Probabilistic Test";
+    }
+
+}
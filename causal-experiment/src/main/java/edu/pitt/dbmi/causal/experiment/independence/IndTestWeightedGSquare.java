@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.independence;
+
+import edu.cmu.tetrad.util.ProbUtils;
+import java.util.Arrays;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * G square test of independence on a weighted bootstrap replicate. The
+ * statistic is computed the same way as Tetrad's GSquareTest, so it gives
+ * the same result as testing the resampled rows.
+ *
+ * Apr 18, 2023 11:02:48 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class IndTestWeightedGSquare extends AbstractWeightedDiscreteTest {
+
+    public IndTestWeightedGSquare(DiscreteColumns data, int[] weights, double alpha) {
+        super(data, weights, alpha);
+    }
+
+    public IndTestWeightedGSquare(DiscreteCountEngine countEngine, double alpha) {
+        super(countEngine, alpha);
+    }
+
+    @Override
+    protected boolean isIndependent(long[] cells, int numOfRows, int numOfCols, int numOfStrata) {
+        double g2 = 0.0;
+        int df = 0;
+        boolean[] attestedRows = new boolean[numOfRows];
+        boolean[] attestedCols = new boolean[numOfCols];
+        long[] rowSums = new long[numOfRows];
+        long[] colSums = new long[numOfCols];
+        for (int stratum = 0; stratum < numOfStrata; stratum++) {
+            Arrays.fill(attestedRows, true);
+            Arrays.fill(attestedCols, true);
+
+            long total = 0;
+            for (int i = 0; i < numOfRows; i++) {
+                rowSums[i] = sumRow(cells, i, numOfCols, numOfStrata, stratum);
+                total += rowSums[i];
+            }
+            for (int j = 0; j < numOfCols; j++) {
+                colSums[j] = sumCol(cells, j, numOfRows, numOfCols, numOfStrata, stratum);
+            }
+
+            double _gSquare = 0.0;
+            for (int i = 0; i < numOfRows; i++) {
+                for (int j = 0; j < numOfCols; j++) {
+                    long sumRow = rowSums[i];
+                    long sumCol = colSums[j];
+                    long observed = cells[(((i * numOfCols) + j) * numOfStrata) + stratum];
+
+                    boolean skip = false;
+                    if (sumRow == 0) {
+                        attestedRows[i] = false;
+                        skip = true;
+                    }
+                    if (sumCol == 0) {
+                        attestedCols[j] = false;
+                        skip = true;
+                    }
+                    if (skip || observed == 0) {
+                        continue;
+                    }
+
+                    double expected = ((double) sumCol * (double) sumRow) / (double) total;
+                    _gSquare += 2.0 * (double) observed * FastMath.log((double) observed / expected);
+                }
+            }
+
+            if (total == 0) {
+                continue;
+            }
+
+            int _df = (count(attestedRows) - 1) * (count(attestedCols) - 1);
+            if (_df > 0) {
+                df += _df;
+                g2 += _gSquare;
+            }
+        }
+
+        if (df == 0) {
+            df = 1;
+        }
+
+        pValue = 1.0 - ProbUtils.chisqCdf(g2, df);
+
+        return pValue > alpha;
+    }
+
+    @Override
+    public String toString() {
+        return "Weighted G Square, alpha = " + alpha;
+    }
+
+}
@@ -18,10 +18,27 @@
  */
 package edu.pitt.dbmi.causal.experiment.run;
 
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.GraphUtils;
+import edu.cmu.tetrad.graph.Node;
 import edu.cmu.tetrad.util.Parameters;
+import edu.cmu.tetrad.util.Params;
+import edu.pitt.dbmi.causal.experiment.data.PackedDiscreteDataBox;
 import edu.pitt.dbmi.causal.experiment.data.SimulatedData;
+import edu.pitt.dbmi.causal.experiment.tetrad.EdgeTypeAggregator;
+import edu.pitt.dbmi.causal.experiment.tetrad.GraphImageFormat;
+import edu.pitt.dbmi.causal.experiment.tetrad.PagEnsembleReader;
+import edu.pitt.dbmi.causal.experiment.tetrad.PagEnsembleWriter;
+import edu.pitt.dbmi.causal.experiment.util.DataSampling;
+import edu.pitt.dbmi.causal.experiment.util.FileIO;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  *
@@ -33,11 +50,17 @@ public abstract class AbstractRunner {
 
     protected static final int NUM_THREADS = 10;
 
+    protected static final String ENSEMBLE_FILE_NAME = "pag_ensemble.bin";
+
+    protected static final int CHECKPOINT_INTERVAL = 10;
+
     protected static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("MMM dd, yyyy hh:mm:ss");
 
     protected final SimulatedData simulatedData;
     protected final Parameters parameters;
 
+    private OutputStage outputStage;
+
     public AbstractRunner(SimulatedData simulatedData, Parameters parameters) {
         this.simulatedData = simulatedData;
         this.parameters = parameters;
@@ -45,6 +68,295 @@ public abstract class AbstractRunner {
 
     public abstract void run(Path parentOutDir) throws Exception;
 
+    /**
+     * Write the outputs on an output stage shared with other runners. The
+     * runner then returns as soon as its outputs are queued, and whoever
+     * owns the stage waits for them to be written.
+     *
+     * @param outputStage shared output stage
+     */
+    public void setOutputStage(OutputStage outputStage) {
+        this.outputStage = outputStage;
+    }
+
+    /**
+     * Queue the outputs on the shared output stage. Without a shared stage,
+     * the outputs are written on a stage of the runner's own, which is
+     * closed before returning.
+     *
+     * @param outputs submits the outputs to the stage
+     * @throws Exception the exception of the first failed output
+     */
+    protected void writeOutputs(Consumer<OutputStage> outputs) throws Exception {
+        if (outputStage == null) {
+            try (OutputStage stage = new OutputStage()) {
+                outputs.accept(stage);
+            }
+        } else {
+            outputs.accept(outputStage);
+        }
+    }
+
+    /**
+     * Get the number of worker threads for the searches. Defaults to
+     * {@link #NUM_THREADS} when the parameters do not set it.
+     *
+     * @return number of worker threads
+     */
+    protected int getNumOfThreads() {
+        return parameters.getInt(RunnerParams.NUM_THREADS, NUM_THREADS);
+    }
+
+    /**
+     * Get the dataset to search, packed when the parameters ask for it.
+     *
+     * @return dataset of the simulated data
+     */
+    protected DataSet getDataSet() {
+        DataSet dataSet = simulatedData.getDataSet();
+
+        return isPackedData() ? PackedDiscreteDataBox.pack(dataSet) : dataSet;
+    }
+
+    /**
+     * Whether the tests of independence count the cases of the original
+     * data by the weights of the replicate, with a count engine, rather than
+     * the rows of the replicate. The two are exact equivalents for the G² and
+     * χ² tests, and equivalent up to rounding for the probabilistic test.
+     * Defaults to true, so the count engine is used unless the parameters
+     * turn it off.
+     *
+     * @return true if the tests run on case weights
+     */
+    protected boolean isWeightedBootstrap() {
+        return parameters.getBoolean(RunnerParams.WEIGHTED_BOOTSTRAP, true);
+    }
+
+    protected boolean isPackedData() {
+        return parameters.getBoolean(RunnerParams.PACKED_DATA, false);
+    }
+
+    /**
+     * Get the image format of the search graph. Defaults to PNG when the
+     * parameters do not set it.
+     *
+     * @return image format of the search graph
+     */
+    protected GraphImageFormat getGraphImageFormat() {
+        return GraphImageFormat.valueOf(parameters.getString(RunnerParams.GRAPH_IMAGE_FORMAT, "png").toUpperCase());
+    }
+
+    /**
+     * Create the output directory of the runner in the parent directory. An
+     * existing directory is reused when resuming.
+     *
+     * @param parentOutDir parent output directory
+     * @param name name of the output directory
+     * @return the output directory
+     * @throws IOException
+     */
+    protected Path createOutputDirectory(Path parentOutDir, String name) throws IOException {
+        return isResume()
+                ? FileIO.createDirectory(Paths.get(parentOutDir.toString(), name))
+                : FileIO.createSubdirectory(parentOutDir, name);
+    }
+
+    protected boolean isResume() {
+        return parameters.getBoolean(RunnerParams.RESUME, false);
+    }
+
+    /**
+     * Get the base seed of the replicates. When the parameters do not set a
+     * seed, a resumed run takes the seed saved in the checkpoint of its
+     * output directory, so that it continues with the replicates of the run
+     * it resumes. Otherwise the seed is picked from the clock.
+     *
+     * @param dirOut output directory
+     * @return base seed
+     * @throws IOException
+     */
+    protected long getSeed(Path dirOut) throws IOException {
+        if (parameters.getLong(Params.SEED) < 0 && isResume()) {
+            Long seed = SearchCheckpoint.readSeed(dirOut);
+            if (seed != null) {
+                return seed;
+            }
+        }
+
+        return DataSampling.getSeed(parameters);
+    }
+
+    /**
+     * Create the checkpoint of the searches in the output directory. A
+     * checkpoint is saved every {@link #CHECKPOINT_INTERVAL} legal PAGs when
+     * the parameters do not set it.
+     *
+     * @param dirOut output directory
+     * @param seed seed of the replicates
+     * @param numOfReplicates maximum number of legal PAGs
+     * @return the search checkpoint
+     */
+    protected SearchCheckpoint createSearchCheckpoint(Path dirOut, long seed, int numOfReplicates) {
+        return new SearchCheckpoint(
+                dirOut,
+                Paths.get(dirOut.toString(), ENSEMBLE_FILE_NAME),
+                seed,
+                numOfReplicates,
+                parameters.getInt(RunnerParams.CHECKPOINT_INTERVAL, CHECKPOINT_INTERVAL));
+    }
+
+    /**
+     * Create the key of the search results in the result cache, from the
+     * simulated data, the parameters and the seed. A run without a seed in
+     * its parameters is not cached: its seed is picked from the clock, so no
+     * other run would ever look its results up.
+     *
+     * @param algorithm name of the algorithm
+     * @param test name of the test of independence
+     * @param seed seed of the replicates
+     * @return the key, or null when the parameters do not set a result cache
+     * or a seed
+     */
+    protected String createCacheKey(String algorithm, String test, long seed) {
+        if (getResultCacheDir().isEmpty() || parameters.getLong(Params.SEED) < 0) {
+            return null;
+        }
+
+        return ResultCache.createKey(simulatedData.getDataSet(), simulatedData.getTrueGraph(), algorithm, test, parameters, seed);
+    }
+
+    /**
+     * Copy the cached PAG ensemble of the key to the output directory and
+     * add its PAGs to the edge-type counts.
+     *
+     * @param cacheKey key of the search results, or null for no cache
+     * @param dirOut output directory
+     * @param dataSet dataset searched
+     * @param edgeTypeAggregator edge-type counts
+     * @return the cached search counts, or null if the results are not
+     * cached
+     * @throws IOException
+     */
+    protected SearchResults loadCachedResults(String cacheKey, Path dirOut, DataSet dataSet, EdgeTypeAggregator edgeTypeAggregator) throws IOException {
+        if (cacheKey == null) {
+            return null;
+        }
+
+        Path ensembleFile = Paths.get(dirOut.toString(), ENSEMBLE_FILE_NAME);
+        SearchResults searchResults = createResultCache().get(cacheKey, ensembleFile);
+        if (searchResults != null) {
+            List<Node> nodes = dataSet.getVariables();
+            (new PagEnsembleReader(ensembleFile)).forEach(graph -> edgeTypeAggregator.add(GraphUtils.replaceNodes(graph, nodes)));
+        }
+
+        return searchResults;
+    }
+
+    /**
+     * Add the PAG ensemble in the output directory and the search counts to
+     * the result cache.
+     *
+     * @param cacheKey key of the search results, or null for no cache
+     * @param dirOut output directory
+     * @param searchResults search counts
+     * @throws IOException
+     */
+    protected void cacheResults(String cacheKey, Path dirOut, SearchResults searchResults) throws IOException {
+        if (cacheKey != null) {
+            createResultCache().put(cacheKey, Paths.get(dirOut.toString(), ENSEMBLE_FILE_NAME), searchResults);
+        }
+    }
+
+    private ResultCache createResultCache() throws IOException {
+        return new ResultCache(
+                Paths.get(getResultCacheDir()),
+                parameters.getLong(RunnerParams.RESULT_CACHE_MAX_SIZE, ResultCache.DEFAULT_MAX_SIZE));
+    }
+
+    private String getResultCacheDir() {
+        return parameters.getString(RunnerParams.RESULT_CACHE_DIR, "");
+    }
+
+    /**
+     * Create the writer of the PAG ensemble file in the output directory.
+     * Identical PAGs are stored once unless the parameters say otherwise.
+     *
+     * @param dirOut output directory
+     * @param dataSet dataset searched
+     * @return the ensemble writer
+     * @throws IOException
+     */
+    protected PagEnsembleWriter createEnsembleWriter(Path dirOut, DataSet dataSet) throws IOException {
+        return new PagEnsembleWriter(
+                Paths.get(dirOut.toString(), ENSEMBLE_FILE_NAME),
+                dataSet.getVariables(),
+                parameters.getBoolean(RunnerParams.ENSEMBLE_REMOVE_DUPLICATES, true));
+    }
+
+    /**
+     * Write each legal PAG to the ensemble file and add it to the edge-type
+     * counts.
+     *
+     * @param edgeTypeAggregator edge-type counts
+     * @param ensembleWriter ensemble file writer
+     * @return consumer of the legal PAGs
+     */
+    protected static Consumer<Graph> collectLegalPags(EdgeTypeAggregator edgeTypeAggregator, PagEnsembleWriter ensembleWriter) {
+        return graph -> {
+            try {
+                ensembleWriter.write(graph);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+            edgeTypeAggregator.add(graph);
+        };
+    }
+
+    protected boolean isSharded() {
+        return parameters.getInt(RunnerParams.SHARD_WORKERS, 0) > 0;
+    }
+
+    /**
+     * Search the replicates on worker processes, merging their edge-type
+     * counts and PAGs in the order of the replicates. A checkpoint is saved
+     * after each round of workers. The workers search the replicates of the
+     * given seed rather than resolving a seed of their own.
+     *
+     * @param dirOut output directory
+     * @param seed base seed of the replicates
+     * @param start progress of the searches done before
+     * @param numOfReplicates number of legal PAGs
+     * @param edgeTypeAggregator edge-type counts
+     * @param ensembleWriter ensemble file writer
+     * @param checkpoint search checkpoint
+     * @return the search counts
+     * @throws Exception
+     */
+    protected SearchResults searchShards(Path dirOut, long seed, SearchResults start, int numOfReplicates, EdgeTypeAggregator edgeTypeAggregator, PagEnsembleWriter ensembleWriter, SearchCheckpoint checkpoint) throws Exception {
+        // when to stop depends on every PAG before, which no worker has
+        if (parameters.getBoolean(RunnerParams.EARLY_STOPPING, false)) {
+            throw new IllegalArgumentException("Early stopping is not supported by sharded searches.");
+        }
+
+        Path shardDir = Paths.get(parameters.getString(RunnerParams.SHARD_DIR, Paths.get(dirOut.toString(), "shards").toString()));
+        ShardCoordinator coordinator = new ShardCoordinator(shardDir, parameters.getInt(RunnerParams.SHARD_WORKERS));
+
+        return coordinator.search(
+                RunnerType.fromRunner(this),
+                simulatedData.getDataSet(),
+                parameters,
+                seed,
+                start,
+                numOfReplicates,
+                edgeTypeAggregator,
+                ensembleWriter,
+                checkpoint.saveEach(ensembleWriter));
+    }
+
+    protected ParallelSearchExecutor createSearchExecutor() {
+        return new ParallelSearchExecutor(getNumOfThreads());
+    }
+
     protected String getParameterValue(Parameters parameters, String name) {
         String paramValue = String.valueOf(parameters.get(name));
         if (paramValue.equals("true")) {
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.run;
+
+import edu.cmu.tetrad.util.Parameters;
+import edu.pitt.dbmi.causal.experiment.tetrad.EdgeTypeAggregator;
+import java.io.PrintStream;
+
+/**
+ * Stopping rule of the bootstrap runners. The searches stop once at least
+ * the minimum number of legal PAGs have been collected and the 95% Wilson
+ * score interval of every edge-type probability is narrower than the
+ * tolerance, or once the maximum number of legal PAGs have been collected.
+ *
+ * Apr 21, 2023 10:05:48 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class EarlyStopping {
+
+    private static final double Z_95 = 1.959963984540054;
+
+    private static final double DEFAULT_TOLERANCE = 0.1;
+
+    private static final int DEFAULT_MIN_REPLICATES = 20;
+
+    private final boolean enabled;
+
+    private final double tolerance;
+
+    private final int minReplicates;
+
+    private final int maxReplicates;
+
+    public EarlyStopping(Parameters parameters, int numOfReplicates) {
+        this.enabled = parameters.getBoolean(RunnerParams.EARLY_STOPPING, false);
+        this.tolerance = parameters.getDouble(RunnerParams.EARLY_STOPPING_TOLERANCE, DEFAULT_TOLERANCE);
+        this.maxReplicates = enabled
+                ? parameters.getInt(RunnerParams.EARLY_STOPPING_MAX_REPLICATES, numOfReplicates)
+                : numOfReplicates;
+        this.minReplicates = Math.min(parameters.getInt(RunnerParams.EARLY_STOPPING_MIN_REPLICATES, DEFAULT_MIN_REPLICATES), maxReplicates);
+    }
+
+    /**
+     * Check whether the edge-type probabilities of the PAGs folded so far
+     * have converged. Never true when early stopping is off.
+     *
+     * @param edgeTypeAggregator edge-type counts of the legal PAGs
+     * @return true if the searches can stop
+     */
+    public boolean isConverged(EdgeTypeAggregator edgeTypeAggregator) {
+        if (!enabled || edgeTypeAggregator.getNumOfGraphs() < minReplicates) {
+            return false;
+        }
+
+        return edgeTypeAggregator.getMaxConfidenceIntervalWidth(Z_95) < tolerance;
+    }
+
+    /**
+     * Print the settings and the outcome of early stopping.
+     *
+     * @param writer writer of the run details
+     * @param numOfLegalPags number of legal PAGs kept
+     * @param numOfCompletedSearchRuns number of searches that ran to the end
+     */
+    public void printDetails(PrintStream writer, int numOfLegalPags, int numOfCompletedSearchRuns) {
+        writer.printf("Early stopping: %s%n", enabled ? "Yes" : "No");
+        if (enabled) {
+            writer.printf("Confidence-interval width tolerance: %s%n", tolerance);
+            writer.printf("Minimum number of PAGs: %d%n", minReplicates);
+            writer.printf("Maximum number of PAGs: %d%n", maxReplicates);
+            writer.printf("Stopped early: %s%n", (numOfLegalPags < maxReplicates) ? "Yes" : "No");
+            writer.printf("Number of searches completed: %d%n", numOfCompletedSearchRuns);
+            writer.printf("Number of searches saved: %d%n", Math.max(0, maxReplicates - numOfCompletedSearchRuns));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getMaxReplicates() {
+        return maxReplicates;
+    }
+
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.run;
+
+import edu.cmu.tetrad.util.RandomUtil;
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Runs the tasks of an experiment, such as simulating the data of a seed or
+ * running a runner on it, as independent tasks on a shared pool. At most
+ * the given number of tasks run at the same time.
+ *
+ * A task can submit the tasks that depend on it, e.g. the simulation of a
+ * seed submits the runners that search its data. {@link #await()} waits for
+ * those as well. A failed task does not stop the others; its exception is
+ * thrown by {@link #await()}, with the exceptions of any other failed tasks
+ * added as suppressed exceptions.
+ *
+ * The data is simulated by Tetrad, which draws from RandomUtil. RandomUtil
+ * creates a generator per thread in a static, unsynchronized map that it
+ * reads from every thread without a lock, so a thread must not be added to
+ * the map while another thread reads it. The threads of the pool are
+ * therefore all created and added to the map before the first task runs,
+ * and the pool never replaces them, so the map is only read while the tasks
+ * run. This does not protect against threads outside the pool calling
+ * RandomUtil for the first time while the tasks run, nor does Tetrad drop
+ * the map entries of the threads once the pool is shut down (one entry per
+ * thread of each scheduler). The searches themselves do not use RandomUtil.
+ *
+ * May 4, 2023 9:36:18 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class ExperimentScheduler implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_CONCURRENCY = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * A task of an experiment.
+     */
+    @FunctionalInterface
+    public interface Task {
+
+        void run() throws Exception;
+
+    }
+
+    private final int maxConcurrency;
+    private final ExecutorService executor;
+    private final List<Future<?>> pendingTasks = new LinkedList<>();
+
+    private boolean closed;
+
+    public ExperimentScheduler() {
+        this(DEFAULT_MAX_CONCURRENCY);
+    }
+
+    public ExperimentScheduler(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Maximum concurrency must be at least 1.");
+        }
+
+        // all the threads register with RandomUtil before any of them runs a task
+        CountDownLatch registered = new CountDownLatch(maxConcurrency);
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(maxConcurrency, runnable -> new Thread(() -> {
+            synchronized (RandomUtil.class) {
+                RandomUtil.getInstance();
+            }
+            registered.countDown();
+            awaitUninterruptibly(registered);
+            runnable.run();
+        }));
+        pool.prestartAllCoreThreads();
+
+        this.maxConcurrency = maxConcurrency;
+        this.executor = pool;
+    }
+
+    /**
+     * Get the number of search threads of each runner, so that the runners
+     * of the tasks running at the same time share the processors rather
+     * than each starting a pool of its own size. The maximum concurrency
+     * only limits the tasks, not the searches a task runs.
+     *
+     * @return the number of processors divided by the maximum concurrency,
+     * and at least 1
+     */
+    public int getNumOfThreadsPerTask() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() / maxConcurrency);
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (latch.getCount() > 0) {
+            try {
+                latch.await();
+            } catch (InterruptedException exception) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queue the task to be run.
+     *
+     * @param task task to run
+     */
+    public synchronized void submit(Task task) {
+        if (closed) {
+            throw new IllegalStateException("Experiment scheduler is closed.");
+        }
+
+        pendingTasks.add(executor.submit(() -> {
+            task.run();
+            return null;
+        }));
+    }
+
+    /**
+     * Wait for all the tasks submitted so far, and the tasks they submit, to
+     * finish.
+     *
+     * @throws Exception the exception of the first failed task
+     */
+    public void await() throws Exception {
+        Exception failure = null;
+
+        List<Future<?>> tasks = takePendingTasks();
+        while (!tasks.isEmpty()) {
+            for (Future<?> task : tasks) {
+                try {
+                    task.get();
+                } catch (ExecutionException exception) {
+                    Exception cause = (exception.getCause() instanceof Exception)
+                            ? (Exception) exception.getCause()
+                            : exception;
+                    if (failure == null) {
+                        failure = cause;
+                    } else {
+                        failure.addSuppressed(cause);
+                    }
+                }
+            }
+
+            // pick up the tasks submitted by the tasks just finished
+            tasks = takePendingTasks();
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private synchronized List<Future<?>> takePendingTasks() {
+        List<Future<?>> tasks = new LinkedList<>(pendingTasks);
+        pendingTasks.clear();
+
+        return tasks;
+    }
+
+    /**
+     * Wait for all the tasks to finish and stop the pool. If the thread is
+     * interrupted while waiting, it stops waiting and keeps its interrupt
+     * status; the tasks submitted still run.
+     *
+     * @throws IOException the exception of the first failed task, wrapped in
+     * an IOException if it is not one
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            await();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException exception) {
+            throw exception;
+        } catch (Exception exception) {
+            throw new IOException(exception);
+        } finally {
+            synchronized (this) {
+                closed = true;
+            }
+            executor.shutdown();
+        }
+    }
+
+}
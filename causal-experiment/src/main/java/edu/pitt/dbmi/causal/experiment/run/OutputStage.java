@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.run;
+
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the outputs of the runners on a small pool of I/O threads so that
+ * the next search can start while the files are still being written.
+ *
+ * The number of outputs waiting to be written is bounded. When the queue is
+ * full, the thread submitting the output writes it itself. A failed output
+ * does not stop the others; its exception is thrown by {@link #await()},
+ * with the exceptions of any other failed outputs added as suppressed
+ * exceptions. Closing the stage waits for all the outputs to be written.
+ *
+ * Apr 29, 2023 10:07:14 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class OutputStage implements AutoCloseable {
+
+    public static final int DEFAULT_NUM_OF_THREADS = 4;
+
+    private static final int QUEUE_CAPACITY = 64;
+
+    /**
+     * An output that is written to a file.
+     */
+    @FunctionalInterface
+    public interface Output {
+
+        void write() throws Exception;
+
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final List<Future<?>> pendingOutputs = new LinkedList<>();
+
+    private boolean closed;
+
+    public OutputStage() {
+        this(DEFAULT_NUM_OF_THREADS);
+    }
+
+    public OutputStage(int numOfThreads) {
+        if (numOfThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least 1.");
+        }
+
+        this.executor = new ThreadPoolExecutor(
+                numOfThreads, numOfThreads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Queue the output to be written.
+     *
+     * @param output output to write
+     */
+    public synchronized void submit(Output output) {
+        if (closed) {
+            throw new IllegalStateException("Output stage is closed.");
+        }
+
+        pendingOutputs.add(executor.submit(() -> {
+            output.write();
+            return null;
+        }));
+    }
+
+    /**
+     * Wait for all the outputs submitted so far to be written.
+     *
+     * @throws Exception the exception of the first failed output
+     */
+    public void await() throws Exception {
+        List<Future<?>> outputs;
+        synchronized (this) {
+            outputs = new LinkedList<>(pendingOutputs);
+            pendingOutputs.clear();
+        }
+
+        Exception failure = null;
+        for (Future<?> output : outputs) {
+            try {
+                output.get();
+            } catch (ExecutionException exception) {
+                Exception cause = (exception.getCause() instanceof Exception)
+                        ? (Exception) exception.getCause()
+                        : exception;
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Wait for all the outputs to be written and stop the I/O threads. If the
+     * thread is interrupted while waiting, it stops waiting and keeps its
+     * interrupt status; the outputs submitted are still written.
+     *
+     * @throws IOException the exception of the first failed output, wrapped
+     * in an IOException if it is not one
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+
+        try {
+            await();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException exception) {
+            throw exception;
+        } catch (Exception exception) {
+            throw new IOException(exception);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
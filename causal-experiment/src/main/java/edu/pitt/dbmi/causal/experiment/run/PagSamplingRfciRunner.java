@@ -18,27 +18,26 @@
  */
 package edu.pitt.dbmi.causal.experiment.run;
 
-import edu.cmu.tetrad.algcomparison.independence.ProbabilisticTest;
-import edu.cmu.tetrad.data.DataModel;
 import edu.cmu.tetrad.data.DataSet;
 import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.search.IndependenceTest;
 import edu.cmu.tetrad.search.Rfci;
-import edu.cmu.tetrad.search.SearchGraphUtils;
-import edu.cmu.tetrad.util.GraphSampling;
 import edu.cmu.tetrad.util.ParamDescriptions;
 import edu.cmu.tetrad.util.Parameters;
 import edu.cmu.tetrad.util.Params;
 import edu.pitt.dbmi.causal.experiment.calibration.GraphStatistics;
 import edu.pitt.dbmi.causal.experiment.data.SimulatedData;
+import edu.pitt.dbmi.causal.experiment.independence.IndTestCachedProbabilistic;
+import edu.pitt.dbmi.causal.experiment.independence.ProbabilisticTestCache;
+import edu.pitt.dbmi.causal.experiment.tetrad.EdgeTypeAggregator;
 import edu.pitt.dbmi.causal.experiment.tetrad.Graphs;
-import edu.pitt.dbmi.causal.experiment.util.FileIO;
+import edu.pitt.dbmi.causal.experiment.tetrad.PagEnsembleWriter;
+import edu.pitt.dbmi.causal.experiment.util.DataSampling;
 import edu.pitt.dbmi.causal.experiment.util.GraphDetails;
 import java.io.PrintStream;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -56,87 +55,104 @@ public class PagSamplingRfciRunner extends AbstractRunner {
     @Override
     public void run(Path parentOutDir) throws Exception {
         Graph pagFromDagGraph = simulatedData.getPagFromDagGraph();
-        DataSet dataSet = simulatedData.getDataSet();
-        Path dirOut = FileIO.createSubdirectory(parentOutDir, "pag_sampling_rfci");
+        DataSet dataSet = getDataSet();
+        Path dirOut = createOutputDirectory(parentOutDir, "pag_sampling_rfci");
 
         final LocalDateTime startDateTime = LocalDateTime.now();
         final long startTime = System.nanoTime();
 
-        int numOfSearchRuns = 0;
-        List<Graph> graphs = new LinkedList<>();
+        // all the searches are on the same data so they share the probabilities of independence
+        ProbabilisticTestCache testCache = new ProbabilisticTestCache(dataSet, parameters);
+
+        // each search draws independence at random from a generator of its own
+        long seed = DataSampling.getSeed(parameters);
+
+        // fold each legal PAG into the edge-type counts as soon as it is available
+        EdgeTypeAggregator edgeTypeAggregator = new EdgeTypeAggregator();
+
         int numRandomizedSearchModels = parameters.getInt(Params.NUM_RANDOMIZED_SEARCH_MODELS);
-        while (graphs.size() < numRandomizedSearchModels) {
-            System.out.printf("Starting search: %d%n", numOfSearchRuns + 1);
-            Graph graph = runSearch(dataSet, parameters);
-            if (SearchGraphUtils.isLegalPag(graph).isLegalPag()) {
-                System.out.println("Search returns legal PAG.");
-                graphs.add(graph);
-            } else {
-                System.out.println("Search does not return legal PAG.");
-            }
-            numOfSearchRuns++;
+        SearchResults searchResults;
+        try (PagEnsembleWriter ensembleWriter = createEnsembleWriter(dirOut, dataSet)) {
+            searchResults = createSearchExecutor().search(
+                    numRandomizedSearchModels,
+                    searchIndex -> new IndTestCachedProbabilistic(testCache, parameters, DataSampling.createSearchRandomGenerator(seed, searchIndex)),
+                    independenceTest -> runSearch(independenceTest, parameters),
+                    collectLegalPags(edgeTypeAggregator, ensembleWriter));
         }
+        int numOfLegalPags = searchResults.getNumOfLegalPags();
+        int numOfSearchRuns = searchResults.getNumOfSearchRuns();
 
         final long endTime = System.nanoTime();
         final LocalDateTime endDateTime = LocalDateTime.now();
         final long duration = endTime - startTime;
 
-        Graph searchGraph = GraphSampling.createGraphWithHighProbabilityEdges(graphs);
+        Graph searchGraph = edgeTypeAggregator.createGraphWithHighProbabilityEdges();
 
         String outputDir = dirOut.toString();
         GraphStatistics graphCalibration = new GraphStatistics(searchGraph, pagFromDagGraph);
-        graphCalibration.saveGraphData(Paths.get(outputDir, "directed_edge_data.csv"));
-        graphCalibration.saveStatistics(Paths.get(outputDir, "statistics.txt"));
-        graphCalibration.saveCalibrationPlot(
-                "PAG Sampling RFCI", "pag-sampling-rfci",
-                1000, 1000,
-                Paths.get(outputDir, "calibration.png"));
-
-        GraphDetails.saveDetails(pagFromDagGraph, searchGraph, Paths.get(outputDir, "graph_details.txt"));
-
-        Graphs.saveGraph(searchGraph, Paths.get(outputDir, "graph.txt"));
-        Graphs.exportAsPngImage(searchGraph, 1000, 1000, Paths.get(outputDir, "graph.png"));
-
-        // write out details
-        try (PrintStream writer = new PrintStream(Paths.get(outputDir, "run_details.txt").toFile())) {
-            writer.println("PAG Sampling RFCI");
-            writer.println("================================================================================");
-            writer.println("Algorithm: PAG Sampling RFCI");
-            writer.println();
-
-            writer.println("Parameters");
-            writer.println("========================================");
-            printParameters(parameters, writer);
-            writer.println();
-
-            writer.println("Dataset");
-            writer.println("========================================");
-            writer.printf("Variables: %d%n", dataSet.getNumColumns());
-            writer.printf("Cases: %d%n", dataSet.getNumRows());
-            writer.println();
-
-            writer.println("Search Run Details");
-            writer.println("========================================");
-            writer.println("Run Time");
-            writer.println("--------------------");
-            writer.printf("Search start: %s%n", startDateTime.format(DATETIME_FORMATTER));
-            writer.printf("Search end: %s%n", endDateTime.format(DATETIME_FORMATTER));
-            writer.printf("Duration: %,d seconds%n", TimeUnit.NANOSECONDS.toSeconds(duration));
-            writer.println();
-            writer.println("Search Counts");
-            writer.println("--------------------");
-            writer.printf("Number of searches: %d%n", numOfSearchRuns);
-            writer.println();
-            writer.println("PAG Counts");
-            writer.println("--------------------");
-            writer.printf("Number of valid PAGs: %d%n", graphs.size());
-            writer.printf("Number of invalid PAGs: %d%n", numOfSearchRuns - graphs.size());
-            writer.println();
-
-            writer.println("High-Edge-Probability Graph");
-            writer.println("========================================");
-            writer.println(searchGraph.toString().replaceAll(" - ", " ... ").trim());
-        }
+        writeOutputs(outputs -> {
+            outputs.submit(() -> graphCalibration.saveGraphData(Paths.get(outputDir, "directed_edge_data.csv")));
+            outputs.submit(() -> graphCalibration.saveStatistics(Paths.get(outputDir, "statistics.txt")));
+            outputs.submit(() -> graphCalibration.saveCalibrationPlot(
+                    "PAG Sampling RFCI", "pag-sampling-rfci",
+                    1000, 1000,
+                    Paths.get(outputDir, "calibration.png")));
+
+            outputs.submit(() -> GraphDetails.saveDetails(pagFromDagGraph, searchGraph, Paths.get(outputDir, "graph_details.txt")));
+
+            outputs.submit(() -> Graphs.saveGraph(searchGraph, Paths.get(outputDir, "graph.txt")));
+            outputs.submit(() -> Graphs.exportImage(searchGraph, getGraphImageFormat(), 1000, 1000, dirOut, "graph"));
+
+            // write out details
+            outputs.submit(() -> {
+                try (PrintStream writer = new PrintStream(Paths.get(outputDir, "run_details.txt").toFile())) {
+                    writer.println("PAG Sampling RFCI");
+                    writer.println("================================================================================");
+                    writer.println("Algorithm: PAG Sampling RFCI");
+                    writer.println();
+
+                    writer.println("Parameters");
+                    writer.println("========================================");
+                    printParameters(parameters, writer);
+                    writer.println();
+
+                    writer.println("Dataset");
+                    writer.println("========================================");
+                    writer.printf("Variables: %d%n", dataSet.getNumColumns());
+                    writer.printf("Cases: %d%n", dataSet.getNumRows());
+                    writer.printf("Packed data: %s%n", isPackedData() ? "Yes" : "No");
+                    writer.println();
+
+                    writer.println("Search Run Details");
+                    writer.println("========================================");
+                    writer.println("Run Time");
+                    writer.println("--------------------");
+                    writer.printf("Search start: %s%n", startDateTime.format(DATETIME_FORMATTER));
+                    writer.printf("Search end: %s%n", endDateTime.format(DATETIME_FORMATTER));
+                    writer.printf("Duration: %,d seconds%n", TimeUnit.NANOSECONDS.toSeconds(duration));
+                    writer.println();
+                    writer.println("Search Counts");
+                    writer.println("--------------------");
+                    writer.printf("Number of searches: %d%n", numOfSearchRuns);
+                    writer.printf("Number of threads: %d%n", getNumOfThreads());
+                    writer.println();
+                    writer.println("Independence Test Cache");
+                    writer.println("--------------------");
+                    writer.printf("Number of cache hits: %d%n", testCache.getNumOfHits());
+                    writer.printf("Number of cache misses: %d%n", testCache.getNumOfMisses());
+                    writer.println();
+                    writer.println("PAG Counts");
+                    writer.println("--------------------");
+                    writer.printf("Number of valid PAGs: %d%n", numOfLegalPags);
+                    writer.printf("Number of invalid PAGs: %d%n", numOfSearchRuns - numOfLegalPags);
+                    writer.println();
+
+                    writer.println("High-Edge-Probability Graph");
+                    writer.println("========================================");
+                    writer.println(searchGraph.toString().replaceAll(" - ", " ... ").trim());
+                }
+            });
+        });
     }
 
     private void printParameters(Parameters parameters, PrintStream writer) {
@@ -175,8 +191,8 @@ public class PagSamplingRfciRunner extends AbstractRunner {
                 getParameterValue(parameters, Params.NO_RANDOMLY_DETERMINED_INDEPENDENCE));
     }
 
-    private Graph runSearch(DataModel dataModel, Parameters parameters) {
-        Rfci rfci = new Rfci((new ProbabilisticTest()).getTest(dataModel, parameters));
+    private Graph runSearch(IndependenceTest independenceTest, Parameters parameters) {
+        Rfci rfci = new Rfci(independenceTest);
         rfci.setDepth(parameters.getInt(Params.DEPTH));
         rfci.setMaxPathLength(parameters.getInt(Params.MAX_PATH_LENGTH));
         rfci.setVerbose(parameters.getBoolean(Params.VERBOSE));
@@ -0,0 +1,256 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.run;
+
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.search.SearchGraphUtils;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Runs searches on data replicates over a fixed pool of worker threads.
+ *
+ * The legal PAGs are handed over in the order of the replicates, and a
+ * replicate is looked up by its index, so the results are identical to
+ * searching the replicates one by one.
+ *
+ * Apr 14, 2023 9:21:55 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class ParallelSearchExecutor {
+
+    private final int numOfThreads;
+
+    public ParallelSearchExecutor(int numOfThreads) {
+        if (numOfThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least 1.");
+        }
+
+        this.numOfThreads = numOfThreads;
+    }
+
+    /**
+     * Search the replicates at indices 0 to numOfReplicates - 1 and keep
+     * searching the replicates at the following indices until there are as
+     * many legal PAGs as there are initial replicates. Each replicate is
+     * built by the worker that searches it and is dropped once the search is
+     * done, so at most one replicate per thread is held in memory.
+     *
+     * The legal PAGs are passed to the consumer in the order of the
+     * replicates. A PAG is only held until the PAGs of the replicates before
+     * it have been consumed.
+     *
+     * @param <T> type of the replicates
+     * @param numOfReplicates number of initial replicates
+     * @param replicates source of the replicate at a given index
+     * @param search search algorithm to run on each replicate
+     * @param legalPags consumer of the legal PAGs
+     * @return the search counts
+     * @throws InterruptedException
+     * @throws ExecutionException
+     */
+    public <T> SearchResults search(int numOfReplicates, IntFunction<T> replicates, Function<T, Graph> search, Consumer<Graph> legalPags) throws InterruptedException, ExecutionException {
+        return search(numOfReplicates, replicates, search, legalPags, () -> false);
+    }
+
+    /**
+     * Same as {@link #search(int, IntFunction, Function, Consumer)} but
+     * stops as soon as the stop condition is true after a legal PAG has been
+     * consumed. The searches not started are cancelled, and the ones still
+     * running are waited for and counted as completed. Since the PAGs are
+     * consumed in the order of the replicates, where the searches stop does
+     * not depend on the number of threads.
+     *
+     * @param <T> type of the replicates
+     * @param numOfReplicates maximum number of legal PAGs
+     * @param replicates source of the replicate at a given index
+     * @param search search algorithm to run on each replicate
+     * @param legalPags consumer of the legal PAGs
+     * @param stop condition checked after each legal PAG is consumed
+     * @return the search counts
+     * @throws InterruptedException
+     * @throws ExecutionException
+     */
+    public <T> SearchResults search(int numOfReplicates, IntFunction<T> replicates, Function<T, Graph> search, Consumer<Graph> legalPags, BooleanSupplier stop) throws InterruptedException, ExecutionException {
+        return search(new SearchResults(0, 0, 0), numOfReplicates, replicates, search, legalPags, stop, progress -> {
+        });
+    }
+
+    /**
+     * Same as
+     * {@link #search(int, IntFunction, Function, Consumer, BooleanSupplier)}
+     * but continues from the given progress: the search starts at the
+     * replicate following the ones already searched, with the legal PAGs
+     * found so far counted. The progress is reported after each legal PAG is
+     * consumed.
+     *
+     * @param <T> type of the replicates
+     * @param start progress of the searches done before
+     * @param numOfReplicates maximum number of legal PAGs
+     * @param replicates source of the replicate at a given index
+     * @param search search algorithm to run on each replicate
+     * @param legalPags consumer of the legal PAGs
+     * @param stop condition checked after each legal PAG is consumed
+     * @param progress listener of the search counts
+     * @return the search counts
+     * @throws InterruptedException
+     * @throws ExecutionException
+     */
+    public <T> SearchResults search(SearchResults start, int numOfReplicates, IntFunction<T> replicates, Function<T, Graph> search, Consumer<Graph> legalPags, BooleanSupplier stop, Consumer<SearchResults> progress) throws InterruptedException, ExecutionException {
+        int numOfLegalPags = start.getNumOfLegalPags();
+        int numOfSearchRuns = start.getNumOfSearchRuns();
+        AtomicInteger numOfCompletedSearchRuns = new AtomicInteger(start.getNumOfCompletedSearchRuns());
+
+        ExecutorService pool = createThreadPool();
+        try {
+            // run searches until the number of desire graphs has reached
+            while (numOfLegalPags < numOfReplicates && !stop.getAsBoolean()) {
+                // never search more replicates than the sequential search would
+                int numOfMissingGraphs = numOfReplicates - numOfLegalPags;
+                List<Future<Graph>> futures = submitSearches(pool, numOfSearchRuns, numOfMissingGraphs, replicates, search, numOfCompletedSearchRuns);
+
+                // drop each future once its PAG is consumed so the PAG can be collected
+                Iterator<Future<Graph>> iterator = futures.iterator();
+                while (iterator.hasNext()) {
+                    Graph graph = iterator.next().get();
+                    iterator.remove();
+                    numOfSearchRuns++;
+                    if (graph != null) {
+                        legalPags.accept(graph);
+                        numOfLegalPags++;
+                        progress.accept(new SearchResults(numOfLegalPags, numOfSearchRuns, getNumOfAdditionalSearchRuns(numOfSearchRuns, numOfReplicates)));
+
+                        if (stop.getAsBoolean()) {
+                            futures.forEach(future -> future.cancel(true));
+                            break;
+                        }
+                    }
+                }
+            }
+        } finally {
+            shutdown(pool);
+        }
+
+        return new SearchResults(numOfLegalPags, numOfSearchRuns, getNumOfAdditionalSearchRuns(numOfSearchRuns, numOfReplicates), numOfCompletedSearchRuns.get());
+    }
+
+    /**
+     * Search the replicates at indices fromIndex to toIndex - 1, e.g. for a
+     * worker of a sharded run. The legal PAGs are passed to the consumer in
+     * the order of the replicates.
+     *
+     * @param <T> type of the replicates
+     * @param fromIndex index of the first replicate
+     * @param toIndex index after the last replicate
+     * @param replicates source of the replicate at a given index
+     * @param search search algorithm to run on each replicate
+     * @param legalPags consumer of the legal PAGs
+     * @return the search counts of the range, with no additional search runs
+     * @throws InterruptedException
+     * @throws ExecutionException
+     */
+    public <T> SearchResults searchRange(int fromIndex, int toIndex, IntFunction<T> replicates, Function<T, Graph> search, Consumer<Graph> legalPags) throws InterruptedException, ExecutionException {
+        ExecutorService pool = createThreadPool();
+        try {
+            int numOfLegalPags = 0;
+
+            List<Future<Graph>> futures = submitSearches(pool, fromIndex, toIndex - fromIndex, replicates, search, new AtomicInteger());
+            Iterator<Future<Graph>> iterator = futures.iterator();
+            while (iterator.hasNext()) {
+                Graph graph = iterator.next().get();
+                iterator.remove();
+                if (graph != null) {
+                    legalPags.accept(graph);
+                    numOfLegalPags++;
+                }
+            }
+
+            return new SearchResults(numOfLegalPags, toIndex - fromIndex, 0);
+        } finally {
+            shutdown(pool);
+        }
+    }
+
+    /**
+     * The first batch searches the initial replicates. The ones searched
+     * after are additional.
+     */
+    private static int getNumOfAdditionalSearchRuns(int numOfSearchRuns, int numOfReplicates) {
+        return Math.max(0, numOfSearchRuns - numOfReplicates);
+    }
+
+    private <T> List<Future<Graph>> submitSearches(ExecutorService pool, int fromIndex, int numOfSearches, IntFunction<T> replicates, Function<T, Graph> search, AtomicInteger numOfCompletedSearchRuns) {
+        List<Future<Graph>> futures = new LinkedList<>();
+
+        for (int i = 0; i < numOfSearches; i++) {
+            final int replicateIndex = fromIndex + i;
+            futures.add(pool.submit(() -> {
+                int searchRun = replicateIndex + 1;
+                System.out.printf("Starting search: %d%n", searchRun);
+                Graph graph = search.apply(replicates.apply(replicateIndex));
+                numOfCompletedSearchRuns.incrementAndGet();
+                if (SearchGraphUtils.isLegalPag(graph).isLegalPag()) {
+                    System.out.printf("Search %d returns legal PAG.%n", searchRun);
+                    return graph;
+                } else {
+                    System.out.printf("Search %d does not return legal PAG.%n", searchRun);
+                    return null;
+                }
+            }));
+        }
+
+        return futures;
+    }
+
+    /**
+     * Stop the pool and wait for the searches still running. The searches do
+     * not stop when interrupted, so a search cancelled while running still
+     * runs to the end; waiting for it keeps it from competing with whatever
+     * runs next, and lets it be counted.
+     */
+    private static void shutdown(ExecutorService pool) throws InterruptedException {
+        pool.shutdownNow();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Create the worker threads. The searches must not draw from Tetrad's
+     * RandomUtil, which creates its per-thread generators in an
+     * unsynchronized static map that is read from every thread without a
+     * lock and never forgets a thread. The runners give each search a
+     * generator of its own instead (see
+     * {@link edu.pitt.dbmi.causal.experiment.util.DataSampling#createSearchRandomGenerator(long, int)}).
+     */
+    private ExecutorService createThreadPool() {
+        return Executors.newFixedThreadPool(numOfThreads);
+    }
+
+}
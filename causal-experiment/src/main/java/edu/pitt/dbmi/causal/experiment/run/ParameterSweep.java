@@ -0,0 +1,313 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.run;
+
+import edu.cmu.tetrad.util.Parameters;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Expands a sweep file into the runner jobs of a parameter sweep.
+ *
+ * The sweep file is a properties file. The runners key lists the names of
+ * the runners to sweep, e.g. rfic_g2_bootstrap (see {@link RunnerType}).
+ * Every other key is a Tetrad or runner parameter with a comma-separated
+ * list of values. A parameter whose key is prefixed with a runner name,
+ * e.g. rfic_g2_bootstrap.alpha, applies to that runner only, and overrides
+ * a parameter of the same name without a prefix. For example:
+ * <pre>
+ * runners = rfic_probabilistic_bootstrap, rfic_g2_bootstrap
+ * depth = -1, 3
+ * seed = 1673588774198
+ * numberResampling = 99
+ * rfic_g2_bootstrap.alpha = 0.01, 0.05
+ * rfic_probabilistic_bootstrap.cutoffIndTest = 0.5, 0.7
+ * </pre>
+ *
+ * With sweep = grid, the default, a runner is run on every combination of
+ * its parameter values. With sweep = list, the runner is run once for each
+ * position in the value lists, which must then all have the same number of
+ * values, except for single values that apply to every run.
+ *
+ * Values of true or false are booleans and values that parse as integers,
+ * longs or doubles are numbers. All other values are strings.
+ *
+ * May 9, 2023 10:40:05 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class ParameterSweep {
+
+    public static final String RUNNERS = "runners";
+
+    public static final String SWEEP = "sweep";
+
+    public static final String GRID = "grid";
+
+    public static final String LIST = "list";
+
+    /**
+     * A runner with the parameters of one point of the sweep.
+     */
+    public static class Job {
+
+        private final String name;
+        private final RunnerType runnerType;
+        private final Parameters parameters;
+
+        public Job(String name, RunnerType runnerType, Parameters parameters) {
+            this.name = name;
+            this.runnerType = runnerType;
+            this.parameters = parameters;
+        }
+
+        /**
+         * Get the key of the search results of the job. Jobs with the same
+         * key differ only in how the results are written out, so they can
+         * share their search results.
+         *
+         * @return key of the search results
+         */
+        public String getSearchKey() {
+            return runnerType.getName() + getParameterValues().entrySet().stream()
+                    .filter(e -> ResultCache.isResultParameter(e.getKey()))
+                    .map(Object::toString)
+                    .collect(Collectors.joining(", ", " {", "}"));
+        }
+
+        /**
+         * Get the values of the parameters, sorted by name.
+         *
+         * @return parameter values
+         */
+        public Map<String, String> getParameterValues() {
+            Map<String, String> values = new TreeMap<>();
+            parameters.getParametersNames()
+                    .forEach(parameter -> values.put(parameter, String.valueOf(parameters.get(parameter, null))));
+
+            return values;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public RunnerType getRunnerType() {
+            return runnerType;
+        }
+
+        public Parameters getParameters() {
+            return parameters;
+        }
+
+    }
+
+    private final List<Job> jobs;
+
+    private ParameterSweep(List<Job> jobs) {
+        this.jobs = jobs;
+    }
+
+    /**
+     * Read the sweep file and expand it into jobs.
+     *
+     * @param file sweep file
+     * @return the parameter sweep
+     * @throws IOException
+     */
+    public static ParameterSweep read(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file)) {
+            return read(reader);
+        }
+    }
+
+    /**
+     * Read the sweep properties and expand them into jobs.
+     *
+     * @param reader reader of the sweep properties
+     * @return the parameter sweep
+     * @throws IOException
+     */
+    public static ParameterSweep read(Reader reader) throws IOException {
+        Properties properties = new Properties();
+        properties.load(reader);
+
+        String runners = properties.getProperty(RUNNERS);
+        if (runners == null) {
+            throw new IllegalArgumentException("The sweep has no runners.");
+        }
+        String sweep = properties.getProperty(SWEEP, GRID).trim();
+        if (!(GRID.equals(sweep) || LIST.equals(sweep))) {
+            throw new IllegalArgumentException(String.format("Unknown sweep %s.", sweep));
+        }
+
+        // a prefix must be the name of a runner
+        for (String key : properties.stringPropertyNames()) {
+            if (key.contains(".")) {
+                RunnerType.fromName(key.substring(0, key.indexOf('.')));
+            }
+        }
+
+        List<Job> jobs = new LinkedList<>();
+        for (String runner : splitValues(runners)) {
+            RunnerType runnerType = RunnerType.fromName(runner);
+
+            // the parameters of the runner, sorted by name so that the jobs come out in a fixed order
+            Map<String, List<String>> parameterValues = new TreeMap<>();
+            for (String key : properties.stringPropertyNames()) {
+                if (!(key.equals(RUNNERS) || key.equals(SWEEP) || key.contains("."))) {
+                    parameterValues.put(key, splitValues(properties.getProperty(key)));
+                }
+            }
+            String prefix = runnerType.getName() + ".";
+            for (String key : properties.stringPropertyNames()) {
+                if (key.startsWith(prefix)) {
+                    parameterValues.put(key.substring(prefix.length()), splitValues(properties.getProperty(key)));
+                }
+            }
+
+            List<Map<String, String>> points = GRID.equals(sweep)
+                    ? expandGrid(parameterValues)
+                    : expandList(parameterValues);
+            for (Map<String, String> point : points) {
+                Parameters parameters = new Parameters();
+                point.forEach((name, value) -> parameters.set(name, parseValue(value)));
+                jobs.add(new Job(String.format("job_%d", jobs.size() + 1), runnerType, parameters));
+            }
+        }
+
+        return new ParameterSweep(Collections.unmodifiableList(jobs));
+    }
+
+    public List<Job> getJobs() {
+        return jobs;
+    }
+
+    /**
+     * Get the jobs grouped by their search results, in the order of the
+     * jobs.
+     *
+     * @return the groups of jobs that can share their search results
+     * @see Job#getSearchKey()
+     */
+    public List<List<Job>> getJobGroups() {
+        Map<String, List<Job>> groups = new LinkedHashMap<>();
+        for (Job job : jobs) {
+            groups.computeIfAbsent(job.getSearchKey(), k -> new LinkedList<>()).add(job);
+        }
+
+        return new ArrayList<>(groups.values());
+    }
+
+    /**
+     * Every combination of the values, the first parameter varying the
+     * slowest.
+     */
+    private static List<Map<String, String>> expandGrid(Map<String, List<String>> parameterValues) {
+        List<Map<String, String>> points = new LinkedList<>();
+        points.add(new TreeMap<>());
+        for (Map.Entry<String, List<String>> entry : parameterValues.entrySet()) {
+            List<Map<String, String>> expandedPoints = new LinkedList<>();
+            for (Map<String, String> point : points) {
+                for (String value : entry.getValue()) {
+                    Map<String, String> expandedPoint = new TreeMap<>(point);
+                    expandedPoint.put(entry.getKey(), value);
+                    expandedPoints.add(expandedPoint);
+                }
+            }
+            points = expandedPoints;
+        }
+
+        return points;
+    }
+
+    /**
+     * The i-th values of the parameters, single values applying to every
+     * point.
+     */
+    private static List<Map<String, String>> expandList(Map<String, List<String>> parameterValues) {
+        int numOfPoints = 1;
+        for (Map.Entry<String, List<String>> entry : parameterValues.entrySet()) {
+            int numOfValues = entry.getValue().size();
+            if (numOfValues > 1) {
+                if (numOfPoints > 1 && numOfValues != numOfPoints) {
+                    throw new IllegalArgumentException(String.format("Parameter %s has %d values instead of %d.", entry.getKey(), numOfValues, numOfPoints));
+                }
+                numOfPoints = numOfValues;
+            }
+        }
+
+        List<Map<String, String>> points = new LinkedList<>();
+        for (int i = 0; i < numOfPoints; i++) {
+            Map<String, String> point = new TreeMap<>();
+            for (Map.Entry<String, List<String>> entry : parameterValues.entrySet()) {
+                List<String> values = entry.getValue();
+                point.put(entry.getKey(), values.get((values.size() == 1) ? 0 : i));
+            }
+            points.add(point);
+        }
+
+        return points;
+    }
+
+    private static List<String> splitValues(String values) {
+        List<String> valueList = Arrays.stream(values.split(","))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .collect(Collectors.toList());
+        if (valueList.isEmpty()) {
+            throw new IllegalArgumentException(String.format("No values in '%s'.", values));
+        }
+
+        return valueList;
+    }
+
+    static Object parseValue(String value) {
+        if ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value)) {
+            return Boolean.valueOf(value);
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException exception) {
+        }
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException exception) {
+        }
+        try {
+            return Double.valueOf(value);
+        } catch (NumberFormatException exception) {
+        }
+
+        return value;
+    }
+
+}
@@ -0,0 +1,356 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.run;
+
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.data.DiscreteVariable;
+import edu.cmu.tetrad.graph.Edge;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.util.Parameters;
+import edu.pitt.dbmi.causal.experiment.util.FileIO;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * An on-disk cache of the search results of the bootstrap runners, so that
+ * a run on the same data with the same parameters does not search again.
+ *
+ * An entry is keyed by the SHA-256 hash of the data values, the true graph,
+ * the algorithm, the test of independence, the parameters and the seed.
+ * Each entry is a directory holding the PAG ensemble and the search counts.
+ * The high-edge-probability graph is rebuilt from the ensemble, which gives
+ * the same graph as the run that was cached.
+ *
+ * The cache is kept under a maximum size by removing the least recently
+ * used entries whenever an entry is added.
+ *
+ * May 8, 2023 1:37:26 PM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class ResultCache {
+
+    public static final long DEFAULT_MAX_SIZE = 1024L * 1024 * 1024;
+
+    public static final String ENSEMBLE_FILE_NAME = "pag_ensemble.bin";
+
+    private static final String RESULTS_FILE_NAME = "search_results.properties";
+
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    private static final String NUM_OF_LEGAL_PAGS = "numOfLegalPags";
+    private static final String NUM_OF_SEARCH_RUNS = "numOfSearchRuns";
+    private static final String NUM_OF_ADDITIONAL_SEARCH_RUNS = "numOfAdditionalSearchRuns";
+
+    /**
+     * Runner settings that change how a run is done but not its results.
+     */
+    private static final Set<String> IGNORED_PARAMETERS = new HashSet<>(Arrays.asList(
+            RunnerParams.NUM_THREADS,
+            RunnerParams.PACKED_DATA,
+            RunnerParams.GRAPH_IMAGE_FORMAT,
+            RunnerParams.CHECKPOINT_INTERVAL,
+            RunnerParams.RESUME,
+            RunnerParams.RESULT_CACHE_DIR,
+            RunnerParams.RESULT_CACHE_MAX_SIZE,
+            RunnerParams.SHARD_WORKERS,
+            RunnerParams.SHARD_DIR));
+
+    /**
+     * Discards the bytes once they are digested.
+     */
+    private static final OutputStream NULL_OUTPUT_STREAM = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    // runners running concurrently share the cache directory
+    private static final Object LOCK = new Object();
+
+    private final Path cacheDir;
+    private final long maxSize;
+
+    /**
+     * @param cacheDir cache directory, created if it does not exist
+     * @param maxSize maximum size of the cache, in bytes
+     * @throws IOException
+     */
+    public ResultCache(Path cacheDir, long maxSize) throws IOException {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Maximum cache size must be at least 0.");
+        }
+
+        this.cacheDir = Files.createDirectories(cacheDir);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Check whether the parameter can change the search results of a run.
+     * The runner settings that only change how a run is done are not part
+     * of the key of the results.
+     *
+     * @param name name of the parameter
+     * @return true if the parameter is part of the key of the results
+     */
+    public static boolean isResultParameter(String name) {
+        return !IGNORED_PARAMETERS.contains(name);
+    }
+
+    /**
+     * Create the key of the search results of a run.
+     *
+     * @param dataSet data searched
+     * @param trueGraph true graph of the data
+     * @param algorithm name of the algorithm
+     * @param test name of the test of independence
+     * @param parameters parameters of the run
+     * @param seed seed of the replicates
+     * @return the key, as a hexadecimal SHA-256 hash
+     */
+    public static String createKey(DataSet dataSet, Graph trueGraph, String algorithm, String test, Parameters parameters, long seed) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new DigestOutputStream(NULL_OUTPUT_STREAM, digest)))) {
+            out.writeUTF(algorithm);
+            out.writeUTF(test);
+            out.writeLong(seed);
+            writeParameters(parameters, out);
+            writeGraph(trueGraph, out);
+            writeData(dataSet, out);
+        } catch (IOException exception) {
+            throw new IllegalStateException(exception);
+        }
+
+        StringBuilder key = new StringBuilder();
+        for (byte b : digest.digest()) {
+            key.append(String.format("%02x", b));
+        }
+
+        return key.toString();
+    }
+
+    /**
+     * Get the search results of the key, copying the cached PAG ensemble to
+     * the given file.
+     *
+     * @param key key of the search results
+     * @param ensembleFile file to copy the PAG ensemble to
+     * @return the search counts, or null if the results are not cached
+     * @throws IOException
+     */
+    public SearchResults get(String key, Path ensembleFile) throws IOException {
+        synchronized (LOCK) {
+            Path entryDir = Paths.get(cacheDir.toString(), key);
+            Path resultsFile = Paths.get(entryDir.toString(), RESULTS_FILE_NAME);
+            if (Files.notExists(resultsFile)) {
+                return null;
+            }
+
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(resultsFile)) {
+                properties.load(in);
+            }
+            Files.copy(Paths.get(entryDir.toString(), ENSEMBLE_FILE_NAME), ensembleFile, StandardCopyOption.REPLACE_EXISTING);
+
+            // mark the entry as the most recently used
+            Files.setLastModifiedTime(resultsFile, FileTime.fromMillis(System.currentTimeMillis()));
+
+            return new SearchResults(
+                    Integer.parseInt(properties.getProperty(NUM_OF_LEGAL_PAGS)),
+                    Integer.parseInt(properties.getProperty(NUM_OF_SEARCH_RUNS)),
+                    Integer.parseInt(properties.getProperty(NUM_OF_ADDITIONAL_SEARCH_RUNS)));
+        }
+    }
+
+    /**
+     * Add the search results of the key to the cache, then remove the least
+     * recently used entries until the cache fits its maximum size. The new
+     * entry is kept even if it is larger than the maximum size on its own.
+     *
+     * @param key key of the search results
+     * @param ensembleFile closed PAG ensemble file of the run
+     * @param searchResults search counts of the run
+     * @throws IOException
+     */
+    public void put(String key, Path ensembleFile, SearchResults searchResults) throws IOException {
+        synchronized (LOCK) {
+            Path entryDir = Paths.get(cacheDir.toString(), key);
+            if (Files.exists(entryDir)) {
+                return;
+            }
+
+            // fill a temporary directory so that an entry is never half written
+            Path tempDir = Paths.get(cacheDir.toString(), key + TEMP_EXTENSION);
+            FileIO.createNewDirectory(tempDir);
+            Files.copy(ensembleFile, Paths.get(tempDir.toString(), ENSEMBLE_FILE_NAME));
+
+            Properties properties = new Properties();
+            properties.setProperty(NUM_OF_LEGAL_PAGS, String.valueOf(searchResults.getNumOfLegalPags()));
+            properties.setProperty(NUM_OF_SEARCH_RUNS, String.valueOf(searchResults.getNumOfSearchRuns()));
+            properties.setProperty(NUM_OF_ADDITIONAL_SEARCH_RUNS, String.valueOf(searchResults.getNumOfAdditionalSearchRuns()));
+            try (OutputStream out = Files.newOutputStream(Paths.get(tempDir.toString(), RESULTS_FILE_NAME))) {
+                properties.store(out, "Search results");
+            }
+            Files.move(tempDir, entryDir, StandardCopyOption.ATOMIC_MOVE);
+
+            evict(entryDir);
+        }
+    }
+
+    /**
+     * Remove the least recently used entries, other than the given one,
+     * until the cache fits its maximum size.
+     */
+    private void evict(Path keptEntryDir) throws IOException {
+        List<Path> entryDirs;
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            entryDirs = files
+                    .filter(dir -> Files.exists(Paths.get(dir.toString(), RESULTS_FILE_NAME)))
+                    .collect(Collectors.toList());
+        }
+
+        Map<Path, Long> sizes = new HashMap<>();
+        Map<Path, Long> lastUsedTimes = new HashMap<>();
+        long cacheSize = 0;
+        for (Path entryDir : entryDirs) {
+            long size = getSize(entryDir);
+            sizes.put(entryDir, size);
+            lastUsedTimes.put(entryDir, Files.getLastModifiedTime(Paths.get(entryDir.toString(), RESULTS_FILE_NAME)).toMillis());
+            cacheSize += size;
+        }
+
+        List<Path> leastRecentlyUsed = new ArrayList<>(entryDirs);
+        leastRecentlyUsed.remove(keptEntryDir);
+        Collections.sort(leastRecentlyUsed, (dir1, dir2) -> Long.compare(lastUsedTimes.get(dir1), lastUsedTimes.get(dir2)));
+        for (Path entryDir : leastRecentlyUsed) {
+            if (cacheSize <= maxSize) {
+                break;
+            }
+
+            FileIO.deleteDirectory(entryDir);
+            cacheSize -= sizes.get(entryDir);
+        }
+    }
+
+    private static long getSize(Path entryDir) throws IOException {
+        long size = 0;
+        try (Stream<Path> files = Files.list(entryDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                size += Files.size(file);
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Write the parameters sorted by name, leaving out the runner settings
+     * that do not change the results.
+     */
+    private static void writeParameters(Parameters parameters, DataOutputStream out) throws IOException {
+        List<String> names = parameters.getParametersNames().stream()
+                .filter(ResultCache::isResultParameter)
+                .sorted()
+                .collect(Collectors.toList());
+        out.writeInt(names.size());
+        for (String name : names) {
+            out.writeUTF(name);
+            out.writeUTF(Arrays.toString(parameters.getValues(name)));
+        }
+    }
+
+    /**
+     * Write the nodes and the edges of the graph, each sorted by name.
+     */
+    private static void writeGraph(Graph graph, DataOutputStream out) throws IOException {
+        List<String> nodes = graph.getNodes().stream()
+                .map(Node::getName)
+                .sorted()
+                .collect(Collectors.toList());
+        List<String> edges = graph.getEdges().stream()
+                .map(Edge::toString)
+                .sorted()
+                .collect(Collectors.toList());
+        out.writeInt(nodes.size());
+        for (String node : nodes) {
+            out.writeUTF(node);
+        }
+        out.writeInt(edges.size());
+        for (String edge : edges) {
+            out.writeUTF(edge);
+        }
+    }
+
+    /**
+     * Write the variable names and the data values, column by column.
+     */
+    private static void writeData(DataSet dataSet, DataOutputStream out) throws IOException {
+        int numOfRows = dataSet.getNumRows();
+        int numOfColumns = dataSet.getNumColumns();
+        out.writeInt(numOfRows);
+        out.writeInt(numOfColumns);
+        for (int col = 0; col < numOfColumns; col++) {
+            Node variable = dataSet.getVariable(col);
+            out.writeUTF(variable.getName());
+            if (variable instanceof DiscreteVariable) {
+                for (int row = 0; row < numOfRows; row++) {
+                    out.writeInt(dataSet.getInt(row, col));
+                }
+            } else {
+                for (int row = 0; row < numOfRows; row++) {
+                    out.writeLong(Double.doubleToLongBits(dataSet.getDouble(row, col)));
+                }
+            }
+        }
+    }
+
+}
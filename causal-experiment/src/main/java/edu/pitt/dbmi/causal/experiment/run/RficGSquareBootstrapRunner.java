@@ -21,26 +21,28 @@ package edu.pitt.dbmi.causal.experiment.run;
 import edu.cmu.tetrad.algcomparison.independence.Gsquare;
 import edu.cmu.tetrad.data.DataSet;
 import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.search.IndependenceTest;
 import edu.cmu.tetrad.search.Rfci;
-import edu.cmu.tetrad.search.SearchGraphUtils;
-import edu.cmu.tetrad.util.GraphSampling;
 import edu.cmu.tetrad.util.ParamDescriptions;
 import edu.cmu.tetrad.util.Parameters;
 import edu.cmu.tetrad.util.Params;
 import edu.pitt.dbmi.causal.experiment.calibration.GraphStatistics;
 import edu.pitt.dbmi.causal.experiment.data.SimulatedData;
+import edu.pitt.dbmi.causal.experiment.independence.DiscreteColumns;
+import edu.pitt.dbmi.causal.experiment.independence.DiscreteCountEngine;
+import edu.pitt.dbmi.causal.experiment.independence.IndTestWeightedGSquare;
+import edu.pitt.dbmi.causal.experiment.tetrad.EdgeTypeAggregator;
 import edu.pitt.dbmi.causal.experiment.tetrad.Graphs;
-import edu.pitt.dbmi.causal.experiment.util.DataSampling;
-import edu.pitt.dbmi.causal.experiment.util.FileIO;
+import edu.pitt.dbmi.causal.experiment.tetrad.PagEnsembleWriter;
+import edu.pitt.dbmi.causal.experiment.util.BootstrapReplicates;
 import edu.pitt.dbmi.causal.experiment.util.GraphDetails;
 import java.io.PrintStream;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.concurrent.TimeUnit;
-import org.apache.commons.math3.random.RandomGenerator;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 
 /**
  *
@@ -48,7 +50,7 @@ import org.apache.commons.math3.random.RandomGenerator;
  *
  * @author Kevin V. Bui (kvb2univpitt@gmail.com)
  */
-public class RficGSquareBootstrapRunner extends AbstractRunner {
+public class RficGSquareBootstrapRunner extends AbstractRunner implements ShardableRunner {
 
     public RficGSquareBootstrapRunner(SimulatedData simulatedData, Parameters parameters) {
         super(simulatedData, parameters);
@@ -57,107 +59,134 @@ public class RficGSquareBootstrapRunner extends AbstractRunner {
     @Override
     public void run(Path parentOutDir) throws Exception {
         Graph pagFromDagGraph = simulatedData.getPagFromDagGraph();
-        DataSet dataSet = simulatedData.getDataSet();
-        Path dirOut = FileIO.createSubdirectory(parentOutDir, "rfic_g2_bootstrap");
+        DataSet dataSet = getDataSet();
+        Path dirOut = createOutputDirectory(parentOutDir, "rfic_g2_bootstrap");
 
-        RandomGenerator randGen = DataSampling.createRandomGenerator(parameters);
-        List<DataSet> dataSets = DataSampling.sample(dataSet, parameters, randGen);
+        long seed = getSeed(dirOut);
+        BootstrapReplicates replicates = new BootstrapReplicates(dataSet, parameters, seed);
+        int numOfReplicates = replicates.getNumOfReplicates();
+        EarlyStopping earlyStopping = new EarlyStopping(parameters, numOfReplicates);
 
         // start the timer
         final LocalDateTime startDateTime = LocalDateTime.now();
         final long startTime = System.nanoTime();
 
-        // run searches on sample data
-        int numOfSearchRuns = 0;
-        List<Graph> graphs = new LinkedList<>();
-        for (DataSet data : dataSets) {
-            Graph graph = runSearch(data, parameters);
-            if (SearchGraphUtils.isLegalPag(graph).isLegalPag()) {
-                graphs.add(graph);
-            }
-            numOfSearchRuns++;
-        }
+        // fold each legal PAG into the edge-type counts as soon as it is available
+        EdgeTypeAggregator edgeTypeAggregator = new EdgeTypeAggregator();
 
-        // continue to run searches until the number of desire graphs has reached
-        int numOfAdditionalDataSampling = 0;
-        while (graphs.size() < dataSets.size()) {
-            numOfAdditionalDataSampling++;
-            numOfSearchRuns++;
+        // skip the searches when the results of an identical run are cached
+        String cacheKey = createCacheKey("RFCI", "G Square Test", seed);
+        SearchResults searchResults = loadCachedResults(cacheKey, dirOut, dataSet, edgeTypeAggregator);
+        boolean cached = (searchResults != null);
+        if (!cached) {
+            // continue from the last checkpoint, if any
+            SearchCheckpoint checkpoint = createSearchCheckpoint(dirOut, seed, earlyStopping.getMaxReplicates());
+            SearchResults progress = checkpoint.load();
 
-            DataSet sampleData = DataSampling.sampleWithReplacement(dataSet, randGen);
-            Graph graph = runSearch(sampleData, parameters);
-            if (SearchGraphUtils.isLegalPag(graph).isLegalPag()) {
-                graphs.add(graph);
+            // run searches on sample data until the number of desire graphs has reached
+            try (PagEnsembleWriter ensembleWriter = createEnsembleWriter(dirOut, dataSet)) {
+                Consumer<Graph> legalPags = collectLegalPags(edgeTypeAggregator, ensembleWriter);
+                checkpoint.restore(progress, dataSet.getVariables(), legalPags);
+                if (isSharded()) {
+                    searchResults = searchShards(dirOut, seed, progress, earlyStopping.getMaxReplicates(), edgeTypeAggregator, ensembleWriter, checkpoint);
+                } else {
+                    IntFunction<Graph> replicateSearch = createReplicateSearch(dataSet, replicates);
+                    searchResults = createSearchExecutor().search(
+                            progress,
+                            earlyStopping.getMaxReplicates(),
+                            replicateIndex -> replicateIndex,
+                            replicateSearch::apply,
+                            legalPags,
+                            () -> earlyStopping.isConverged(edgeTypeAggregator),
+                            checkpoint.saveEvery(ensembleWriter));
+                }
+                checkpoint.save(searchResults, ensembleWriter);
             }
+            cacheResults(cacheKey, dirOut, searchResults);
         }
+        int numOfLegalPags = searchResults.getNumOfLegalPags();
+        int numOfSearchRuns = searchResults.getNumOfSearchRuns();
+        int numOfCompletedSearchRuns = searchResults.getNumOfCompletedSearchRuns();
+        int numOfAdditionalDataSampling = searchResults.getNumOfAdditionalSearchRuns();
 
         // stop the timer
         final long endTime = System.nanoTime();
         final LocalDateTime endDateTime = LocalDateTime.now();
         final long duration = endTime - startTime;
 
-        Graph searchGraph = GraphSampling.createGraphWithHighProbabilityEdges(graphs);
+        Graph searchGraph = edgeTypeAggregator.createGraphWithHighProbabilityEdges();
 
         String outputDir = dirOut.toString();
         GraphStatistics graphCalibration = new GraphStatistics(searchGraph, pagFromDagGraph);
-        graphCalibration.saveGraphData(Paths.get(outputDir, "directed_edge_data.csv"));
-        graphCalibration.saveStatistics(Paths.get(outputDir, "statistics.txt"));
-        graphCalibration.saveCalibrationPlot(
-                "RFCI-G2 Bootstrapping", "rfci-g2-bs",
-                1000, 1000,
-                Paths.get(outputDir, "calibration.png"));
-
-        GraphDetails.saveDetails(pagFromDagGraph, searchGraph, Paths.get(outputDir, "graph_details.txt"));
-        Graphs.saveGraph(searchGraph, Paths.get(outputDir, "graph.txt"));
-        Graphs.exportAsPngImage(searchGraph, 1000, 1000, Paths.get(outputDir, "graph.png"));
-
-        // write out details
-        try (PrintStream writer = new PrintStream(Paths.get(outputDir, "run_details.txt").toFile())) {
-            writer.println("Rfci with Bootstrapping Using G Square Test");
-            writer.println("================================================================================");
-            writer.println("Algorithm: RFCI");
-            writer.println("Test of Independence: G Square Test");
-            writer.println();
-
-            writer.println("Parameters");
-            writer.println("========================================");
-            printParameters(parameters, writer);
-            writer.println();
-
-            writer.println("Dataset");
-            writer.println("========================================");
-            writer.printf("Variables: %d%n", dataSet.getNumColumns());
-            writer.printf("Cases: %d%n", dataSet.getNumRows());
-            writer.printf("Data Samples: %d%n", dataSets.size());
-            writer.println();
-
-            writer.println("Search Run Details");
-            writer.println("========================================");
-            writer.println("Run Time");
-            writer.println("--------------------");
-            writer.printf("Search start: %s%n", startDateTime.format(DATETIME_FORMATTER));
-            writer.printf("Search end: %s%n", endDateTime.format(DATETIME_FORMATTER));
-            writer.printf("Duration: %,d seconds%n", TimeUnit.NANOSECONDS.toSeconds(duration));
-            writer.println();
-            writer.println("Search Counts");
-            writer.println("--------------------");
-            writer.printf("Number of searches: %d%n", numOfSearchRuns);
-            writer.println();
-            writer.println("Data Sampling");
-            writer.println("--------------------");
-            writer.printf("Number of initial data sampling: %d%n", dataSets.size());
-            writer.printf("Number of additional data sampling: %d%n", numOfAdditionalDataSampling);
-            writer.println();
-            writer.println("PAG Counts");
-            writer.println("--------------------");
-            writer.printf("Number of valid PAGs: %d%n", graphs.size());
-            writer.printf("Number of invalid PAGs: %d%n", numOfSearchRuns - graphs.size());
-            writer.println();
-
-            writer.println("High-Edge-Probability Graph");
-            writer.println("========================================");
-            writer.println(searchGraph.toString().replaceAll(" - ", " ... ").trim());
-        }
+        writeOutputs(outputs -> {
+            outputs.submit(() -> graphCalibration.saveGraphData(Paths.get(outputDir, "directed_edge_data.csv")));
+            outputs.submit(() -> graphCalibration.saveStatistics(Paths.get(outputDir, "statistics.txt")));
+            outputs.submit(() -> graphCalibration.saveCalibrationPlot(
+                    "RFCI-G2 Bootstrapping", "rfci-g2-bs",
+                    1000, 1000,
+                    Paths.get(outputDir, "calibration.png")));
+
+            outputs.submit(() -> GraphDetails.saveDetails(pagFromDagGraph, searchGraph, Paths.get(outputDir, "graph_details.txt")));
+            outputs.submit(() -> Graphs.saveGraph(searchGraph, Paths.get(outputDir, "graph.txt")));
+            outputs.submit(() -> Graphs.exportImage(searchGraph, getGraphImageFormat(), 1000, 1000, dirOut, "graph"));
+
+            // write out details
+            outputs.submit(() -> {
+                try (PrintStream writer = new PrintStream(Paths.get(outputDir, "run_details.txt").toFile())) {
+                    writer.println("Rfci with Bootstrapping Using G Square Test");
+                    writer.println("================================================================================");
+                    writer.println("Algorithm: RFCI");
+                    writer.println("Test of Independence: G Square Test");
+                    writer.println();
+
+                    writer.println("Parameters");
+                    writer.println("========================================");
+                    printParameters(parameters, writer);
+                    writer.println();
+
+                    writer.println("Dataset");
+                    writer.println("========================================");
+                    writer.printf("Variables: %d%n", dataSet.getNumColumns());
+                    writer.printf("Cases: %d%n", dataSet.getNumRows());
+                    writer.printf("Packed data: %s%n", isPackedData() ? "Yes" : "No");
+                    writer.printf("Data Samples: %d%n", numOfReplicates);
+                    writer.println();
+
+                    writer.println("Search Run Details");
+                    writer.println("========================================");
+                    writer.println("Run Time");
+                    writer.println("--------------------");
+                    writer.printf("Search start: %s%n", startDateTime.format(DATETIME_FORMATTER));
+                    writer.printf("Search end: %s%n", endDateTime.format(DATETIME_FORMATTER));
+                    writer.printf("Duration: %,d seconds%n", TimeUnit.NANOSECONDS.toSeconds(duration));
+                    writer.println();
+                    writer.println("Search Counts");
+                    writer.println("--------------------");
+                    writer.printf("Number of searches: %d%n", numOfSearchRuns);
+                    writer.printf("Number of threads: %d%n", getNumOfThreads());
+                    writer.printf("Cached results: %s%n", cached ? "Yes" : "No");
+                    writer.println();
+                    writer.println("Data Sampling");
+                    writer.println("--------------------");
+                    writer.printf("Number of initial data sampling: %d%n", numOfReplicates);
+                    writer.printf("Number of additional data sampling: %d%n", numOfAdditionalDataSampling);
+                    writer.println();
+                    writer.println("Early Stopping");
+                    writer.println("--------------------");
+                    earlyStopping.printDetails(writer, numOfLegalPags, numOfCompletedSearchRuns);
+                    writer.println();
+                    writer.println("PAG Counts");
+                    writer.println("--------------------");
+                    writer.printf("Number of valid PAGs: %d%n", numOfLegalPags);
+                    writer.printf("Number of invalid PAGs: %d%n", numOfSearchRuns - numOfLegalPags);
+                    writer.println();
+
+                    writer.println("High-Edge-Probability Graph");
+                    writer.println("========================================");
+                    writer.println(searchGraph.toString().replaceAll(" - ", " ... ").trim());
+                }
+            });
+        });
     }
 
     private void printParameters(Parameters parameters, PrintStream writer) {
@@ -197,10 +226,40 @@ public class RficGSquareBootstrapRunner extends AbstractRunner {
         writer.printf("%s: %s%n",
                 paramDescs.get(Params.RESAMPLING_WITH_REPLACEMENT).getShortDescription(),
                 getParameterValue(parameters, Params.RESAMPLING_WITH_REPLACEMENT));
+        writer.printf("Weighted bootstrap: %s%n",
+                isWeightedBootstrap() ? "Yes" : "No");
+    }
+
+    @Override
+    public SearchResults searchShard(long seed, int fromIndex, int toIndex, Consumer<Graph> legalPags) throws Exception {
+        DataSet dataSet = getDataSet();
+        BootstrapReplicates replicates = new BootstrapReplicates(dataSet, parameters, seed);
+        IntFunction<Graph> replicateSearch = createReplicateSearch(dataSet, replicates);
+
+        return createSearchExecutor().searchRange(fromIndex, toIndex, replicateIndex -> replicateIndex, replicateSearch::apply, legalPags);
+    }
+
+    /**
+     * Get the search of the replicate at a given index. With weighted
+     * bootstrapping, the default, the tests count the cases of the data by
+     * the weights of the replicate.
+     */
+    private IntFunction<Graph> createReplicateSearch(DataSet dataSet, BootstrapReplicates replicates) {
+        if (isWeightedBootstrap()) {
+            DiscreteColumns data = new DiscreteColumns(dataSet);
+
+            return replicateIndex -> {
+                int[] weights = replicates.getWeights(replicateIndex);
+
+                return runSearch(new IndTestWeightedGSquare(new DiscreteCountEngine(data, weights), parameters.getDouble(Params.ALPHA)), parameters);
+            };
+        }
+
+        return replicateIndex -> runSearch((new Gsquare()).getTest(replicates.get(replicateIndex), parameters), parameters);
     }
 
-    private Graph runSearch(DataSet dataSet, Parameters parameters) {
-        Rfci rfci = new Rfci((new Gsquare()).getTest(dataSet, parameters));
+    private Graph runSearch(IndependenceTest independenceTest, Parameters parameters) {
+        Rfci rfci = new Rfci(independenceTest);
         rfci.setDepth(parameters.getInt(Params.DEPTH));
         rfci.setMaxPathLength(parameters.getInt(Params.MAX_PATH_LENGTH));
         rfci.setVerbose(parameters.getBoolean(Params.VERBOSE));
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.run;
+
+/**
+ * Names of the runner settings that are not part of Tetrad's parameters.
+ * They are stored in the same {@link edu.cmu.tetrad.util.Parameters} object
+ * as the algorithm parameters.
+ *
+ * Apr 14, 2023 9:12:37 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public final class RunnerParams {
+
+    /**
+     * Number of worker threads used to run the searches.
+     */
+    public static final String NUM_THREADS = "numThreads";
+
+    /**
+     * Whether to run the tests of independence of the bootstrap runners on
+     * case weights of the original data, counted by a shared count engine,
+     * instead of on the resampled rows. Defaults to true; the runners used
+     * to test the resampled rows, which false restores. On the rows, the G²
+     * and χ² runners use Tetrad's tests, while the probabilistic runner uses
+     * its own cached test, since Tetrad's ignores the prior equivalent
+     * sample size.
+     */
+    public static final String WEIGHTED_BOOTSTRAP = "weightedBootstrap";
+
+    /**
+     * Whether the runners pack the dataset into a
+     * {@link edu.pitt.dbmi.causal.experiment.data.PackedDiscreteDataBox},
+     * which stores each value with the fewest bits its variable needs.
+     */
+    public static final String PACKED_DATA = "packedData";
+
+    /**
+     * Whether the bootstrap runners stop searching once the edge-type
+     * probabilities of the legal PAGs have converged.
+     */
+    public static final String EARLY_STOPPING = "earlyStopping";
+
+    /**
+     * Largest width of the 95% confidence interval of any edge-type
+     * probability at which the probabilities are considered converged.
+     * Defaults to 0.1.
+     */
+    public static final String EARLY_STOPPING_TOLERANCE = "earlyStoppingTolerance";
+
+    /**
+     * Number of legal PAGs to collect before checking for convergence.
+     */
+    public static final String EARLY_STOPPING_MIN_REPLICATES = "earlyStoppingMinReplicates";
+
+    /**
+     * Number of legal PAGs to collect when the probabilities do not
+     * converge. Defaults to the number of bootstrap replicates.
+     */
+    public static final String EARLY_STOPPING_MAX_REPLICATES = "earlyStoppingMaxReplicates";
+
+    /**
+     * Whether the PAG ensemble file stores identical PAGs once.
+     */
+    public static final String ENSEMBLE_REMOVE_DUPLICATES = "ensembleRemoveDuplicates";
+
+    /**
+     * Image format of the search graph the runners write out: png, svg or
+     * none. An SVG is streamed to disk and rasterized on demand by a viewer.
+     */
+    public static final String GRAPH_IMAGE_FORMAT = "graphImageFormat";
+
+    /**
+     * Number of legal PAGs between the checkpoints of the bootstrap runners.
+     * No checkpoints are saved when it is 0.
+     */
+    public static final String CHECKPOINT_INTERVAL = "checkpointInterval";
+
+    /**
+     * Whether the runners reuse their existing output directories, and the
+     * bootstrap runners continue from their last checkpoint.
+     */
+    public static final String RESUME = "resume";
+
+    /**
+     * Directory of the on-disk cache of the search results of the bootstrap
+     * runners. The results are not cached when it is not set, or when the
+     * parameters do not set a seed.
+     */
+    public static final String RESULT_CACHE_DIR = "resultCacheDir";
+
+    /**
+     * Maximum size of the result cache, in bytes.
+     */
+    public static final String RESULT_CACHE_MAX_SIZE = "resultCacheMaxSize";
+
+    /**
+     * Number of worker processes the bootstrap runners split their
+     * replicates among. The replicates are searched in the runner's own
+     * process when it is 0.
+     */
+    public static final String SHARD_WORKERS = "shardWorkers";
+
+    /**
+     * Directory the workers of a sharded search share with the runner.
+     * Defaults to the shards directory in the runner's output directory.
+     * Each run works in a directory of its own under it, so it can be shared
+     * by several runs.
+     */
+    public static final String SHARD_DIR = "shardDir";
+
+    private RunnerParams() {
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.run;
+
+import edu.cmu.tetrad.util.Parameters;
+import edu.pitt.dbmi.causal.experiment.data.SimulatedData;
+import java.util.function.BiFunction;
+
+/**
+ * The runners that can be run by name, e.g. from a parameter sweep. A
+ * runner's name is the name of the directory it writes its outputs to.
+ *
+ * May 9, 2023 10:12:47 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public enum RunnerType {
+
+    PAG_SAMPLING_RFCI("pag_sampling_rfci", PagSamplingRfciRunner.class, PagSamplingRfciRunner::new),
+    RFCI_PROBABILISTIC_BOOTSTRAP("rfic_probabilistic_bootstrap", RficProbabilisticBootstrapRunner.class, RficProbabilisticBootstrapRunner::new),
+    RFCI_G_SQUARE_BOOTSTRAP("rfic_g2_bootstrap", RficGSquareBootstrapRunner.class, RficGSquareBootstrapRunner::new),
+    RFCI_CHI_SQUARE_BOOTSTRAP("rfic_chi2_bootstrap", RficChiSquareBootstrapRunner.class, RficChiSquareBootstrapRunner::new);
+
+    private final String name;
+    private final Class<? extends AbstractRunner> runnerClass;
+    private final BiFunction<SimulatedData, Parameters, AbstractRunner> factory;
+
+    private RunnerType(String name, Class<? extends AbstractRunner> runnerClass, BiFunction<SimulatedData, Parameters, AbstractRunner> factory) {
+        this.name = name;
+        this.runnerClass = runnerClass;
+        this.factory = factory;
+    }
+
+    public AbstractRunner createRunner(SimulatedData simulatedData, Parameters parameters) {
+        return factory.apply(simulatedData, parameters);
+    }
+
+    /**
+     * Create the runner for a worker of a sharded run.
+     *
+     * @param simulatedData simulated data
+     * @param parameters parameters of the runner
+     * @return the runner
+     * @throws IllegalArgumentException if the runner cannot be sharded
+     */
+    public ShardableRunner createShardableRunner(SimulatedData simulatedData, Parameters parameters) {
+        if (!isShardable()) {
+            throw new IllegalArgumentException(String.format("Runner %s cannot be sharded.", name));
+        }
+
+        return (ShardableRunner) createRunner(simulatedData, parameters);
+    }
+
+    /**
+     * Whether the searches of the runner can be split among the workers of a
+     * sharded run.
+     *
+     * @return true if the runner is a {@link ShardableRunner}
+     */
+    public boolean isShardable() {
+        return ShardableRunner.class.isAssignableFrom(runnerClass);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the runner of the name.
+     *
+     * @param name name of the runner
+     * @return the runner
+     * @throws IllegalArgumentException if there is no runner of the name
+     */
+    public static RunnerType fromName(String name) {
+        for (RunnerType runnerType : values()) {
+            if (runnerType.name.equals(name)) {
+                return runnerType;
+            }
+        }
+
+        throw new IllegalArgumentException(String.format("Unknown runner %s.", name));
+    }
+
+    /**
+     * Get the type of the runner.
+     *
+     * @param runner runner
+     * @return the type of the runner
+     * @throws IllegalArgumentException if the runner cannot be run by name
+     */
+    public static RunnerType fromRunner(AbstractRunner runner) {
+        for (RunnerType runnerType : values()) {
+            if (runnerType.runnerClass == runner.getClass()) {
+                return runnerType;
+            }
+        }
+
+        throw new IllegalArgumentException(String.format("Unknown runner %s.", runner.getClass().getName()));
+    }
+
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.run;
+
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.GraphUtils;
+import edu.cmu.tetrad.graph.Node;
+import edu.pitt.dbmi.causal.experiment.tetrad.PagEnsembleReader;
+import edu.pitt.dbmi.causal.experiment.tetrad.PagEnsembleWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Consumer;
+
+/**
+ * Saves the progress of the searches of a bootstrap run to the run
+ * directory so that a run that dies can be resumed where it stopped.
+ *
+ * The legal PAGs are already written to the PAG ensemble file in the order
+ * of the replicates. A checkpoint adds the number of replicates searched
+ * and the number of legal PAGs, once every given number of legal PAGs.
+ * Since replicate k is drawn from the seed and k alone, this is all the
+ * random state there is: resuming adds the checkpointed PAGs back and
+ * continues from the next replicate, which gives the same PAGs in the same
+ * order as a run that was not interrupted.
+ *
+ * May 5, 2023 9:48:03 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class SearchCheckpoint {
+
+    public static final String FILE_NAME = "search_checkpoint.properties";
+
+    private static final String RESUME_FILE_EXTENSION = ".resume";
+
+    private static final String SEED = "seed";
+    private static final String NUM_OF_REPLICATES = "numOfReplicates";
+    private static final String NUM_OF_LEGAL_PAGS = "numOfLegalPags";
+    private static final String NUM_OF_SEARCH_RUNS = "numOfSearchRuns";
+    private static final String NUM_OF_ADDITIONAL_SEARCH_RUNS = "numOfAdditionalSearchRuns";
+
+    private final Path checkpointFile;
+    private final Path ensembleFile;
+    private final Path resumeEnsembleFile;
+    private final long seed;
+    private final int numOfReplicates;
+    private final int interval;
+
+    /**
+     * @param dirOut run directory
+     * @param ensembleFile PAG ensemble file of the run
+     * @param seed seed of the replicates
+     * @param numOfReplicates maximum number of legal PAGs
+     * @param interval number of legal PAGs between checkpoints, or 0 for no
+     * checkpoints
+     */
+    public SearchCheckpoint(Path dirOut, Path ensembleFile, long seed, int numOfReplicates, int interval) {
+        if (interval < 0) {
+            throw new IllegalArgumentException("Checkpoint interval must be at least 0.");
+        }
+
+        this.checkpointFile = Paths.get(dirOut.toString(), FILE_NAME);
+        this.ensembleFile = ensembleFile;
+        this.resumeEnsembleFile = Paths.get(ensembleFile.toString() + RESUME_FILE_EXTENSION);
+        this.seed = seed;
+        this.numOfReplicates = numOfReplicates;
+        this.interval = interval;
+    }
+
+    /**
+     * Get the progress of the last checkpoint and move the ensemble file
+     * aside, to be restored from once a new ensemble writer is created. Must
+     * be called before the ensemble writer is created.
+     *
+     * @return the progress of the last checkpoint, or no progress if there
+     * is no checkpoint
+     * @throws IOException if the checkpoint is of a different run, or its
+     * PAGs are missing
+     */
+    public SearchResults load() throws IOException {
+        if (Files.notExists(checkpointFile)) {
+            return new SearchResults(0, 0, 0);
+        }
+
+        Properties properties = loadProperties(checkpointFile);
+        if (seed != Long.parseLong(properties.getProperty(SEED))
+                || numOfReplicates != Integer.parseInt(properties.getProperty(NUM_OF_REPLICATES))) {
+            throw new IOException(String.format("Checkpoint %s is of a run with a different seed or number of replicates.", checkpointFile));
+        }
+
+        SearchResults progress = new SearchResults(
+                Integer.parseInt(properties.getProperty(NUM_OF_LEGAL_PAGS)),
+                Integer.parseInt(properties.getProperty(NUM_OF_SEARCH_RUNS)),
+                Integer.parseInt(properties.getProperty(NUM_OF_ADDITIONAL_SEARCH_RUNS)));
+
+        // keep the ensemble moved aside by a resume that died while restoring
+        if (Files.notExists(resumeEnsembleFile)) {
+            if (Files.exists(ensembleFile)) {
+                Files.move(ensembleFile, resumeEnsembleFile);
+            } else if (progress.getNumOfLegalPags() > 0) {
+                throw new IOException(String.format("Checkpoint %s has no PAG ensemble %s to resume from.", checkpointFile, ensembleFile));
+            }
+        }
+
+        return progress;
+    }
+
+    /**
+     * Get the seed of the run whose checkpoint is in the run directory. A
+     * run without a seed in its parameters picks one from the clock, so
+     * resuming it needs the seed the run was started with.
+     *
+     * @param dirOut run directory
+     * @return the seed of the checkpointed run, or null if there is no
+     * checkpoint
+     * @throws IOException
+     */
+    public static Long readSeed(Path dirOut) throws IOException {
+        Path checkpointFile = Paths.get(dirOut.toString(), FILE_NAME);
+        if (Files.notExists(checkpointFile)) {
+            return null;
+        }
+
+        return Long.valueOf(loadProperties(checkpointFile).getProperty(SEED));
+    }
+
+    private static Properties loadProperties(Path checkpointFile) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(checkpointFile)) {
+            properties.load(in);
+        }
+
+        return properties;
+    }
+
+    /**
+     * Pass the PAGs of the last checkpoint, in order, to the consumer of the
+     * legal PAGs. The PAGs written after the checkpoint are dropped.
+     *
+     * @param progress progress of the last checkpoint
+     * @param nodes nodes of the searched data
+     * @param legalPags consumer of the legal PAGs
+     * @throws IOException
+     */
+    public void restore(SearchResults progress, List<Node> nodes, Consumer<Graph> legalPags) throws IOException {
+        if (progress.getNumOfLegalPags() == 0) {
+            Files.deleteIfExists(resumeEnsembleFile);
+            return;
+        }
+
+        PagEnsembleReader reader = new PagEnsembleReader(resumeEnsembleFile);
+        if (reader.getNumOfGraphs() < progress.getNumOfLegalPags()) {
+            throw new IOException(String.format("%s has fewer PAGs than checkpoint %s.", resumeEnsembleFile, checkpointFile));
+        }
+        for (int i = 0; i < progress.getNumOfLegalPags(); i++) {
+            legalPags.accept(GraphUtils.replaceNodes(reader.getGraph(i), nodes));
+        }
+
+        Files.delete(resumeEnsembleFile);
+    }
+
+    /**
+     * Get the listener of the progress of the searches that saves a
+     * checkpoint once every interval of legal PAGs.
+     *
+     * @param ensembleWriter writer of the legal PAGs
+     * @return progress listener
+     */
+    public Consumer<SearchResults> saveEvery(PagEnsembleWriter ensembleWriter) {
+        return progress -> {
+            if (interval > 0 && progress.getNumOfLegalPags() % interval == 0) {
+                try {
+                    save(progress, ensembleWriter);
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+            }
+        };
+    }
+
+    /**
+     * Get the listener of the progress of the searches that saves a
+     * checkpoint on every report, for searches that report their progress
+     * in rounds rather than once per legal PAG.
+     *
+     * @param ensembleWriter writer of the legal PAGs
+     * @return progress listener
+     */
+    public Consumer<SearchResults> saveEach(PagEnsembleWriter ensembleWriter) {
+        return progress -> {
+            try {
+                save(progress, ensembleWriter);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        };
+    }
+
+    /**
+     * Save a checkpoint. The PAGs are flushed to the ensemble file first,
+     * and the checkpoint file is replaced atomically.
+     *
+     * @param progress progress of the searches
+     * @param ensembleWriter writer of the legal PAGs
+     * @throws IOException
+     */
+    public void save(SearchResults progress, PagEnsembleWriter ensembleWriter) throws IOException {
+        if (interval == 0) {
+            return;
+        }
+
+        ensembleWriter.flush();
+
+        Properties properties = new Properties();
+        properties.setProperty(SEED, String.valueOf(seed));
+        properties.setProperty(NUM_OF_REPLICATES, String.valueOf(numOfReplicates));
+        properties.setProperty(NUM_OF_LEGAL_PAGS, String.valueOf(progress.getNumOfLegalPags()));
+        properties.setProperty(NUM_OF_SEARCH_RUNS, String.valueOf(progress.getNumOfSearchRuns()));
+        properties.setProperty(NUM_OF_ADDITIONAL_SEARCH_RUNS, String.valueOf(progress.getNumOfAdditionalSearchRuns()));
+
+        Path tempFile = Paths.get(checkpointFile.toString() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tempFile)) {
+            properties.store(out, "Search checkpoint");
+        }
+        Files.move(tempFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.run;
+
+/**
+ *
+ * Apr 14, 2023 9:40:02 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class SearchResults {
+
+    private final int numOfLegalPags;
+
+    private final int numOfSearchRuns;
+
+    private final int numOfAdditionalSearchRuns;
+
+    private final int numOfCompletedSearchRuns;
+
+    public SearchResults(int numOfLegalPags, int numOfSearchRuns, int numOfAdditionalSearchRuns) {
+        this(numOfLegalPags, numOfSearchRuns, numOfAdditionalSearchRuns, numOfSearchRuns);
+    }
+
+    /**
+     * @param numOfLegalPags number of legal PAGs kept
+     * @param numOfSearchRuns number of searches whose PAGs were kept or
+     * found not legal
+     * @param numOfAdditionalSearchRuns number of searches after the initial
+     * replicates
+     * @param numOfCompletedSearchRuns number of searches that ran to the end,
+     * including the ones that finished after the searches were stopped,
+     * whose PAGs were dropped
+     */
+    public SearchResults(int numOfLegalPags, int numOfSearchRuns, int numOfAdditionalSearchRuns, int numOfCompletedSearchRuns) {
+        this.numOfLegalPags = numOfLegalPags;
+        this.numOfSearchRuns = numOfSearchRuns;
+        this.numOfAdditionalSearchRuns = numOfAdditionalSearchRuns;
+        this.numOfCompletedSearchRuns = numOfCompletedSearchRuns;
+    }
+
+    public int getNumOfLegalPags() {
+        return numOfLegalPags;
+    }
+
+    public int getNumOfSearchRuns() {
+        return numOfSearchRuns;
+    }
+
+    public int getNumOfAdditionalSearchRuns() {
+        return numOfAdditionalSearchRuns;
+    }
+
+    public int getNumOfCompletedSearchRuns() {
+        return numOfCompletedSearchRuns;
+    }
+
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.run;
+
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.graph.GraphUtils;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.util.Parameters;
+import edu.pitt.dbmi.causal.experiment.tetrad.EdgeTypeAggregator;
+import edu.pitt.dbmi.causal.experiment.tetrad.PagEnsembleReader;
+import edu.pitt.dbmi.causal.experiment.tetrad.PagEnsembleWriter;
+import edu.pitt.dbmi.causal.experiment.util.FileIO;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Splits the searches of a bootstrap run among worker processes that share
+ * a directory with the run, and merges what they find.
+ *
+ * The replicates are searched in rounds, the way
+ * {@link ParallelSearchExecutor} does: the first round covers the initial
+ * replicates, and each round after covers as many of the following
+ * replicates as there are legal PAGs missing. The replicates of a round are
+ * split into consecutive ranges, one task per range. A worker claims a task
+ * and writes the PAG ensemble, the edge-type counts and the search counts
+ * of its range (see {@link ShardWorker}). The ranges are then merged in
+ * order. Since replicate k depends on the seed and k alone, this gives the
+ * same PAGs and the same high-edge-probability graph as a run that searches
+ * all the replicates itself.
+ *
+ * The run works in a directory of its own under the shard directory, which
+ * may be shared by other runs, and only deletes that directory. The run
+ * starts the given number of local workers for each round. Workers on other
+ * machines that mount the shard directory can claim tasks as well, by
+ * running {@link #WORKER_MAIN_CLASS} on the run directory, which the run
+ * prints. A worker touches its claim while it searches; a task whose claim
+ * is not touched for {@link #CLAIM_TIMEOUT} milliseconds is released and
+ * searched by a local worker.
+ *
+ * May 10, 2023 11:04:52 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class ShardCoordinator {
+
+    public static final String WORKER_MAIN_CLASS = "edu.pitt.dbmi.causal.experiment.ShardWorkerApp";
+
+    static final String RUN_DIR_PREFIX = "run_";
+    static final String JOB_FILE_NAME = "job.ser";
+    static final String TASK_EXTENSION = ".task";
+    static final String CLAIM_EXTENSION = ".claim";
+    static final String TEMP_EXTENSION = ".tmp";
+    static final String ENSEMBLE_FILE_NAME = "pag_ensemble.bin";
+    static final String COUNTS_FILE_NAME = "edge_type_counts.bin";
+    static final String RESULTS_FILE_NAME = "search_results.properties";
+
+    static final String NUM_OF_LEGAL_PAGS = "numOfLegalPags";
+    static final String NUM_OF_SEARCH_RUNS = "numOfSearchRuns";
+
+    /**
+     * Milliseconds between the touches of a claim by its worker.
+     */
+    static final long HEARTBEAT_INTERVAL = 10000;
+
+    /**
+     * Milliseconds without a touch after which a claim is released.
+     */
+    static final long CLAIM_TIMEOUT = 60000;
+
+    private static final long POLL_INTERVAL = 1000;
+
+    private final Path shardDir;
+    private final int numOfWorkers;
+
+    /**
+     * @param shardDir directory shared with the workers
+     * @param numOfWorkers number of local workers per round
+     */
+    public ShardCoordinator(Path shardDir, int numOfWorkers) {
+        if (numOfWorkers < 1) {
+            throw new IllegalArgumentException("Number of workers must be at least 1.");
+        }
+
+        this.shardDir = shardDir;
+        this.numOfWorkers = numOfWorkers;
+    }
+
+    /**
+     * Search the replicates on the workers until there are as many legal
+     * PAGs as there are initial replicates, continuing from the given
+     * progress.
+     *
+     * @param runnerType runner whose search the workers run
+     * @param dataSet data to search
+     * @param parameters parameters of the runner
+     * @param seed base seed of the replicates
+     * @param start progress of the searches done before
+     * @param numOfReplicates number of legal PAGs
+     * @param edgeTypeAggregator edge-type counts the counts of the workers
+     * are merged into
+     * @param ensembleWriter writer the PAGs of the workers are copied to
+     * @param progress listener of the search counts, after each round
+     * @return the search counts
+     * @throws IllegalArgumentException if the runner cannot be sharded
+     * @throws Exception
+     */
+    public SearchResults search(RunnerType runnerType, DataSet dataSet, Parameters parameters, long seed, SearchResults start, int numOfReplicates, EdgeTypeAggregator edgeTypeAggregator, PagEnsembleWriter ensembleWriter, Consumer<SearchResults> progress) throws Exception {
+        if (!runnerType.isShardable()) {
+            throw new IllegalArgumentException(String.format("Runner %s cannot be sharded.", runnerType.getName()));
+        }
+
+        Files.createDirectories(shardDir);
+        Path runDir = Files.createDirectory(Paths.get(shardDir.toString(), RUN_DIR_PREFIX + UUID.randomUUID()));
+        System.out.printf("Shard run directory: %s%n", runDir);
+        try {
+            writeJob(runDir, runnerType, dataSet, parameters, seed);
+
+            List<Node> nodes = dataSet.getVariables();
+            int numOfLegalPags = start.getNumOfLegalPags();
+            int numOfSearchRuns = start.getNumOfSearchRuns();
+            while (numOfLegalPags < numOfReplicates) {
+                // never search more replicates than the sequential search would
+                List<String> shards = createTasks(runDir, numOfSearchRuns, numOfReplicates - numOfLegalPags);
+                runWorkers(runDir, Math.min(numOfWorkers, shards.size()));
+
+                for (String shard : shards) {
+                    Path shardOutDir = awaitShard(runDir, shard);
+
+                    edgeTypeAggregator.merge(EdgeTypeAggregator.read(Paths.get(shardOutDir.toString(), COUNTS_FILE_NAME)));
+
+                    PagEnsembleReader reader = new PagEnsembleReader(Paths.get(shardOutDir.toString(), ENSEMBLE_FILE_NAME));
+                    for (int i = 0; i < reader.getNumOfGraphs(); i++) {
+                        ensembleWriter.write(GraphUtils.replaceNodes(reader.getGraph(i), nodes));
+                    }
+
+                    Properties results = new Properties();
+                    try (InputStream in = Files.newInputStream(Paths.get(shardOutDir.toString(), RESULTS_FILE_NAME))) {
+                        results.load(in);
+                    }
+                    numOfLegalPags += Integer.parseInt(results.getProperty(NUM_OF_LEGAL_PAGS));
+                    numOfSearchRuns += Integer.parseInt(results.getProperty(NUM_OF_SEARCH_RUNS));
+
+                    FileIO.deleteDirectory(shardOutDir);
+                    Files.delete(Paths.get(runDir.toString(), shard + TASK_EXTENSION));
+                    Files.delete(Paths.get(runDir.toString(), shard + CLAIM_EXTENSION));
+                }
+
+                progress.accept(new SearchResults(numOfLegalPags, numOfSearchRuns, Math.max(0, numOfSearchRuns - numOfReplicates)));
+            }
+
+            return new SearchResults(numOfLegalPags, numOfSearchRuns, Math.max(0, numOfSearchRuns - numOfReplicates));
+        } finally {
+            FileIO.deleteDirectory(runDir);
+        }
+    }
+
+    /**
+     * Write the runner, the data, the parameters and the seed for the
+     * workers. The seed is resolved once by the run, since a run without a
+     * seed in its parameters picks one from the clock.
+     */
+    private void writeJob(Path runDir, RunnerType runnerType, DataSet dataSet, Parameters parameters, long seed) throws IOException {
+        Path tempFile = Paths.get(runDir.toString(), JOB_FILE_NAME + TEMP_EXTENSION);
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeUTF(runnerType.getName());
+            out.writeObject(dataSet);
+            out.writeObject(parameters);
+            out.writeLong(seed);
+        }
+        Files.move(tempFile, Paths.get(runDir.toString(), JOB_FILE_NAME));
+    }
+
+    /**
+     * Split the replicates into consecutive ranges of about equal size, one
+     * task per range.
+     *
+     * @return the names of the shards, in the order of the replicates
+     */
+    private List<String> createTasks(Path runDir, int fromIndex, int numOfSearches) throws IOException {
+        int numOfShards = Math.min(numOfWorkers, numOfSearches);
+
+        List<String> shards = new LinkedList<>();
+        int index = fromIndex;
+        for (int i = 0; i < numOfShards; i++) {
+            int size = numOfSearches / numOfShards + ((i < numOfSearches % numOfShards) ? 1 : 0);
+            String shard = String.format("shard_%d_%d", index, index + size);
+            Files.createFile(Paths.get(runDir.toString(), shard + TASK_EXTENSION));
+            shards.add(shard);
+            index += size;
+        }
+
+        return shards;
+    }
+
+    /**
+     * Start the local workers with the class path and the JVM options of
+     * this process, except the options of debugging agents and remote
+     * management (see {@link #isWorkerOption(String)}), and wait for them to
+     * run out of tasks. The workers still running are stopped when one
+     * fails.
+     */
+    private void runWorkers(Path runDir, int numOfProcesses) throws IOException, InterruptedException {
+        List<String> command = new LinkedList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .filter(ShardCoordinator::isWorkerOption)
+                .forEach(command::add);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(WORKER_MAIN_CLASS);
+        command.add(runDir.toString());
+
+        List<Process> processes = new LinkedList<>();
+        try {
+            for (int i = 0; i < numOfProcesses; i++) {
+                processes.add(new ProcessBuilder(command).inheritIO().start());
+            }
+            for (Process process : processes) {
+                int exitValue = process.waitFor();
+                if (exitValue != 0) {
+                    throw new IllegalStateException(String.format("Shard worker exited with %d.", exitValue));
+                }
+            }
+        } finally {
+            processes.forEach(Process::destroy);
+        }
+    }
+
+    /**
+     * Whether a JVM option of this process is passed on to the workers.
+     * Agents, such as the debugger's jdwp, and remote management listen on
+     * ports, which only one process can bind.
+     *
+     * @param option JVM option
+     * @return false for the options of agents and remote management
+     */
+    static boolean isWorkerOption(String option) {
+        return !(option.startsWith("-agentlib:")
+                || option.startsWith("-agentpath:")
+                || option.startsWith("-javaagent:")
+                || option.startsWith("-Xrunjdwp")
+                || option.equals("-Xdebug")
+                || option.startsWith("-Dcom.sun.management.jmxremote"));
+    }
+
+    /**
+     * Wait for the outputs of the shard. The local workers have exited by
+     * now, so a shard without outputs is claimed by a worker on another
+     * machine. The shard is searched by a local worker instead if no worker
+     * has claimed it, or once its claim has not been touched for
+     * {@link #CLAIM_TIMEOUT} milliseconds. The touches are timed on this
+     * machine's clock, so the clocks of the machines need not agree.
+     */
+    private Path awaitShard(Path runDir, String shard) throws IOException, InterruptedException {
+        Path shardOutDir = Paths.get(runDir.toString(), shard);
+        Path claimFile = Paths.get(runDir.toString(), shard + CLAIM_EXTENSION);
+
+        FileTime heartbeat = null;
+        long heartbeatTime = System.currentTimeMillis();
+        while (Files.notExists(shardOutDir)) {
+            FileTime lastModifiedTime = getLastModifiedTime(claimFile);
+            if (lastModifiedTime == null) {
+                runWorkers(runDir, 1);
+            } else if (!lastModifiedTime.equals(heartbeat)) {
+                heartbeat = lastModifiedTime;
+                heartbeatTime = System.currentTimeMillis();
+            } else if (System.currentTimeMillis() - heartbeatTime > CLAIM_TIMEOUT) {
+                // the worker, if alive, drops its outputs once it finds its claim gone
+                System.out.printf("Releasing %s, whose worker stopped responding.%n", shard);
+                Files.deleteIfExists(claimFile);
+            } else {
+                Thread.sleep(POLL_INTERVAL);
+            }
+        }
+
+        return shardOutDir;
+    }
+
+    private static FileTime getLastModifiedTime(Path file) throws IOException {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (NoSuchFileException exception) {
+            return null;
+        }
+    }
+
+}
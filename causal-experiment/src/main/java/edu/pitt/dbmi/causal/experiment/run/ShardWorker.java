@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.run;
+
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.util.Parameters;
+import edu.pitt.dbmi.causal.experiment.data.SimulatedData;
+import edu.pitt.dbmi.causal.experiment.tetrad.EdgeTypeAggregator;
+import edu.pitt.dbmi.causal.experiment.tetrad.PagEnsembleWriter;
+import edu.pitt.dbmi.causal.experiment.util.FileIO;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Searches the ranges of replicates of a sharded bootstrap run (see
+ * {@link ShardCoordinator}). The worker claims the tasks in the shard
+ * directory one at a time, and exits once there are none left to claim.
+ *
+ * Each claim holds a token of its own. The outputs of a range are written
+ * to a temporary directory named after the token, which is renamed once
+ * complete, so the coordinator never reads a range that is only partly
+ * written. While it searches a range, the worker touches its claim every
+ * {@link ShardCoordinator#HEARTBEAT_INTERVAL} milliseconds so that the
+ * coordinator can tell it is still alive. A worker that stalls for too long
+ * may find its claim released by the coordinator and claimed by another
+ * worker; it then stops touching the claim and drops its outputs.
+ *
+ * May 10, 2023 11:47:30 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class ShardWorker {
+
+    private final Path shardDir;
+    private final DataSet dataSet;
+    private final Parameters parameters;
+    private final long seed;
+    private final ShardableRunner runner;
+    private final ScheduledExecutorService heartbeats;
+
+    private ShardWorker(Path shardDir, DataSet dataSet, Parameters parameters, long seed, ShardableRunner runner, ScheduledExecutorService heartbeats) {
+        this.shardDir = shardDir;
+        this.dataSet = dataSet;
+        this.parameters = parameters;
+        this.seed = seed;
+        this.runner = runner;
+        this.heartbeats = heartbeats;
+    }
+
+    /**
+     * Search the tasks of the shard directory until there are none left to
+     * claim.
+     *
+     * @param shardDir run directory shared with the coordinator
+     * @throws IllegalArgumentException if the runner of the run cannot be
+     * sharded
+     * @throws Exception
+     */
+    public static void run(Path shardDir) throws Exception {
+        String runnerName;
+        DataSet dataSet;
+        Parameters parameters;
+        long seed;
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(Paths.get(shardDir.toString(), ShardCoordinator.JOB_FILE_NAME))))) {
+            runnerName = in.readUTF();
+            dataSet = (DataSet) in.readObject();
+            parameters = (Parameters) in.readObject();
+            seed = in.readLong();
+        }
+
+        // the worker only searches, so the runner does not need the true graphs
+        ShardableRunner runner = RunnerType.fromName(runnerName).createShardableRunner(new SimulatedData(dataSet, null, null), parameters);
+
+        ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shard-heartbeat");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+        try {
+            ShardWorker worker = new ShardWorker(shardDir, dataSet, parameters, seed, runner, heartbeats);
+            Claim claim;
+            while ((claim = worker.claimTask()) != null) {
+                worker.search(claim);
+            }
+        } finally {
+            heartbeats.shutdownNow();
+        }
+    }
+
+    /**
+     * Claim the first task no worker has claimed. A task released by the
+     * coordinator may have been completed by its first worker after all, so
+     * a task with outputs is skipped.
+     *
+     * @return the claim of the task, or null if there are no tasks left
+     */
+    private Claim claimTask() throws IOException {
+        List<String> shards;
+        try (Stream<Path> files = Files.list(shardDir)) {
+            shards = files
+                    .map(file -> file.getFileName().toString())
+                    .filter(fileName -> fileName.endsWith(ShardCoordinator.TASK_EXTENSION))
+                    .map(fileName -> fileName.substring(0, fileName.length() - ShardCoordinator.TASK_EXTENSION.length()))
+                    .filter(shard -> Files.notExists(Paths.get(shardDir.toString(), shard)))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        for (String shard : shards) {
+            try {
+                Path claimFile = Files.createFile(Paths.get(shardDir.toString(), shard + ShardCoordinator.CLAIM_EXTENSION));
+                Claim claim = new Claim(shard, UUID.randomUUID().toString());
+                Files.write(claimFile, claim.token.getBytes(StandardCharsets.UTF_8));
+
+                return claim;
+            } catch (FileAlreadyExistsException exception) {
+                // claimed by another worker
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Search the replicates of the shard, named shard_fromIndex_toIndex.
+     */
+    private void search(Claim claim) throws Exception {
+        String[] range = claim.shard.split("_");
+        int fromIndex = Integer.parseInt(range[1]);
+        int toIndex = Integer.parseInt(range[2]);
+
+        ScheduledFuture<?> heartbeat = heartbeats.scheduleWithFixedDelay(
+                () -> touch(claim),
+                ShardCoordinator.HEARTBEAT_INTERVAL,
+                ShardCoordinator.HEARTBEAT_INTERVAL,
+                TimeUnit.MILLISECONDS);
+        try {
+            searchRange(claim, fromIndex, toIndex);
+        } finally {
+            heartbeat.cancel(false);
+        }
+    }
+
+    private void searchRange(Claim claim, int fromIndex, int toIndex) throws Exception {
+        Path tempDir = Paths.get(shardDir.toString(), claim.shard + "." + claim.token + ShardCoordinator.TEMP_EXTENSION);
+        FileIO.createNewDirectory(tempDir);
+
+        EdgeTypeAggregator edgeTypeAggregator = new EdgeTypeAggregator();
+        SearchResults searchResults;
+        Path ensembleFile = Paths.get(tempDir.toString(), ShardCoordinator.ENSEMBLE_FILE_NAME);
+        try (PagEnsembleWriter ensembleWriter = new PagEnsembleWriter(ensembleFile, dataSet.getVariables(), parameters.getBoolean(RunnerParams.ENSEMBLE_REMOVE_DUPLICATES, true))) {
+            searchResults = runner.searchShard(seed, fromIndex, toIndex, AbstractRunner.collectLegalPags(edgeTypeAggregator, ensembleWriter));
+        }
+        edgeTypeAggregator.write(Paths.get(tempDir.toString(), ShardCoordinator.COUNTS_FILE_NAME));
+
+        Properties properties = new Properties();
+        properties.setProperty(ShardCoordinator.NUM_OF_LEGAL_PAGS, String.valueOf(searchResults.getNumOfLegalPags()));
+        properties.setProperty(ShardCoordinator.NUM_OF_SEARCH_RUNS, String.valueOf(searchResults.getNumOfSearchRuns()));
+        try (OutputStream out = Files.newOutputStream(Paths.get(tempDir.toString(), ShardCoordinator.RESULTS_FILE_NAME))) {
+            properties.store(out, "Shard search results");
+        }
+
+        // the outputs of a worker whose claim was released are dropped, unless no one else has written them
+        Path shardOutDir = Paths.get(shardDir.toString(), claim.shard);
+        if (isOwner(claim) && Files.notExists(shardOutDir)) {
+            try {
+                Files.move(tempDir, shardOutDir, StandardCopyOption.ATOMIC_MOVE);
+
+                return;
+            } catch (FileAlreadyExistsException | DirectoryNotEmptyException exception) {
+                // written by the worker the claim was taken from, which searched the same replicates
+            }
+        }
+        FileIO.deleteDirectory(tempDir);
+    }
+
+    /**
+     * Whether the claim file still holds the token of the claim.
+     */
+    private boolean isOwner(Claim claim) throws IOException {
+        try {
+            byte[] token = Files.readAllBytes(getClaimFile(claim));
+
+            return claim.token.equals(new String(token, StandardCharsets.UTF_8));
+        } catch (NoSuchFileException exception) {
+            return false;
+        }
+    }
+
+    private Path getClaimFile(Claim claim) {
+        return Paths.get(shardDir.toString(), claim.shard + ShardCoordinator.CLAIM_EXTENSION);
+    }
+
+    /**
+     * Set the last-modified time of the claim file, as long as it holds the
+     * token of the claim. Once the coordinator has released the claim, the
+     * file is gone or belongs to the worker that claimed the task next.
+     */
+    private void touch(Claim claim) {
+        Path claimFile = getClaimFile(claim);
+        try {
+            if (isOwner(claim)) {
+                Files.setLastModifiedTime(claimFile, FileTime.fromMillis(System.currentTimeMillis()));
+            }
+        } catch (IOException exception) {
+            System.err.printf("Unable to touch %s: %s%n", claimFile, exception.getMessage());
+        }
+    }
+
+    /**
+     * A claimed task: the name of its shard and the token of the claim.
+     */
+    private static final class Claim {
+
+        private final String shard;
+
+        private final String token;
+
+        private Claim(String shard, String token) {
+            this.shard = shard;
+            this.token = token;
+        }
+
+    }
+
+}
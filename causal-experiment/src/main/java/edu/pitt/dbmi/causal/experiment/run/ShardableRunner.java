@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.run;
+
+import edu.cmu.tetrad.graph.Graph;
+import java.util.function.Consumer;
+
+/**
+ * A runner whose searches can be split among the workers of a sharded run
+ * (see {@link ShardCoordinator}).
+ *
+ * May 12, 2023 9:36:18 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public interface ShardableRunner {
+
+    /**
+     * Search the replicates at indices fromIndex to toIndex - 1, for a
+     * worker of a sharded search.
+     *
+     * @param seed base seed of the replicates, resolved once by the run
+     * @param fromIndex index of the first replicate
+     * @param toIndex index after the last replicate
+     * @param legalPags consumer of the legal PAGs
+     * @return the search counts of the range
+     * @throws Exception
+     */
+    SearchResults searchShard(long seed, int fromIndex, int toIndex, Consumer<Graph> legalPags) throws Exception;
+
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.tetrad;
+
+import edu.cmu.tetrad.graph.Edge;
+import edu.cmu.tetrad.graph.Endpoint;
+import edu.cmu.tetrad.graph.Node;
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.Point2D;
+import java.awt.geom.RoundRectangle2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Places the nodes of a graph on a circle and works out where the edges
+ * meet the nodes, for the graph image renderers. The nodes are placed the
+ * way LayoutUtil.circleLayout places them, but the positions are kept here
+ * rather than set on the nodes, so graphs that share nodes can be drawn at
+ * the same time.
+ *
+ * Apr 30, 2023 9:42:16 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+final class CircleLayout {
+
+    static final Font NODE_FONT = new Font("Dialog", Font.BOLD, 12);
+
+    static final double NODE_PADDING_X = 8;
+    static final double NODE_PADDING_Y = 5;
+    static final double ARROW_LENGTH = 12;
+    static final double ARROW_HALF_WIDTH = 5;
+    static final double CIRCLE_RADIUS = 4;
+
+    private static final FontRenderContext FONT_RENDER_CONTEXT = new FontRenderContext(null, true, true);
+
+    private final Map<Node, RoundRectangle2D> nodeShapes;
+    private final double nodeHeight;
+
+    /**
+     * Place the nodes, sorted, on a circle starting at the top.
+     *
+     * @param nodes nodes to place
+     * @param width width of the drawing
+     * @param height height of the drawing
+     */
+    CircleLayout(List<Node> nodes, int width, int height) {
+        List<Node> sortedNodes = new ArrayList<>(nodes);
+        Collections.sort(sortedNodes);
+
+        int centerX = width / 2;
+        int centerY = height / 2;
+        int radius = (int) (width * 0.40);
+
+        this.nodeHeight = getTextHeight() + 2 * NODE_PADDING_Y;
+        this.nodeShapes = new HashMap<>();
+
+        double rad = 6.28 / sortedNodes.size();
+        double phi = 4.71;
+        for (Node node : sortedNodes) {
+            int x = centerX + (int) (radius * Math.cos(phi));
+            int y = centerY + (int) (radius * Math.sin(phi));
+
+            double nodeWidth = getTextWidth(node.getName()) + 2 * NODE_PADDING_X;
+            nodeShapes.put(node, new RoundRectangle2D.Double(
+                    x - nodeWidth / 2, y - nodeHeight / 2,
+                    nodeWidth, nodeHeight,
+                    nodeHeight / 2, nodeHeight / 2));
+
+            phi += rad;
+        }
+    }
+
+    /**
+     * Get the width a drawing needs for its nodes not to overlap on the
+     * circle, which is at least the given width.
+     *
+     * @param nodes nodes to place
+     * @param minWidth smallest width
+     * @return the width of the drawing
+     */
+    static int getWidth(List<Node> nodes, int minWidth) {
+        double circumference = 0;
+        for (Node node : nodes) {
+            circumference += getTextWidth(node.getName()) + 2 * NODE_PADDING_X + ARROW_LENGTH;
+        }
+
+        // the nodes are on a circle with a radius of 40% of the width
+        return Math.max(minWidth, (int) Math.ceil(circumference / (2 * Math.PI * 0.40)));
+    }
+
+    static double getTextWidth(String text) {
+        return NODE_FONT.getStringBounds(text, FONT_RENDER_CONTEXT).getWidth();
+    }
+
+    static double getTextHeight() {
+        return NODE_FONT.getLineMetrics("X", FONT_RENDER_CONTEXT).getHeight();
+    }
+
+    /**
+     * @return the distance from the top of the text to its baseline
+     */
+    static double getTextAscent() {
+        return NODE_FONT.getLineMetrics("X", FONT_RENDER_CONTEXT).getAscent();
+    }
+
+    Map<Node, RoundRectangle2D> getNodeShapes() {
+        return nodeShapes;
+    }
+
+    RoundRectangle2D getNodeShape(Node node) {
+        return nodeShapes.get(node);
+    }
+
+    /**
+     * Get the ends of the edge on the borders of its nodes.
+     *
+     * @param edge edge
+     * @return the points where the edge meets node 1 and node 2
+     */
+    Point2D[] getEdgeEnds(Edge edge) {
+        RoundRectangle2D shape1 = nodeShapes.get(edge.getNode1());
+        RoundRectangle2D shape2 = nodeShapes.get(edge.getNode2());
+
+        return new Point2D[]{getBoundaryPoint(shape1, shape2), getBoundaryPoint(shape2, shape1)};
+    }
+
+    /**
+     * Get the ends of the line of the edge, which stops short of the arrow
+     * and circle endpoints so it does not run through them.
+     *
+     * @param ends ends of the edge on the borders of its nodes
+     * @param edge edge
+     * @return the ends of the line
+     */
+    static Point2D[] getLineEnds(Point2D[] ends, Edge edge) {
+        return new Point2D[]{
+            shorten(ends[0], ends[1], getEndpointLength(edge.getEndpoint1())),
+            shorten(ends[1], ends[0], getEndpointLength(edge.getEndpoint2()))
+        };
+    }
+
+    private static double getEndpointLength(Endpoint endpoint) {
+        switch (endpoint) {
+            case ARROW:
+                return ARROW_LENGTH;
+            case CIRCLE:
+                return 2 * CIRCLE_RADIUS;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Move the point toward the other point by the given distance.
+     */
+    private static Point2D shorten(Point2D point, Point2D toward, double distance) {
+        double dx = toward.getX() - point.getX();
+        double dy = toward.getY() - point.getY();
+        double length = Math.hypot(dx, dy);
+        if (length <= distance) {
+            return point;
+        }
+
+        return new Point2D.Double(point.getX() + dx / length * distance, point.getY() + dy / length * distance);
+    }
+
+    /**
+     * Find where the line between the centers of the shapes leaves the first
+     * shape. The rounded corners are treated as square.
+     */
+    private static Point2D getBoundaryPoint(RoundRectangle2D shape, RoundRectangle2D other) {
+        double cx = shape.getCenterX();
+        double cy = shape.getCenterY();
+        double dx = other.getCenterX() - cx;
+        double dy = other.getCenterY() - cy;
+        if (dx == 0 && dy == 0) {
+            return new Point2D.Double(cx, cy);
+        }
+
+        double scaleX = (dx == 0) ? Double.POSITIVE_INFINITY : (shape.getWidth() / 2) / Math.abs(dx);
+        double scaleY = (dy == 0) ? Double.POSITIVE_INFINITY : (shape.getHeight() / 2) / Math.abs(dy);
+        double scale = Math.min(scaleX, scaleY);
+
+        return new Point2D.Double(cx + dx * scale, cy + dy * scale);
+    }
+
+}
@@ -0,0 +1,432 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.tetrad;
+
+import edu.cmu.tetrad.graph.Edge;
+import edu.cmu.tetrad.graph.EdgeListGraph;
+import edu.cmu.tetrad.graph.EdgeTypeProbability;
+import edu.cmu.tetrad.graph.EdgeTypeProbability.EdgeType;
+import edu.cmu.tetrad.graph.Endpoint;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.GraphNode;
+import edu.cmu.tetrad.graph.GraphUtils;
+import edu.cmu.tetrad.graph.Node;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Folds PAGs into per-node-pair edge-type counts, one graph at a time, and
+ * builds the high-edge-probability graph from the counts. A graph can be
+ * discarded as soon as it has been added.
+ *
+ * Adding the graphs in the order they are in the list gives the same graph
+ * as GraphSampling.createGraphWithHighProbabilityEdges(graphs), including
+ * the orientation of the node pairs and the edge properties. Edge types
+ * with equal probabilities are kept in the order they were first seen, so
+ * the graph depends only on the order of the graphs, whereas GraphSampling
+ * orders them by hash code, which changes from one JVM to the next.
+ *
+ * The counts can be written to a file and merged, so the graphs can be
+ * split into consecutive runs that are counted apart, e.g. by different
+ * processes. Merging the counts of the runs in order gives the same graph
+ * as adding all the graphs to one aggregator.
+ *
+ * Apr 20, 2023 4:12:37 PM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class EdgeTypeAggregator {
+
+    private static final int MAGIC = 0x45544143; // "ETAC"
+    private static final int VERSION = 1;
+
+    private static final EdgeType[] EDGE_TYPES = EdgeType.values();
+    private static final Edge.Property[] EDGE_PROPERTIES = Edge.Property.values();
+
+    private final Map<NodePair, EdgeTypeCounts> edgeTypeCounts = new HashMap<>();
+
+    private List<Node> nodes;
+
+    private int numOfGraphs;
+
+    /**
+     * Add the edges of the graph to the counts. Null graphs are ignored.
+     *
+     * @param graph PAG
+     */
+    public synchronized void add(Graph graph) {
+        if (graph == null) {
+            return;
+        }
+
+        GraphUtils.addPagColoring(graph);
+
+        if (nodes == null) {
+            nodes = graph.getNodes();
+        }
+
+        for (Edge edge : graph.getEdges()) {
+            Node node1 = edge.getNode1();
+            Node node2 = edge.getNode2();
+
+            NodePair nodePair = new NodePair(node1.getName(), node2.getName());
+            EdgeTypeCounts counts = edgeTypeCounts.get(nodePair);
+            if (counts == null) {
+                counts = new EdgeTypeCounts(nodePair);
+                edgeTypeCounts.put(nodePair, counts);
+            }
+
+            // count the edge type with respect to the first-seen orientation
+            EdgeType edgeType = counts.nodePair.node1.equals(node1.getName())
+                    ? Edges.getEdgeType(edge, node1, node2)
+                    : Edges.getEdgeType(edge, node2, node1);
+            counts.add(edgeType, edge.getProperties());
+        }
+
+        numOfGraphs++;
+    }
+
+    /**
+     * Add the counts of the other aggregator, as if its graphs were added
+     * after the graphs already added to this one. The other aggregator must
+     * not be changed while it is merged.
+     *
+     * @param other edge-type counts of the graphs that follow
+     */
+    public synchronized void merge(EdgeTypeAggregator other) {
+        if (nodes == null) {
+            nodes = other.nodes;
+        }
+
+        for (EdgeTypeCounts otherCounts : other.edgeTypeCounts.values()) {
+            EdgeTypeCounts counts = edgeTypeCounts.get(otherCounts.nodePair);
+            if (counts == null) {
+                counts = new EdgeTypeCounts(otherCounts.nodePair);
+                edgeTypeCounts.put(otherCounts.nodePair, counts);
+            }
+
+            // count the edge types with respect to the first-seen orientation
+            boolean reversed = !counts.nodePair.node1.equals(otherCounts.nodePair.node1);
+            for (EdgeType edgeType : otherCounts.edgeTypes) {
+                int index = edgeType.ordinal();
+                counts.add(reversed ? Edges.getReversed(edgeType) : edgeType, otherCounts.counts[index], otherCounts.properties.get(edgeType));
+            }
+        }
+
+        numOfGraphs += other.numOfGraphs;
+    }
+
+    /**
+     * Write the counts to the file, to be read back by {@link #read(Path)}.
+     *
+     * @param file file of the counts
+     * @throws IOException
+     */
+    public synchronized void write(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(numOfGraphs);
+
+            List<Node> nodeList = (nodes == null) ? Collections.emptyList() : nodes;
+            out.writeInt(nodeList.size());
+            for (Node node : nodeList) {
+                out.writeUTF(node.getName());
+            }
+
+            out.writeInt(edgeTypeCounts.size());
+            for (EdgeTypeCounts counts : edgeTypeCounts.values()) {
+                out.writeUTF(counts.nodePair.node1);
+                out.writeUTF(counts.nodePair.node2);
+                out.writeByte(counts.edgeTypes.size());
+                for (EdgeType edgeType : counts.edgeTypes) {
+                    int index = edgeType.ordinal();
+                    out.writeByte(index);
+                    out.writeInt(counts.counts[index]);
+                    out.writeByte(counts.properties.get(edgeType).size());
+                    for (Edge.Property property : counts.properties.get(edgeType)) {
+                        out.writeByte(property.ordinal());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the counts written by {@link #write(Path)}.
+     *
+     * @param file file of the counts
+     * @return the edge-type counts
+     * @throws IOException
+     */
+    public static EdgeTypeAggregator read(Path file) throws IOException {
+        EdgeTypeAggregator aggregator = new EdgeTypeAggregator();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(String.format("%s is not an edge-type count file.", file));
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException(String.format("Unsupported edge-type count version %d.", version));
+            }
+            aggregator.numOfGraphs = in.readInt();
+
+            int numOfNodes = in.readInt();
+            if (numOfNodes > 0) {
+                List<Node> nodeList = new ArrayList<>(numOfNodes);
+                for (int i = 0; i < numOfNodes; i++) {
+                    nodeList.add(new GraphNode(in.readUTF()));
+                }
+                aggregator.nodes = nodeList;
+            }
+
+            int numOfNodePairs = in.readInt();
+            for (int i = 0; i < numOfNodePairs; i++) {
+                NodePair nodePair = new NodePair(in.readUTF(), in.readUTF());
+                EdgeTypeCounts counts = new EdgeTypeCounts(nodePair);
+                int numOfEdgeTypes = in.readByte();
+                for (int j = 0; j < numOfEdgeTypes; j++) {
+                    EdgeType edgeType = EDGE_TYPES[in.readByte()];
+                    int count = in.readInt();
+                    int numOfProperties = in.readByte();
+                    List<Edge.Property> properties = new ArrayList<>(numOfProperties);
+                    for (int k = 0; k < numOfProperties; k++) {
+                        properties.add(EDGE_PROPERTIES[in.readByte()]);
+                    }
+                    counts.add(edgeType, count, properties);
+                }
+                aggregator.edgeTypeCounts.put(nodePair, counts);
+            }
+        }
+
+        return aggregator;
+    }
+
+    /**
+     * Get the number of graphs added.
+     *
+     * @return number of graphs
+     */
+    public synchronized int getNumOfGraphs() {
+        return numOfGraphs;
+    }
+
+    /**
+     * Get the largest width of the confidence interval of the probability of
+     * any edge type, including no edge, of any node pair seen so far. The
+     * interval is the Wilson score interval of the binomial proportion,
+     * which, unlike the normal approximation, does not shrink to nothing
+     * when an edge type is in none or all of the graphs.
+     *
+     * @param z critical value of the interval, e.g. 1.96 for 95%
+     * @return largest confidence-interval width
+     */
+    public synchronized double getMaxConfidenceIntervalWidth(double z) {
+        double maxWidth = 0;
+        for (EdgeTypeCounts counts : edgeTypeCounts.values()) {
+            for (EdgeType edgeType : counts.edgeTypes) {
+                maxWidth = Math.max(maxWidth, getConfidenceIntervalWidth(counts.counts[edgeType.ordinal()], z));
+            }
+            maxWidth = Math.max(maxWidth, getConfidenceIntervalWidth(numOfGraphs - counts.numOfEdges, z));
+        }
+
+        return maxWidth;
+    }
+
+    private double getConfidenceIntervalWidth(int count, double z) {
+        double n = numOfGraphs;
+        double probability = count / n;
+        double zSquared = z * z;
+
+        return 2 * z * Math.sqrt(probability * (1 - probability) / n + zSquared / (4 * n * n)) / (1 + zSquared / n);
+    }
+
+    /**
+     * Create a graph with the highest-probability edge for each node pair.
+     *
+     * @return high-edge-probability graph
+     */
+    public synchronized Graph createGraphWithHighProbabilityEdges() {
+        if (numOfGraphs == 0) {
+            return new EdgeListGraph();
+        }
+
+        Node[] graphNodes = nodes.stream().toArray(Node[]::new);
+        Arrays.sort(graphNodes);
+        Graph graph = new EdgeListGraph(Arrays.asList(graphNodes));
+
+        List<NodePair> nodePairs = new ArrayList<>(edgeTypeCounts.keySet());
+        Collections.sort(nodePairs);
+        for (NodePair nodePair : nodePairs) {
+            List<EdgeTypeProbability> edgeTypeProbabilities = edgeTypeCounts.get(nodePair).getEdgeTypeProbabilities(numOfGraphs);
+
+            // the probabilities are sorted, highest first
+            Edge highestProbEdge = createEdge(edgeTypeProbabilities.get(0), graph.getNode(nodePair.node1), graph.getNode(nodePair.node2));
+            if (nodePair.node1.equals(highestProbEdge.getNode1().getName())) {
+                edgeTypeProbabilities.forEach(highestProbEdge::addEdgeTypeProbability);
+            } else {
+                edgeTypeProbabilities.forEach(etp -> {
+                    etp.setEdgeType(Edges.getReversed(etp.getEdgeType()));
+                    highestProbEdge.addEdgeTypeProbability(etp);
+                });
+            }
+
+            graph.addEdge(highestProbEdge);
+        }
+
+        graph.getEdges().forEach(edge -> {
+            double probability = edge.getEdgeTypeProbabilities().stream()
+                    .filter(etp -> etp.getEdgeType() != EdgeType.nil)
+                    .mapToDouble(EdgeTypeProbability::getProbability)
+                    .sum();
+            edge.setProbability(probability);
+        });
+
+        return graph;
+    }
+
+    private static Edge createEdge(EdgeTypeProbability edgeTypeProbability, Node node1, Node node2) {
+        switch (edgeTypeProbability.getEdgeType()) {
+            case ta:
+                return new Edge(node1, node2, Endpoint.TAIL, Endpoint.ARROW);
+            case at:
+                return new Edge(node1, node2, Endpoint.ARROW, Endpoint.TAIL);
+            case ca:
+                return new Edge(node1, node2, Endpoint.CIRCLE, Endpoint.ARROW);
+            case ac:
+                return new Edge(node1, node2, Endpoint.ARROW, Endpoint.CIRCLE);
+            case cc:
+                return new Edge(node1, node2, Endpoint.CIRCLE, Endpoint.CIRCLE);
+            case aa:
+                return new Edge(node1, node2, Endpoint.ARROW, Endpoint.ARROW);
+            case tt:
+                return new Edge(node1, node2, Endpoint.TAIL, Endpoint.TAIL);
+            default:
+                return new Edge(node1, node2, Endpoint.NULL, Endpoint.NULL);
+        }
+    }
+
+    private static final class EdgeTypeCounts {
+
+        private final NodePair nodePair;
+
+        private final int[] counts = new int[EdgeType.values().length];
+
+        private final Map<EdgeType, List<Edge.Property>> properties = new EnumMap<>(EdgeType.class);
+
+        private final List<EdgeType> edgeTypes = new ArrayList<>(2);
+
+        private int numOfEdges;
+
+        public EdgeTypeCounts(NodePair nodePair) {
+            this.nodePair = nodePair;
+        }
+
+        public void add(EdgeType edgeType, List<Edge.Property> edgeProperties) {
+            add(edgeType, 1, edgeProperties);
+        }
+
+        /**
+         * Add the count of the edge type. The properties are the ones of the
+         * last edge of the type.
+         */
+        public void add(EdgeType edgeType, int count, List<Edge.Property> edgeProperties) {
+            int index = edgeType.ordinal();
+            if (counts[index] == 0) {
+                edgeTypes.add(edgeType);
+            }
+            counts[index] += count;
+            properties.put(edgeType, edgeProperties);
+            numOfEdges += count;
+        }
+
+        public List<EdgeTypeProbability> getEdgeTypeProbabilities(int numOfGraphs) {
+            // edge types with equal probabilities stay in the order they were
+            // first seen, which only depends on the order of the graphs
+            List<EdgeTypeProbability> edgeTypeProbabilities = new ArrayList<>(edgeTypes.size() + 1);
+            for (EdgeType edgeType : edgeTypes) {
+                double probability = (double) counts[edgeType.ordinal()] / numOfGraphs;
+                edgeTypeProbabilities.add(new EdgeTypeProbability(edgeType, new ArrayList<>(properties.get(edgeType)), probability));
+            }
+
+            int numOfNullEdges = numOfGraphs - numOfEdges;
+            if (numOfNullEdges > 0 && numOfNullEdges < numOfGraphs) {
+                edgeTypeProbabilities.add(new EdgeTypeProbability(EdgeType.nil, (double) numOfNullEdges / numOfGraphs));
+            }
+
+            // stable sort, highest probability first
+            edgeTypeProbabilities.sort((etp1, etp2) -> Double.compare(etp2.getProbability(), etp1.getProbability()));
+
+            return edgeTypeProbabilities;
+        }
+
+    }
+
+    private static final class NodePair implements Comparable<NodePair> {
+
+        private final String node1;
+        private final String node2;
+
+        public NodePair(String node1, String node2) {
+            this.node1 = node1;
+            this.node2 = node2;
+        }
+
+        @Override
+        public int compareTo(NodePair other) {
+            int comparison = node1.compareTo(other.node1);
+
+            return (comparison == 0) ? node2.compareTo(other.node2) : comparison;
+        }
+
+        @Override
+        public int hashCode() {
+            return node1.hashCode() + node2.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+
+            NodePair other = (NodePair) obj;
+
+            return (node1.equals(other.node1) && node2.equals(other.node2))
+                    || (node1.equals(other.node2) && node2.equals(other.node1));
+        }
+
+    }
+
+}
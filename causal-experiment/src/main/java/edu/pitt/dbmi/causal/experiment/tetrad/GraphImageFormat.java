@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.tetrad;
+
+/**
+ * Image formats the graphs can be exported as.
+ *
+ * May 2, 2023 11:05:12 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public enum GraphImageFormat {
+
+    /**
+     * Raster image drawn by {@link GraphImageRenderer}.
+     */
+    PNG("png"),
+    /**
+     * Vector image streamed by {@link GraphSvgWriter}.
+     */
+    SVG("svg"),
+    /**
+     * No image.
+     */
+    NONE(null);
+
+    private final String extension;
+
+    private GraphImageFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Get the file extension of the format.
+     *
+     * @return file extension, or null for no image
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.tetrad;
+
+import edu.cmu.tetrad.graph.Edge;
+import edu.cmu.tetrad.graph.Endpoint;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.Node;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Stroke;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * Draws a graph in a circle layout straight onto an image with Java2D. No
+ * AWT component is created, so it works in headless mode.
+ *
+ * The nodes are placed by {@link CircleLayout}. Edges marked dd are drawn
+ * green, pd blue, nl thick and pl dashed, as in the Tetrad workbench.
+ *
+ * Apr 29, 2023 2:18:36 PM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public final class GraphImageRenderer {
+
+    static final Color BACKGROUND_COLOR = Color.WHITE;
+    static final Color NODE_FILL_COLOR = new Color(148, 198, 226);
+    static final Color NODE_BORDER_COLOR = Color.BLACK;
+    static final Color EDGE_COLOR = Color.BLACK;
+    static final Color DEFINITELY_DIRECT_EDGE_COLOR = new Color(0, 128, 0);
+    static final Color POSSIBLY_DIRECT_EDGE_COLOR = Color.BLUE;
+
+    static final float EDGE_WIDTH = 1.0f;
+    static final float THICK_EDGE_WIDTH = 2.5f;
+    static final float[] EDGE_DASH = {6.0f, 4.0f};
+
+    private static final Stroke EDGE_STROKE = new BasicStroke(EDGE_WIDTH);
+    private static final Stroke THICK_EDGE_STROKE = new BasicStroke(THICK_EDGE_WIDTH);
+    private static final Stroke DASHED_EDGE_STROKE = new BasicStroke(EDGE_WIDTH, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f, EDGE_DASH, 0.0f);
+    private static final Stroke THICK_DASHED_EDGE_STROKE = new BasicStroke(THICK_EDGE_WIDTH, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10.0f, EDGE_DASH, 0.0f);
+    private static final Stroke ENDPOINT_STROKE = new BasicStroke(1.0f);
+
+    private GraphImageRenderer() {
+    }
+
+    /**
+     * Draw the graph in a circle layout.
+     *
+     * @param graph graph to draw
+     * @param width image width
+     * @param height image height
+     * @return the image
+     */
+    public static BufferedImage render(Graph graph, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setColor(BACKGROUND_COLOR);
+            g.fillRect(0, 0, width, height);
+            g.setFont(CircleLayout.NODE_FONT);
+
+            CircleLayout layout = new CircleLayout(graph.getNodes(), width, height);
+            for (Edge edge : graph.getEdges()) {
+                drawEdge(g, edge, layout);
+            }
+            layout.getNodeShapes().forEach((node, shape) -> drawNode(g, node, shape));
+        } finally {
+            g.dispose();
+        }
+
+        return image;
+    }
+
+    /**
+     * Get the color of the edge from its PAG properties.
+     */
+    static Color getEdgeColor(Edge edge) {
+        List<Edge.Property> properties = edge.getProperties();
+        if (properties.contains(Edge.Property.dd)) {
+            return DEFINITELY_DIRECT_EDGE_COLOR;
+        } else if (properties.contains(Edge.Property.pd)) {
+            return POSSIBLY_DIRECT_EDGE_COLOR;
+        } else {
+            return EDGE_COLOR;
+        }
+    }
+
+    private static void drawNode(Graphics2D g, Node node, RoundRectangle2D shape) {
+        g.setColor(NODE_FILL_COLOR);
+        g.fill(shape);
+        g.setColor(NODE_BORDER_COLOR);
+        g.setStroke(ENDPOINT_STROKE);
+        g.draw(shape);
+
+        String name = node.getName();
+        float x = (float) (shape.getCenterX() - CircleLayout.getTextWidth(name) / 2);
+        float y = (float) (shape.getCenterY() - CircleLayout.getTextHeight() / 2 + CircleLayout.getTextAscent());
+        g.drawString(name, x, y);
+    }
+
+    private static void drawEdge(Graphics2D g, Edge edge, CircleLayout layout) {
+        Point2D[] ends = layout.getEdgeEnds(edge);
+        Point2D[] lineEnds = CircleLayout.getLineEnds(ends, edge);
+
+        List<Edge.Property> properties = edge.getProperties();
+        boolean thick = properties.contains(Edge.Property.nl);
+        boolean dashed = properties.contains(Edge.Property.pl);
+        Color color = getEdgeColor(edge);
+
+        g.setColor(color);
+        g.setStroke(thick
+                ? (dashed ? THICK_DASHED_EDGE_STROKE : THICK_EDGE_STROKE)
+                : (dashed ? DASHED_EDGE_STROKE : EDGE_STROKE));
+        g.draw(new Line2D.Double(lineEnds[0], lineEnds[1]));
+
+        g.setStroke(ENDPOINT_STROKE);
+        drawEndpoint(g, edge.getEndpoint1(), ends[0], ends[1], color);
+        drawEndpoint(g, edge.getEndpoint2(), ends[1], ends[0], color);
+    }
+
+    /**
+     * Draw the endpoint at the tip, on the line coming from the other end.
+     */
+    private static void drawEndpoint(Graphics2D g, Endpoint endpoint, Point2D tip, Point2D from, Color color) {
+        double dx = tip.getX() - from.getX();
+        double dy = tip.getY() - from.getY();
+        double length = Math.hypot(dx, dy);
+        if (length == 0) {
+            return;
+        }
+        double ux = dx / length;
+        double uy = dy / length;
+
+        switch (endpoint) {
+            case ARROW:
+                double baseX = tip.getX() - ux * CircleLayout.ARROW_LENGTH;
+                double baseY = tip.getY() - uy * CircleLayout.ARROW_LENGTH;
+                Path2D arrow = new Path2D.Double();
+                arrow.moveTo(tip.getX(), tip.getY());
+                arrow.lineTo(baseX - uy * CircleLayout.ARROW_HALF_WIDTH, baseY + ux * CircleLayout.ARROW_HALF_WIDTH);
+                arrow.lineTo(baseX + uy * CircleLayout.ARROW_HALF_WIDTH, baseY - ux * CircleLayout.ARROW_HALF_WIDTH);
+                arrow.closePath();
+                g.setColor(color);
+                g.fill(arrow);
+                break;
+            case CIRCLE:
+                double radius = CircleLayout.CIRCLE_RADIUS;
+                Ellipse2D circle = new Ellipse2D.Double(
+                        tip.getX() - ux * radius - radius,
+                        tip.getY() - uy * radius - radius,
+                        2 * radius, 2 * radius);
+                g.setColor(BACKGROUND_COLOR);
+                g.fill(circle);
+                g.setColor(color);
+                g.draw(circle);
+                break;
+            default:
+                // a tail is the end of the line
+                break;
+        }
+    }
+
+}
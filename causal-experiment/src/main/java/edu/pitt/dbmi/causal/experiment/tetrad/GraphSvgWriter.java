@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.tetrad;
+
+import edu.cmu.tetrad.graph.Edge;
+import edu.cmu.tetrad.graph.EdgeTypeProbability;
+import edu.cmu.tetrad.graph.EdgeTypeProbability.EdgeType;
+import edu.cmu.tetrad.graph.Endpoint;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.Node;
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import java.awt.geom.RoundRectangle2D;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes a graph in a circle layout as an SVG image. The elements are
+ * written out one edge and one node at a time, so no image buffer is held in
+ * memory and the cost grows with the number of edges, not the image size.
+ * The SVG can be rasterized later by any viewer, at any size.
+ *
+ * The layout and the edge colors are the same as the ones of
+ * {@link GraphImageRenderer}. In addition, the stroke width of an edge grows
+ * with its probability when the edge has edge-type probabilities.
+ *
+ * May 2, 2023 10:27:44 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public final class GraphSvgWriter {
+
+    /**
+     * Stroke width of an edge with a probability of 1.
+     */
+    static final double MAX_EDGE_WIDTH = 4.0;
+
+    private GraphSvgWriter() {
+    }
+
+    /**
+     * Write the graph as an SVG image. The image is made wider than the given
+     * width when the nodes do not fit on the circle.
+     *
+     * @param graph graph to write
+     * @param width smallest image width
+     * @param height smallest image height
+     * @param file SVG file
+     * @throws IOException
+     */
+    public static void write(Graph graph, int width, int height, Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            write(graph, width, height, writer);
+        }
+    }
+
+    /**
+     * Write the graph as an SVG image to the writer. The writer is not
+     * closed.
+     *
+     * @param graph graph to write
+     * @param width smallest image width
+     * @param height smallest image height
+     * @param writer writer of the SVG
+     * @throws IOException
+     */
+    public static void write(Graph graph, int width, int height, Writer writer) throws IOException {
+        List<Node> nodes = graph.getNodes();
+        int size = CircleLayout.getWidth(nodes, Math.max(width, height));
+        int imageWidth = Math.max(width, size);
+        int imageHeight = Math.max(height, size);
+
+        writer.write(String.format(Locale.US,
+                "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"%d\" height=\"%d\" viewBox=\"0 0 %d %d\">%n",
+                imageWidth, imageHeight, imageWidth, imageHeight));
+        writer.write(String.format(Locale.US,
+                "<rect width=\"100%%\" height=\"100%%\" fill=\"%s\"/>%n",
+                toHex(GraphImageRenderer.BACKGROUND_COLOR)));
+
+        CircleLayout layout = new CircleLayout(nodes, imageWidth, imageHeight);
+        for (Edge edge : graph.getEdges()) {
+            writeEdge(writer, edge, layout);
+        }
+
+        writer.write(String.format(Locale.US,
+                "<g font-family=\"Dialog, sans-serif\" font-size=\"%d\" font-weight=\"bold\" text-anchor=\"middle\">%n",
+                CircleLayout.NODE_FONT.getSize()));
+        for (Map.Entry<Node, RoundRectangle2D> entry : layout.getNodeShapes().entrySet()) {
+            writeNode(writer, entry.getKey(), entry.getValue());
+        }
+        writer.write(String.format("</g>%n</svg>%n"));
+    }
+
+    /**
+     * Get the stroke width of the edge. An edge without edge-type
+     * probabilities has the normal width. Otherwise the width is its
+     * probability of being present, scaled to the maximum width.
+     */
+    static double getEdgeWidth(Edge edge) {
+        List<EdgeTypeProbability> edgeTypeProbabilities = edge.getEdgeTypeProbabilities();
+        if (edgeTypeProbabilities == null || edgeTypeProbabilities.isEmpty()) {
+            return GraphImageRenderer.EDGE_WIDTH;
+        }
+
+        double probability = edgeTypeProbabilities.stream()
+                .filter(etp -> etp.getEdgeType() != EdgeType.nil)
+                .mapToDouble(EdgeTypeProbability::getProbability)
+                .sum();
+
+        return Math.max(0.5, Math.min(1.0, probability) * MAX_EDGE_WIDTH);
+    }
+
+    private static void writeNode(Writer writer, Node node, RoundRectangle2D shape) throws IOException {
+        writer.write(String.format(Locale.US,
+                "<rect x=\"%.1f\" y=\"%.1f\" width=\"%.1f\" height=\"%.1f\" rx=\"%.1f\" fill=\"%s\" stroke=\"%s\"/>%n",
+                shape.getX(), shape.getY(), shape.getWidth(), shape.getHeight(), shape.getArcWidth() / 2,
+                toHex(GraphImageRenderer.NODE_FILL_COLOR), toHex(GraphImageRenderer.NODE_BORDER_COLOR)));
+        writer.write(String.format(Locale.US,
+                "<text x=\"%.1f\" y=\"%.1f\">%s</text>%n",
+                shape.getCenterX(),
+                shape.getCenterY() - CircleLayout.getTextHeight() / 2 + CircleLayout.getTextAscent(),
+                escape(node.getName())));
+    }
+
+    private static void writeEdge(Writer writer, Edge edge, CircleLayout layout) throws IOException {
+        Point2D[] ends = layout.getEdgeEnds(edge);
+        Point2D[] lineEnds = CircleLayout.getLineEnds(ends, edge);
+
+        List<Edge.Property> properties = edge.getProperties();
+        double width = getEdgeWidth(edge);
+        if (properties.contains(Edge.Property.nl)) {
+            width *= GraphImageRenderer.THICK_EDGE_WIDTH / GraphImageRenderer.EDGE_WIDTH;
+        }
+        String color = toHex(GraphImageRenderer.getEdgeColor(edge));
+
+        writer.write(String.format(Locale.US,
+                "<line x1=\"%.1f\" y1=\"%.1f\" x2=\"%.1f\" y2=\"%.1f\" stroke=\"%s\" stroke-width=\"%.2f\"%s/>%n",
+                lineEnds[0].getX(), lineEnds[0].getY(), lineEnds[1].getX(), lineEnds[1].getY(),
+                color, width,
+                properties.contains(Edge.Property.pl)
+                ? String.format(Locale.US, " stroke-dasharray=\"%.0f,%.0f\"", GraphImageRenderer.EDGE_DASH[0], GraphImageRenderer.EDGE_DASH[1])
+                : ""));
+
+        writeEndpoint(writer, edge.getEndpoint1(), ends[0], ends[1], color);
+        writeEndpoint(writer, edge.getEndpoint2(), ends[1], ends[0], color);
+    }
+
+    /**
+     * Write the endpoint at the tip, on the line coming from the other end.
+     */
+    private static void writeEndpoint(Writer writer, Endpoint endpoint, Point2D tip, Point2D from, String color) throws IOException {
+        double dx = tip.getX() - from.getX();
+        double dy = tip.getY() - from.getY();
+        double length = Math.hypot(dx, dy);
+        if (length == 0) {
+            return;
+        }
+        double ux = dx / length;
+        double uy = dy / length;
+
+        switch (endpoint) {
+            case ARROW:
+                double baseX = tip.getX() - ux * CircleLayout.ARROW_LENGTH;
+                double baseY = tip.getY() - uy * CircleLayout.ARROW_LENGTH;
+                writer.write(String.format(Locale.US,
+                        "<path d=\"M%.1f %.1fL%.1f %.1fL%.1f %.1fZ\" fill=\"%s\"/>%n",
+                        tip.getX(), tip.getY(),
+                        baseX - uy * CircleLayout.ARROW_HALF_WIDTH, baseY + ux * CircleLayout.ARROW_HALF_WIDTH,
+                        baseX + uy * CircleLayout.ARROW_HALF_WIDTH, baseY - ux * CircleLayout.ARROW_HALF_WIDTH,
+                        color));
+                break;
+            case CIRCLE:
+                double radius = CircleLayout.CIRCLE_RADIUS;
+                writer.write(String.format(Locale.US,
+                        "<circle cx=\"%.1f\" cy=\"%.1f\" r=\"%.1f\" fill=\"%s\" stroke=\"%s\"/>%n",
+                        tip.getX() - ux * radius, tip.getY() - uy * radius, radius,
+                        toHex(GraphImageRenderer.BACKGROUND_COLOR), color));
+                break;
+            default:
+                // a tail is the end of the line
+                break;
+        }
+    }
+
+    private static String toHex(Color color) {
+        return String.format("#%02x%02x%02x", color.getRed(), color.getGreen(), color.getBlue());
+    }
+
+    static String escape(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<':
+                    sb.append("&lt;");
+                    break;
+                case '>':
+                    sb.append("&gt;");
+                    break;
+                case '&':
+                    sb.append("&amp;");
+                    break;
+                case '"':
+                    sb.append("&quot;");
+                    break;
+                case '\'':
+                    sb.append("&apos;");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+
+        return sb.toString();
+    }
+
+}
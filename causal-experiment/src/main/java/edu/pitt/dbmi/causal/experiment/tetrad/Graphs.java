@@ -19,11 +19,8 @@
 package edu.pitt.dbmi.causal.experiment.tetrad;
 
 import edu.cmu.tetrad.graph.Graph;
-import edu.cmu.tetrad.graph.LayoutUtil;
 import edu.cmu.tetrad.util.GraphSampling;
-import edu.cmu.tetradapp.workbench.GraphWorkbench;
 import edu.pitt.dbmi.causal.experiment.data.SimulatedData;
-import java.awt.Graphics;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.PrintStream;
@@ -53,17 +50,7 @@ public final class Graphs {
     }
 
     public static void exportAsPngImage(Graph graph, int width, int height, Path output) {
-        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
-        Graphics graphics = image.getGraphics();
-
-        graph = GraphSampling.createGraphWithoutNullEdges(graph);
-
-        int radius = (int) (width * 0.40);
-        LayoutUtil.circleLayout(graph, width / 2, height / 2, radius);
-
-        GraphWorkbench graphWorkbench = new GraphWorkbench(graph);
-        graphWorkbench.setBounds(0, 0, width, height);
-        graphWorkbench.paint(graphics);
+        BufferedImage image = GraphImageRenderer.render(GraphSampling.createGraphWithoutNullEdges(graph), width, height);
 
         try {
             ImageIO.write(image, "png", output.toFile());
@@ -72,6 +59,47 @@ public final class Graphs {
         }
     }
 
+    /**
+     * Export the graph as an SVG image, streamed straight to the file.
+     *
+     * @param graph graph to export
+     * @param width image width
+     * @param height image height
+     * @param output SVG file
+     */
+    public static void exportAsSvgImage(Graph graph, int width, int height, Path output) {
+        try {
+            GraphSvgWriter.write(GraphSampling.createGraphWithoutNullEdges(graph), width, height, output);
+        } catch (IOException e1) {
+            throw new RuntimeException(e1);
+        }
+    }
+
+    /**
+     * Export the graph as an image in the given format to the file with the
+     * given name, plus the extension of the format, in the output directory.
+     * Nothing is written for {@link GraphImageFormat#NONE}.
+     *
+     * @param graph graph to export
+     * @param format image format
+     * @param width image width
+     * @param height image height
+     * @param outputDir output directory
+     * @param name file name without extension
+     */
+    public static void exportImage(Graph graph, GraphImageFormat format, int width, int height, Path outputDir, String name) {
+        switch (format) {
+            case PNG:
+                exportAsPngImage(graph, width, height, Paths.get(outputDir.toString(), name + "." + format.getExtension()));
+                break;
+            case SVG:
+                exportAsSvgImage(graph, width, height, Paths.get(outputDir.toString(), name + "." + format.getExtension()));
+                break;
+            default:
+                break;
+        }
+    }
+
     public static void saveGraph(Graph graph, Path file) throws IOException {
         try (PrintStream writer = new PrintStream(file.toFile())) {
             writer.println(GraphSampling.createGraphWithoutNullEdges(graph).toString().trim());
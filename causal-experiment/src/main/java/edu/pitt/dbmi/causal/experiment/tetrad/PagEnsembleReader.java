@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.tetrad;
+
+import edu.cmu.tetrad.graph.Edge;
+import edu.cmu.tetrad.graph.EdgeListGraph;
+import edu.cmu.tetrad.graph.Endpoint;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.GraphNode;
+import edu.cmu.tetrad.graph.Node;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads the PAGs of an ensemble file written by {@link PagEnsembleWriter}.
+ * The file is memory-mapped, and a PAG is only decoded when it is asked for.
+ * When the file has no offsets at the end because the run did not finish,
+ * the offsets of the PAGs that were written completely are found by
+ * scanning the file.
+ *
+ * Apr 28, 2023 3:21:49 PM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class PagEnsembleReader {
+
+    private static final Endpoint[] ENDPOINTS = Endpoint.values();
+
+    private final ByteBuffer buffer;
+    private final List<Node> nodes;
+    private final long[] offsets;
+
+    public PagEnsembleReader(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        try {
+            if (buffer.getInt() != PagEnsembleWriter.MAGIC) {
+                throw new IOException(String.format("%s is not a PAG ensemble file.", file));
+            }
+            int version = buffer.getInt();
+            if (version != PagEnsembleWriter.VERSION) {
+                throw new IOException(String.format("Unsupported PAG ensemble version %d.", version));
+            }
+
+            int numOfNodes = buffer.getInt();
+            List<Node> nodeList = new ArrayList<>(numOfNodes);
+            for (int i = 0; i < numOfNodes; i++) {
+                nodeList.add(new GraphNode(readUTF(buffer)));
+            }
+            this.nodes = Collections.unmodifiableList(nodeList);
+        } catch (BufferUnderflowException exception) {
+            throw new IOException(String.format("%s is not a PAG ensemble file.", file), exception);
+        }
+
+        long[] footerOffsets = readFooter();
+        this.offsets = (footerOffsets == null) ? scanOffsets() : footerOffsets;
+    }
+
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    public int getNumOfGraphs() {
+        return offsets.length;
+    }
+
+    /**
+     * Read the PAG at the given position in the ensemble.
+     *
+     * @param index position of the PAG
+     * @return the PAG
+     */
+    public Graph getGraph(int index) {
+        ByteBuffer record = buffer.duplicate();
+        record.position((int) offsets[index]);
+        if (record.get() == PagEnsembleWriter.DUPLICATE_RECORD) {
+            record.position((int) offsets[readVarInt(record)] + 1);
+        }
+
+        return readEdges(record);
+    }
+
+    /**
+     * Read the PAGs one after another in the order they were written.
+     *
+     * @param action action to perform on each PAG
+     */
+    public void forEach(Consumer<Graph> action) {
+        for (int i = 0; i < offsets.length; i++) {
+            action.accept(getGraph(i));
+        }
+    }
+
+    public List<Graph> getGraphs() {
+        List<Graph> graphs = new ArrayList<>(offsets.length);
+        forEach(graphs::add);
+
+        return graphs;
+    }
+
+    private Graph readEdges(ByteBuffer record) {
+        Graph graph = new EdgeListGraph(nodes);
+
+        int numOfEdges = readVarInt(record);
+        int i = 0;
+        for (int k = 0; k < numOfEdges; k++) {
+            i += readVarInt(record);
+            int j = readVarInt(record);
+            int endpoints = record.get() & 0xFF;
+            graph.addEdge(new Edge(nodes.get(i), nodes.get(j), ENDPOINTS[endpoints >>> 4], ENDPOINTS[endpoints & 0x0F]));
+        }
+
+        return graph;
+    }
+
+    /**
+     * @return the offsets at the end of the file, or null if the file was not
+     * closed
+     */
+    private long[] readFooter() {
+        int limit = buffer.limit();
+        int trailerSize = Long.BYTES + Integer.BYTES;
+        if (limit - buffer.position() < 2 * Integer.BYTES + trailerSize) {
+            return null;
+        }
+        if (buffer.getInt(limit - Integer.BYTES) != PagEnsembleWriter.FOOTER_MAGIC) {
+            return null;
+        }
+
+        long footerOffset = buffer.getLong(limit - trailerSize);
+        if (footerOffset < buffer.position() || footerOffset > limit - trailerSize) {
+            return null;
+        }
+
+        ByteBuffer footer = buffer.duplicate();
+        footer.position((int) footerOffset);
+        if (footer.getInt() != PagEnsembleWriter.FOOTER_MAGIC) {
+            return null;
+        }
+        long[] footerOffsets = new long[footer.getInt()];
+        for (int i = 0; i < footerOffsets.length; i++) {
+            footerOffsets[i] = footer.getLong();
+        }
+
+        return footerOffsets;
+    }
+
+    /**
+     * Find the offsets of the PAGs by reading the records from the start.
+     * A record cut off at the end of the file is left out.
+     */
+    private long[] scanOffsets() {
+        List<Long> offsetList = new ArrayList<>();
+
+        ByteBuffer record = buffer.duplicate();
+        try {
+            while (record.hasRemaining()) {
+                int offset = record.position();
+                byte kind = record.get();
+                if (kind == PagEnsembleWriter.DUPLICATE_RECORD) {
+                    readVarInt(record);
+                } else if (kind == PagEnsembleWriter.GRAPH_RECORD) {
+                    int numOfEdges = readVarInt(record);
+                    for (int k = 0; k < numOfEdges; k++) {
+                        readVarInt(record);
+                        readVarInt(record);
+                        record.get();
+                    }
+                } else {
+                    // start of the offsets of a file that was not closed completely
+                    break;
+                }
+                offsetList.add((long) offset);
+            }
+        } catch (BufferUnderflowException exception) {
+            // the last record was not written completely
+        }
+
+        long[] scannedOffsets = new long[offsetList.size()];
+        for (int i = 0; i < scannedOffsets.length; i++) {
+            scannedOffsets[i] = offsetList.get(i);
+        }
+
+        return scannedOffsets;
+    }
+
+    private static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = buffer.get() & 0xFF;
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IllegalStateException("Malformed variable-length integer.");
+    }
+
+    /**
+     * Read a string written by {@link java.io.DataOutput#writeUTF(String)}.
+     */
+    private static String readUTF(ByteBuffer buffer) throws IOException {
+        int length = buffer.getShort() & 0xFFFF;
+        byte[] bytes = new byte[length + 2];
+        bytes[0] = (byte) (length >>> 8);
+        bytes[1] = (byte) length;
+        buffer.get(bytes, 2, length);
+
+        return DataInputStream.readUTF(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.tetrad;
+
+import edu.cmu.tetrad.graph.Edge;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.Node;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes PAGs to a binary ensemble file as they are found, so the individual
+ * PAGs of a run can be analyzed again without searching again.
+ *
+ * The file starts with a table of the node names shared by all the PAGs.
+ * Each PAG is then stored as its edges (i, j, endpoint 1, endpoint 2),
+ * sorted by the node indices i and j. When duplicates are removed, a PAG
+ * identical to one written before is stored as a reference to it. The file
+ * ends with the offset of each PAG so that a PAG can be read by its
+ * position. Each PAG is flushed once it is written, so the PAGs of a run
+ * that did not finish can still be read.
+ *
+ * The file is read by {@link PagEnsembleReader}.
+ *
+ * Apr 28, 2023 2:36:18 PM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class PagEnsembleWriter implements Closeable {
+
+    static final int MAGIC = 0x50414745; // "PAGE"
+    static final int FOOTER_MAGIC = 0x50414746; // "PAGF"
+    static final int VERSION = 1;
+
+    static final byte GRAPH_RECORD = 0;
+    static final byte DUPLICATE_RECORD = 1;
+
+    private final OutputStream out;
+    private final Map<String, Integer> nodeIndices;
+    private final Map<ByteBuffer, Integer> distinctGraphs;
+    private final List<Long> offsets = new ArrayList<>();
+    private final ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream();
+
+    private long position;
+    private boolean closed;
+
+    /**
+     * @param file ensemble file
+     * @param nodes nodes of the PAGs
+     * @param removeDuplicates store identical PAGs once
+     * @throws IOException
+     */
+    public PagEnsembleWriter(Path file, List<Node> nodes, boolean removeDuplicates) throws IOException {
+        this.out = new BufferedOutputStream(Files.newOutputStream(file));
+        this.nodeIndices = new HashMap<>();
+        this.distinctGraphs = removeDuplicates ? new HashMap<>() : null;
+
+        DataOutputStream record = new DataOutputStream(recordBuffer);
+        record.writeInt(MAGIC);
+        record.writeInt(VERSION);
+        record.writeInt(nodes.size());
+        for (Node node : nodes) {
+            if (nodeIndices.put(node.getName(), nodeIndices.size()) != null) {
+                throw new IllegalArgumentException(String.format("Duplicate node %s.", node.getName()));
+            }
+            record.writeUTF(node.getName());
+        }
+        writeRecord();
+    }
+
+    /**
+     * Append the PAG to the ensemble.
+     *
+     * @param graph PAG over the nodes of the ensemble
+     * @throws IOException
+     */
+    public synchronized void write(Graph graph) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("PAG ensemble writer is closed.");
+        }
+
+        byte[] edges = encodeEdges(graph);
+
+        Integer original = (distinctGraphs == null) ? null : distinctGraphs.get(ByteBuffer.wrap(edges));
+        if (original == null) {
+            if (distinctGraphs != null) {
+                distinctGraphs.put(ByteBuffer.wrap(edges), offsets.size());
+            }
+            recordBuffer.write(GRAPH_RECORD);
+            recordBuffer.write(edges);
+        } else {
+            recordBuffer.write(DUPLICATE_RECORD);
+            writeVarInt(recordBuffer, original);
+        }
+
+        offsets.add(position);
+        writeRecord();
+    }
+
+    public synchronized int getNumOfGraphs() {
+        return offsets.size();
+    }
+
+    /**
+     * Push the PAGs written so far to the file. A file that was flushed but
+     * never closed can still be read back up to the last flush.
+     *
+     * @throws IOException
+     */
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Write the offsets of the PAGs and close the file.
+     *
+     * @throws IOException
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            long footerOffset = position;
+            DataOutputStream record = new DataOutputStream(recordBuffer);
+            record.writeInt(FOOTER_MAGIC);
+            record.writeInt(offsets.size());
+            for (long offset : offsets) {
+                record.writeLong(offset);
+            }
+            record.writeLong(footerOffset);
+            record.writeInt(FOOTER_MAGIC);
+            writeRecord();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Encode the number of edges followed by the edges sorted by node
+     * indices. The index of the first node is stored as the difference from
+     * the one of the previous edge.
+     */
+    private byte[] encodeEdges(Graph graph) {
+        List<Edge> edges = new ArrayList<>(graph.getEdges());
+        long[] keys = new long[edges.size()];
+        for (int k = 0; k < keys.length; k++) {
+            Edge edge = edges.get(k);
+            long i = getNodeIndex(edge.getNode1());
+            long j = getNodeIndex(edge.getNode2());
+            int endpoints = (edge.getEndpoint1().ordinal() << 4) | edge.getEndpoint2().ordinal();
+            keys[k] = (i << 40) | (j << 8) | endpoints;
+        }
+        Arrays.sort(keys);
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        writeVarInt(buffer, keys.length);
+        int previous = 0;
+        for (long key : keys) {
+            int i = (int) (key >>> 40);
+            int j = (int) ((key >>> 8) & 0xFFFFFFFFL);
+            writeVarInt(buffer, i - previous);
+            writeVarInt(buffer, j);
+            buffer.write((int) (key & 0xFF));
+            previous = i;
+        }
+
+        return buffer.toByteArray();
+    }
+
+    private int getNodeIndex(Node node) {
+        Integer index = nodeIndices.get(node.getName());
+        if (index == null) {
+            throw new IllegalArgumentException(String.format("Node %s is not in the PAG ensemble.", node.getName()));
+        }
+
+        return index;
+    }
+
+    private void writeRecord() throws IOException {
+        recordBuffer.writeTo(out);
+        out.flush();
+        position += recordBuffer.size();
+        recordBuffer.reset();
+    }
+
+    static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.util;
+
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.util.Parameters;
+import edu.cmu.tetrad.util.Params;
+import java.util.Arrays;
+import org.apache.commons.math3.random.RandomGenerator;
+
+/**
+ * Source of bootstrap replicates that draws a replicate only when it is
+ * asked for. Replicate k is the same sample as the k-th dataset of
+ * {@link DataSampling#sample(DataSet, Parameters, long)}, and the indices
+ * past the initial replicates give additional samples.
+ *
+ * Apr 17, 2023 11:26:09 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class BootstrapReplicates {
+
+    private final DataSet dataSet;
+
+    private final long seed;
+
+    private final int numberOfResampling;
+
+    private final boolean addOriginalDataset;
+
+    private final boolean resamplingWithReplacement;
+
+    public BootstrapReplicates(DataSet dataSet, Parameters parameters, long seed) {
+        this.dataSet = dataSet;
+        this.seed = seed;
+        this.numberOfResampling = parameters.getInt(Params.NUMBER_RESAMPLING);
+        this.addOriginalDataset = parameters.getBoolean(Params.ADD_ORIGINAL_DATASET);
+        this.resamplingWithReplacement = parameters.getBoolean(Params.RESAMPLING_WITH_REPLACEMENT);
+    }
+
+    /**
+     * Get the number of initial replicates.
+     *
+     * @return number of initial replicates
+     */
+    public int getNumOfReplicates() {
+        if (!resamplingWithReplacement) {
+            return 0;
+        }
+
+        return addOriginalDataset ? numberOfResampling + 1 : numberOfResampling;
+    }
+
+    /**
+     * Get the replicate at the given index. The original dataset comes after
+     * the sampled replicates when it is added.
+     *
+     * @param replicateIndex index of the replicate
+     * @return data replicate
+     */
+    public DataSet get(int replicateIndex) {
+        if (addOriginalDataset && replicateIndex == numberOfResampling) {
+            return dataSet;
+        }
+
+        return DataSampling.sampleWithReplacement(dataSet, seed, replicateIndex);
+    }
+
+    /**
+     * Get the replicate at the given index as the number of times each case
+     * of the original data is in the replicate.
+     *
+     * @param replicateIndex index of the replicate
+     * @return case weights of the replicate
+     */
+    public int[] getWeights(int replicateIndex) {
+        if (addOriginalDataset && replicateIndex == numberOfResampling) {
+            int[] weights = new int[dataSet.getNumRows()];
+            Arrays.fill(weights, 1);
+
+            return weights;
+        }
+
+        return DataSampling.sampleWeights(dataSet, seed, replicateIndex);
+    }
+
+    /**
+     * Get the random generator of the random decisions made while searching
+     * the replicate at the given index.
+     *
+     * @param replicateIndex index of the replicate
+     * @return random generator of the search of the replicate
+     */
+    public RandomGenerator getSearchRandomGenerator(int replicateIndex) {
+        return DataSampling.createSearchRandomGenerator(seed, replicateIndex);
+    }
+
+}
@@ -18,15 +18,17 @@
  */
 package edu.pitt.dbmi.causal.experiment.util;
 
+import edu.cmu.tetrad.data.BoxDataSet;
+import edu.cmu.tetrad.data.DataBox;
 import edu.cmu.tetrad.data.DataSet;
 import edu.cmu.tetrad.data.DataUtils;
 import edu.cmu.tetrad.util.Parameters;
 import edu.cmu.tetrad.util.Params;
+import edu.pitt.dbmi.causal.experiment.data.RowIndexDataBox;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import org.apache.commons.math3.random.RandomGenerator;
-import org.apache.commons.math3.random.SynchronizedRandomGenerator;
 import org.apache.commons.math3.random.Well44497b;
 
 /**
@@ -40,37 +42,102 @@ public final class DataSampling {
     private DataSampling() {
     }
 
-    public static List<DataSet> sample(DataSet dataSet, Parameters parameters, RandomGenerator randomGenerator) {
+    /**
+     * Sample the data using the given base seed. The sample at index k is
+     * drawn with the generator {@link #createRandomGenerator(long, int)} of
+     * replicate k, so it does not depend on the order the samples are drawn
+     * in.
+     *
+     * @param dataSet data to sample from
+     * @param parameters sampling parameters
+     * @param seed base seed from {@link #getSeed(Parameters)}
+     * @return data samples
+     */
+    public static List<DataSet> sample(DataSet dataSet, Parameters parameters, long seed) {
         boolean resamplingWithReplacement = parameters.getBoolean(Params.RESAMPLING_WITH_REPLACEMENT);
 
         return resamplingWithReplacement
-                ? sampleWithReplacement(dataSet, parameters, randomGenerator)
-                : sampleWithoutReplacement(dataSet, parameters, randomGenerator);
+                ? sampleWithReplacement(dataSet, parameters, seed)
+                : sampleWithoutReplacement(dataSet, parameters, seed);
     }
 
     public static List<DataSet> sample(DataSet dataSet, Parameters parameters) {
-        boolean resamplingWithReplacement = parameters.getBoolean(Params.RESAMPLING_WITH_REPLACEMENT);
-        RandomGenerator randomGenerator = createRandomGenerator(parameters);
-
-        return resamplingWithReplacement
-                ? sampleWithReplacement(dataSet, parameters, randomGenerator)
-                : sampleWithoutReplacement(dataSet, parameters, randomGenerator);
+        return sample(dataSet, parameters, getSeed(parameters));
     }
 
-    private static List<DataSet> sampleWithoutReplacement(DataSet dataSet, Parameters parameters, RandomGenerator randomGenerator) {
+    private static List<DataSet> sampleWithoutReplacement(DataSet dataSet, Parameters parameters, long seed) {
         return Collections.EMPTY_LIST;
     }
 
+    /**
+     * Draw a bootstrap sample with as many cases as the data. The rows are
+     * drawn the same way as {@link DataUtils#getBootstrapSample}, but a
+     * {@link BoxDataSet} is sampled as a view of the original data that holds
+     * only the row indices instead of a copy of the data.
+     *
+     * @param dataSet data to sample from
+     * @param randomGenerator random generator
+     * @return data sample
+     */
     public static DataSet sampleWithReplacement(DataSet dataSet, RandomGenerator randomGenerator) {
-        return DataUtils.getBootstrapSample(dataSet, dataSet.getNumRows(), randomGenerator);
+        if (!(dataSet instanceof BoxDataSet)) {
+            return DataUtils.getBootstrapSample(dataSet, dataSet.getNumRows(), randomGenerator);
+        }
+
+        int numOfRows = dataSet.getNumRows();
+        int[] rows = new int[numOfRows];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = randomGenerator.nextInt(numOfRows);
+        }
+
+        DataBox dataBox = new RowIndexDataBox(((BoxDataSet) dataSet).getDataBox(), rows);
+        BoxDataSet sampleData = new BoxDataSet(dataBox, dataSet.getVariables());
+        sampleData.setKnowledge(dataSet.getKnowledge());
+
+        return sampleData;
     }
 
-    private static List<DataSet> sampleWithReplacement(DataSet dataSet, Parameters parameters, RandomGenerator randomGenerator) {
+    /**
+     * Draw the bootstrap sample of the given replicate.
+     *
+     * @param dataSet data to sample from
+     * @param seed base seed from {@link #getSeed(Parameters)}
+     * @param replicateIndex index of the replicate
+     * @return data sample
+     */
+    public static DataSet sampleWithReplacement(DataSet dataSet, long seed, int replicateIndex) {
+        return sampleWithReplacement(dataSet, createRandomGenerator(seed, replicateIndex));
+    }
+
+    /**
+     * Draw the bootstrap sample of the given replicate as the number of times
+     * each case is drawn. The cases are drawn the same way as
+     * {@link #sampleWithReplacement(DataSet, long, int)}, so the weights
+     * describe the same sample without building its rows.
+     *
+     * @param dataSet data to sample from
+     * @param seed base seed from {@link #getSeed(Parameters)}
+     * @param replicateIndex index of the replicate
+     * @return number of times each case is in the sample
+     */
+    public static int[] sampleWeights(DataSet dataSet, long seed, int replicateIndex) {
+        RandomGenerator randomGenerator = createRandomGenerator(seed, replicateIndex);
+
+        int numOfRows = dataSet.getNumRows();
+        int[] weights = new int[numOfRows];
+        for (int i = 0; i < numOfRows; i++) {
+            weights[randomGenerator.nextInt(numOfRows)]++;
+        }
+
+        return weights;
+    }
+
+    private static List<DataSet> sampleWithReplacement(DataSet dataSet, Parameters parameters, long seed) {
         List<DataSet> dataSets = new LinkedList<>();
 
         int numberOfResampling = parameters.getInt(Params.NUMBER_RESAMPLING);
         for (int i = 0; i < numberOfResampling; i++) {
-            dataSets.add(sampleWithReplacement(dataSet, randomGenerator));
+            dataSets.add(sampleWithReplacement(dataSet, seed, i));
         }
 
         boolean addOriginalDataset = parameters.getBoolean(Params.ADD_ORIGINAL_DATASET);
@@ -81,12 +148,59 @@ public final class DataSampling {
         return dataSets;
     }
 
-    public static RandomGenerator createRandomGenerator(Parameters parameters) {
+    /**
+     * Get the base seed of the sampling. A negative seed in the parameters
+     * means no seed is given, in which case a seed is picked from the clock.
+     * Call it once per run and pass the result around so that all the
+     * replicates of the run share the same base seed.
+     *
+     * @param parameters sampling parameters
+     * @return base seed
+     */
+    public static long getSeed(Parameters parameters) {
         long seed = parameters.getLong(Params.SEED);
 
-        return (seed < 0)
-                ? new SynchronizedRandomGenerator(new Well44497b(System.nanoTime()))
-                : new SynchronizedRandomGenerator(new Well44497b(seed));
+        return (seed < 0) ? System.nanoTime() : seed;
+    }
+
+    /**
+     * Create the random generator of a replicate. Each replicate gets its own
+     * unsynchronized generator whose seed is split from the base seed with
+     * the SplitMix64 mixing function, so replicates can be drawn on any thread
+     * in any order and replicate k always gets the same sample.
+     *
+     * @param seed base seed
+     * @param replicateIndex index of the replicate
+     * @return random generator of the replicate
+     */
+    public static RandomGenerator createRandomGenerator(long seed, int replicateIndex) {
+        return new Well44497b(splitSeed(seed, replicateIndex));
+    }
+
+    /**
+     * Create the random generator of the random decisions made while
+     * searching a replicate, such as a probabilistic test drawing
+     * independence at random. It is split from the base seed the same way as
+     * {@link #createRandomGenerator(long, int)} but from the complement of the
+     * seed, so the decisions are a different stream than the cases drawn.
+     * The tests then never use Tetrad's RandomUtil, whose per-thread
+     * generators are neither seeded by the run nor safe to create from many
+     * threads.
+     *
+     * @param seed base seed
+     * @param searchIndex index of the replicate or of the search
+     * @return random generator of the search
+     */
+    public static RandomGenerator createSearchRandomGenerator(long seed, int searchIndex) {
+        return new Well44497b(splitSeed(~seed, searchIndex));
+    }
+
+    private static long splitSeed(long seed, int replicateIndex) {
+        long z = seed + (replicateIndex + 1L) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+
+        return z ^ (z >>> 31);
     }
 
 }
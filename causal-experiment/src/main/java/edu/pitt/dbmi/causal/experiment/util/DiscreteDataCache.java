@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.util;
+
+import edu.cmu.tetrad.data.BoxDataSet;
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.data.DiscreteVariable;
+import edu.cmu.tetrad.graph.Node;
+import edu.pitt.dbmi.causal.experiment.data.ByteColumnDataBox;
+import edu.pitt.dbmi.data.reader.Delimiter;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary cache of a discrete dataset, kept next to the text file it was read
+ * from. The cache has a header with the size and the modification time of
+ * the text file, the delimiter, and the names and categories of the
+ * variables, followed by the data, one byte per cell, column by column. The
+ * cache is memory-mapped when it is read, and it is stale when the size or
+ * the modification time of the text file has changed.
+ *
+ * Apr 25, 2023 10:48:19 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public final class DiscreteDataCache {
+
+    public static final String FILE_EXTENSION = ".cache";
+
+    private static final int MAGIC_NUMBER = 0x54444443;  // TDDC
+
+    private static final int VERSION = 1;
+
+    /**
+     * The whole cache is mapped into a single buffer, so leave room for the
+     * header.
+     */
+    private static final int MAX_DATA_SIZE = Integer.MAX_VALUE - (1 << 24);
+
+    private DiscreteDataCache() {
+    }
+
+    /**
+     * Get the cache file of the data file.
+     *
+     * @param dataFile data file
+     * @return cache file next to the data file
+     */
+    public static Path getCacheFile(Path dataFile) {
+        return dataFile.resolveSibling(dataFile.getFileName().toString() + FILE_EXTENSION);
+    }
+
+    /**
+     * Read the dataset from the cache of the data file.
+     *
+     * @param dataFile data file
+     * @param delimiter delimiter of the data file
+     * @return the dataset, or null if there is no cache or it is stale
+     * @throws IOException
+     */
+    public static DataSet read(Path dataFile, Delimiter delimiter) throws IOException {
+        Path cacheFile = getCacheFile(dataFile);
+        if (!Files.isRegularFile(cacheFile)) {
+            return null;
+        }
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        try {
+            if (buffer.getInt() != MAGIC_NUMBER || buffer.getInt() != VERSION) {
+                return null;
+            }
+            if (buffer.getLong() != Files.size(dataFile)
+                    || buffer.getLong() != Files.getLastModifiedTime(dataFile).toMillis()
+                    || !readString(buffer).equals(delimiter.name())) {
+                return null;
+            }
+
+            int numOfRows = buffer.getInt();
+            int numOfCols = buffer.getInt();
+            List<Node> variables = new ArrayList<>(numOfCols);
+            for (int i = 0; i < numOfCols; i++) {
+                String name = readString(buffer);
+                int numOfCategories = buffer.getInt();
+                List<String> categories = new ArrayList<>(numOfCategories);
+                for (int j = 0; j < numOfCategories; j++) {
+                    categories.add(readString(buffer));
+                }
+                variables.add(new DiscreteVariable(name, categories));
+            }
+
+            return new BoxDataSet(new ByteColumnDataBox(buffer, numOfRows, numOfCols), variables);
+        } catch (BufferUnderflowException | IllegalArgumentException exception) {
+            // truncated or corrupted cache
+            return null;
+        }
+    }
+
+    /**
+     * Write the dataset read from the data file into the cache of the data
+     * file. Nothing is written if a variable has more categories than a byte
+     * can hold or the data are too large for a single buffer.
+     *
+     * @param dataSet dataset read from the data file
+     * @param dataFile data file
+     * @param delimiter delimiter of the data file
+     * @return true if the cache is written
+     * @throws IOException
+     */
+    public static boolean write(DataSet dataSet, Path dataFile, Delimiter delimiter) throws IOException {
+        int numOfRows = dataSet.getNumRows();
+        int numOfCols = dataSet.getNumColumns();
+        if ((long) numOfRows * numOfCols > MAX_DATA_SIZE) {
+            return false;
+        }
+
+        List<Node> variables = dataSet.getVariables();
+        for (Node variable : variables) {
+            if (!(variable instanceof DiscreteVariable) || ((DiscreteVariable) variable).getNumCategories() > Byte.MAX_VALUE) {
+                return false;
+            }
+        }
+
+        // write to a temporary file first so that a reader never sees a partial cache
+        Path cacheFile = getCacheFile(dataFile);
+        Path tempFile = Files.createTempFile(cacheFile.getParent(), cacheFile.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream writer = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                writer.writeInt(MAGIC_NUMBER);
+                writer.writeInt(VERSION);
+                writer.writeLong(Files.size(dataFile));
+                writer.writeLong(Files.getLastModifiedTime(dataFile).toMillis());
+                writeString(delimiter.name(), writer);
+                writer.writeInt(numOfRows);
+                writer.writeInt(numOfCols);
+                for (Node variable : variables) {
+                    DiscreteVariable discreteVariable = (DiscreteVariable) variable;
+                    writeString(discreteVariable.getName(), writer);
+                    writer.writeInt(discreteVariable.getNumCategories());
+                    for (String category : discreteVariable.getCategories()) {
+                        writeString(category, writer);
+                    }
+                }
+
+                byte[] column = new byte[numOfRows];
+                for (int col = 0; col < numOfCols; col++) {
+                    for (int row = 0; row < numOfRows; row++) {
+                        int value = dataSet.getInt(row, col);
+                        column[row] = (value == DiscreteVariable.MISSING_VALUE) ? ByteColumnDataBox.MISSING_VALUE : (byte) value;
+                    }
+                    writer.write(column);
+                }
+            }
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+
+        return true;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(String value, DataOutputStream writer) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writer.writeInt(bytes.length);
+        writer.write(bytes);
+    }
+
+}
@@ -19,13 +19,14 @@
 package edu.pitt.dbmi.causal.experiment.util;
 
 import edu.cmu.tetrad.data.DataModel;
+import edu.cmu.tetrad.data.DataSet;
 import edu.cmu.tetrad.graph.Graph;
-import edu.cmu.tetrad.graph.GraphPersistence;
 import edu.cmu.tetrad.util.DataConvertUtils;
 import edu.pitt.dbmi.data.reader.Delimiter;
 import edu.pitt.dbmi.data.reader.tabular.VerticalDiscreteTabularDatasetFileReader;
 import edu.pitt.dbmi.data.reader.tabular.VerticalDiscreteTabularDatasetReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 
 /**
@@ -39,11 +40,54 @@ public final class ResourceLoader {
     private ResourceLoader() {
     }
 
+    /**
+     * Load the graph from a file in Tetrad's text format.
+     *
+     * @param graphFile graph file
+     * @return the graph
+     * @see GraphTextReader
+     */
     public static Graph loadGraph(Path graphFile) {
-        return GraphPersistence.loadGraphTxt(graphFile.toFile());
+        try {
+            return GraphTextReader.read(graphFile);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
     }
 
+    /**
+     * Load the discrete dataset from the binary cache next to the data file,
+     * or read the data file and cache it when the cache is missing or stale.
+     *
+     * @param dataFile tabular data file
+     * @param delimiter delimiter of the data file
+     * @return discrete dataset
+     * @throws IOException
+     */
     public static DataModel loadDataModel(Path dataFile, Delimiter delimiter) throws IOException {
+        DataSet dataSet = DiscreteDataCache.read(dataFile, delimiter);
+        if (dataSet == null) {
+            dataSet = (DataSet) readDataModel(dataFile, delimiter);
+            try {
+                DiscreteDataCache.write(dataSet, dataFile, delimiter);
+            } catch (IOException exception) {
+                // the cache is only an optimization, e.g. the directory may be read-only
+                System.err.printf("Unable to cache data file %s: %s%n", dataFile, exception.getMessage());
+            }
+        }
+
+        return dataSet;
+    }
+
+    /**
+     * Read the discrete dataset from the data file, without the cache.
+     *
+     * @param dataFile tabular data file
+     * @param delimiter delimiter of the data file
+     * @return discrete dataset
+     * @throws IOException
+     */
+    public static DataModel readDataModel(Path dataFile, Delimiter delimiter) throws IOException {
         VerticalDiscreteTabularDatasetReader dataReader = new VerticalDiscreteTabularDatasetFileReader(dataFile, delimiter);
 
         return DataConvertUtils.toDataModel(dataReader.readInData());
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.calibration;
+
+import edu.cmu.tetrad.graph.Graph;
+import edu.pitt.dbmi.causal.experiment.util.GraphFiles;
+import edu.pitt.dbmi.causal.experiment.util.ResourceLoader;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * Apr 21, 2023 3:20:44 PM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class CalibrationDataTest {
+
+    /**
+     * Test of examineDirectEdge method, of class CalibrationData.
+     */
+    @Test
+    public void testExamineDirectEdge() {
+        Graph searchGraph = ResourceLoader.loadGraph(Paths.get(GraphFiles.SEARCH_GRAPH));
+        Graph trueGraph = ResourceLoader.loadGraph(Paths.get(GraphFiles.PAG_FROM_DAG_GRAPH));
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        try (PrintStream writer = new PrintStream(expected)) {
+            GraphData.write(GraphData.examineDirectEdge(searchGraph, trueGraph), writer);
+        }
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (PrintStream writer = new PrintStream(result)) {
+            CalibrationData.examineDirectEdge(searchGraph, trueGraph).write(writer);
+        }
+
+        Assertions.assertEquals(expected.toString(), result.toString());
+    }
+
+    /**
+     * Test of examineEdges method, of class CalibrationData.
+     */
+    @Test
+    public void testExamineEdges() {
+        Graph searchGraph = ResourceLoader.loadGraph(Paths.get(GraphFiles.SEARCH_GRAPH));
+        Graph trueGraph = ResourceLoader.loadGraph(Paths.get(GraphFiles.PAG_FROM_DAG_GRAPH));
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        try (PrintStream writer = new PrintStream(expected)) {
+            GraphData.write(GraphData.examineEdges(searchGraph, trueGraph), writer);
+        }
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (PrintStream writer = new PrintStream(result)) {
+            CalibrationData.examineEdges(searchGraph, trueGraph).write(writer);
+        }
+
+        Assertions.assertEquals(expected.toString(), result.toString());
+    }
+
+}
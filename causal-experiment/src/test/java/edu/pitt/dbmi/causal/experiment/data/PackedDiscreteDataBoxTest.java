@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.data;
+
+import edu.cmu.tetrad.data.DataBox;
+import edu.cmu.tetrad.data.DataSet;
+import edu.pitt.dbmi.causal.experiment.independence.DiscreteColumns;
+import edu.pitt.dbmi.causal.experiment.independence.DiscreteCountEngine;
+import edu.pitt.dbmi.causal.experiment.util.DataFiles;
+import edu.pitt.dbmi.causal.experiment.util.ResourceLoader;
+import edu.pitt.dbmi.data.reader.Delimiter;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * Apr 26, 2023 10:41:36 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class PackedDiscreteDataBoxTest {
+
+    /**
+     * Test of get method, of class PackedDiscreteDataBox.
+     */
+    @Test
+    public void testGet() throws Exception {
+        DataSet dataSet = (DataSet) ResourceLoader.loadDataModel(Paths.get(DataFiles.SIM_DISC_20VAR_1KCASE), Delimiter.TAB);
+        DataSet packedDataSet = PackedDiscreteDataBox.pack(dataSet);
+        Assertions.assertEquals(dataSet.getVariables(), packedDataSet.getVariables());
+        for (int row = 0; row < dataSet.getNumRows(); row++) {
+            for (int col = 0; col < dataSet.getNumColumns(); col++) {
+                Assertions.assertEquals(dataSet.getInt(row, col), packedDataSet.getInt(row, col));
+            }
+        }
+
+        // missing values and values next to each other in a word
+        PackedDiscreteDataBox dataBox = new PackedDiscreteDataBox(70, new int[]{3, 1, 200});
+        dataBox.set(31, 0, 2);
+        dataBox.set(32, 0, 1);
+        dataBox.set(63, 1, 0);
+        dataBox.set(69, 2, 199);
+        Assertions.assertEquals(2, dataBox.get(31, 0));
+        Assertions.assertEquals(1, dataBox.get(32, 0));
+        Assertions.assertNull(dataBox.get(30, 0));
+        Assertions.assertEquals(0, dataBox.get(63, 1));
+        Assertions.assertEquals(199, dataBox.get(69, 2));
+        dataBox.set(31, 0, null);
+        Assertions.assertNull(dataBox.get(31, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> dataBox.set(0, 0, 3));
+
+        DataBox selection = dataBox.viewSelection(new int[]{69, 32}, new int[]{2, 0});
+        Assertions.assertEquals(199, selection.get(0, 0));
+        Assertions.assertEquals(1, selection.get(1, 1));
+    }
+
+    /**
+     * Test of getColumn method, of class PackedDiscreteDataBox.
+     */
+    @Test
+    public void testGetColumn() throws Exception {
+        DataSet dataSet = (DataSet) ResourceLoader.loadDataModel(Paths.get(DataFiles.SIM_DISC_20VAR_1KCASE), Delimiter.TAB);
+        DataSet packedDataSet = PackedDiscreteDataBox.pack(dataSet);
+
+        // the counts of the packed columns are the counts of the original data
+        DiscreteColumns columns = new DiscreteColumns(dataSet);
+        DiscreteColumns packedColumns = new DiscreteColumns(packedDataSet);
+        Assertions.assertTrue(packedColumns.isPacked());
+        for (int col = 0; col < dataSet.getNumColumns(); col++) {
+            Assertions.assertArrayEquals(columns.getColumn(col), packedColumns.getColumn(col));
+        }
+
+        DiscreteCountEngine expected = new DiscreteCountEngine(columns);
+        DiscreteCountEngine result = new DiscreteCountEngine(packedColumns);
+        int[][] indices = {{0, 1}, {4, 2, 7}, {19, 3, 11, 5}};
+        for (int[] index : indices) {
+            Assertions.assertArrayEquals(expected.getCounts(index), result.getCounts(index));
+        }
+    }
+
+}
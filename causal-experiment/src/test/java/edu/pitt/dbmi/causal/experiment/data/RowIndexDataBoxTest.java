@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.data;
+
+import edu.cmu.tetrad.data.DataBox;
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.data.DataUtils;
+import edu.cmu.tetrad.data.VerticalDoubleDataBox;
+import edu.cmu.tetrad.data.VerticalIntDataBox;
+import edu.pitt.dbmi.causal.experiment.util.DataFiles;
+import edu.pitt.dbmi.causal.experiment.util.DataSampling;
+import edu.pitt.dbmi.causal.experiment.util.ResourceLoader;
+import edu.pitt.dbmi.data.reader.Delimiter;
+import java.nio.file.Paths;
+import org.apache.commons.math3.random.Well44497b;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * Apr 16, 2023 3:02:27 PM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class RowIndexDataBoxTest {
+
+    /**
+     * Test of get method, of class RowIndexDataBox.
+     */
+    @Test
+    public void testGet() throws Exception {
+        DataSet dataSet = (DataSet) ResourceLoader.loadDataModel(Paths.get(DataFiles.SIM_DISC_20VAR_1KCASE), Delimiter.TAB);
+        long seed = 1681671747L;
+
+        // the view has the same cases as the bootstrap sample copied by Tetrad
+        DataSet expected = DataUtils.getBootstrapSample(dataSet, dataSet.getNumRows(), new Well44497b(seed));
+        DataSet result = DataSampling.sampleWithReplacement(dataSet, new Well44497b(seed));
+        Assertions.assertEquals(expected.getNumRows(), result.getNumRows());
+        Assertions.assertEquals(expected.getNumColumns(), result.getNumColumns());
+        for (int row = 0; row < expected.getNumRows(); row++) {
+            for (int col = 0; col < expected.getNumColumns(); col++) {
+                Assertions.assertEquals(expected.getInt(row, col), result.getInt(row, col));
+            }
+        }
+
+        // a selection of the view reads through to the original data
+        int[] rows = {3, 0, 3};
+        int[] cols = {5, 1};
+        DataSet subset = result.subsetRowsColumns(rows, cols);
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = 0; j < cols.length; j++) {
+                Assertions.assertEquals(result.getInt(rows[i], cols[j]), subset.getInt(i, j));
+            }
+        }
+    }
+
+    /**
+     * Test of like method, of class RowIndexDataBox.
+     */
+    @Test
+    public void testLike() {
+        DataBox dataBox = new VerticalIntDataBox(new int[][]{{0, 1, 2, 1}, {2, 2, 0, 1}});
+        RowIndexDataBox view = new RowIndexDataBox(dataBox, new int[]{3, 3, 0}, new int[]{1});
+
+        // an empty box of the size of the view, not of the viewed box
+        DataBox result = view.like();
+        Assertions.assertTrue(result instanceof VerticalIntDataBox);
+        Assertions.assertEquals(3, result.numRows());
+        Assertions.assertEquals(1, result.numCols());
+
+        DataBox doubleView = new RowIndexDataBox(new VerticalDoubleDataBox(2, 4), new int[]{1});
+        Assertions.assertTrue(doubleView.like() instanceof VerticalDoubleDataBox);
+        Assertions.assertEquals(1, doubleView.like().numRows());
+        Assertions.assertEquals(4, doubleView.like().numCols());
+    }
+
+}
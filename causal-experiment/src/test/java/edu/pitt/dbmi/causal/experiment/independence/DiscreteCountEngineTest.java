@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.independence;
+
+import edu.cmu.tetrad.data.CellTable;
+import edu.cmu.tetrad.data.DataSet;
+import edu.pitt.dbmi.causal.experiment.util.DataFiles;
+import edu.pitt.dbmi.causal.experiment.util.ResourceLoader;
+import edu.pitt.dbmi.data.reader.Delimiter;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * Apr 20, 2023 3:27:44 PM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class DiscreteCountEngineTest {
+
+    /**
+     * Test of getCounts method, of class DiscreteCountEngine.
+     */
+    @Test
+    public void testGetCounts() throws Exception {
+        DataSet dataSet = (DataSet) ResourceLoader.loadDataModel(Paths.get(DataFiles.SIM_DISC_20VAR_1KCASE), Delimiter.TAB);
+        DiscreteCountEngine countEngine = new DiscreteCountEngine(new DiscreteColumns(dataSet));
+
+        // counted from the data
+        assertCounts(dataSet, countEngine, new int[]{2, 7, 11, 15});
+
+        // laid out from the cached table
+        assertCounts(dataSet, countEngine, new int[]{15, 2, 11, 7});
+
+        // summed out from the cached table
+        assertCounts(dataSet, countEngine, new int[]{11, 2, 15});
+    }
+
+    private void assertCounts(DataSet dataSet, DiscreteCountEngine countEngine, int[] indices) {
+        CellTable cellTable = new CellTable(null);
+        cellTable.addToTable(dataSet, indices);
+
+        int[] dims = new int[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            dims[i] = countEngine.getData().getDimension(indices[i]);
+        }
+
+        long[] counts = countEngine.getCounts(indices);
+        int[] coords = new int[indices.length];
+        for (int cell = 0; cell < counts.length; cell++) {
+            int cellIndex = cell;
+            for (int i = indices.length - 1; i >= 0; i--) {
+                coords[i] = cellIndex % dims[i];
+                cellIndex /= dims[i];
+            }
+            Assertions.assertEquals(cellTable.getValue(coords), counts[cell]);
+        }
+    }
+
+}
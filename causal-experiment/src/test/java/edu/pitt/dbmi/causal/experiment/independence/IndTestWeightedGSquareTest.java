@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.independence;
+
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.search.IndTestGSquare;
+import edu.cmu.tetrad.search.IndependenceResult;
+import edu.cmu.tetrad.search.IndependenceTest;
+import edu.pitt.dbmi.causal.experiment.util.DataFiles;
+import edu.pitt.dbmi.causal.experiment.util.DataSampling;
+import edu.pitt.dbmi.causal.experiment.util.ResourceLoader;
+import edu.pitt.dbmi.data.reader.Delimiter;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * Apr 18, 2023 2:12:06 PM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class IndTestWeightedGSquareTest {
+
+    /**
+     * Test of checkIndependence method, of class IndTestWeightedGSquare.
+     */
+    @Test
+    public void testCheckIndependence() throws Exception {
+        DataSet dataSet = (DataSet) ResourceLoader.loadDataModel(Paths.get(DataFiles.SIM_DISC_20VAR_1KCASE), Delimiter.TAB);
+        long seed = 1681833615L;
+        int replicateIndex = 7;
+        double alpha = 0.05;
+
+        // the weighted test on the original data agrees with Tetrad's test on the resampled rows
+        DataSet sampleData = DataSampling.sampleWithReplacement(dataSet, seed, replicateIndex);
+        int[] weights = DataSampling.sampleWeights(dataSet, seed, replicateIndex);
+        IndependenceTest expected = new IndTestGSquare(sampleData, alpha);
+        IndependenceTest result = new IndTestWeightedGSquare(new DiscreteColumns(dataSet), weights, alpha);
+
+        List<Node> nodes = dataSet.getVariables();
+        for (int i = 0; i < 6; i++) {
+            Node x = nodes.get(i);
+            Node y = nodes.get(i + 1);
+            List<List<Node>> conditioningSets = Arrays.asList(
+                    Collections.emptyList(),
+                    Collections.singletonList(nodes.get(i + 2)),
+                    Arrays.asList(nodes.get(i + 2), nodes.get(i + 5)));
+            for (List<Node> z : conditioningSets) {
+                IndependenceResult expectedResult = expected.checkIndependence(x, y, z);
+                IndependenceResult actualResult = result.checkIndependence(x, y, z);
+                Assertions.assertEquals(expectedResult.getPValue(), actualResult.getPValue());
+                Assertions.assertEquals(expectedResult.independent(), actualResult.independent());
+            }
+        }
+    }
+
+    /**
+     * Test of checkIndependence method, of class IndTestWeightedGSquare, on
+     * random queries.
+     */
+    @Test
+    public void testCheckIndependenceRandomQueries() throws Exception {
+        DataSet dataSet = (DataSet) ResourceLoader.loadDataModel(Paths.get(DataFiles.SIM_DISC_20VAR_1KCASE), Delimiter.TAB);
+        long seed = 1683796335L;
+        double alpha = 0.05;
+
+        // the count engine gives the p-values of Tetrad's test over the replicates and conditioning sets
+        DiscreteColumns data = new DiscreteColumns(dataSet);
+        for (int replicateIndex = 0; replicateIndex < 3; replicateIndex++) {
+            DataSet sampleData = DataSampling.sampleWithReplacement(dataSet, seed, replicateIndex);
+            int[] weights = DataSampling.sampleWeights(dataSet, seed, replicateIndex);
+            IndependenceTest expected = new IndTestGSquare(sampleData, alpha);
+            IndependenceTest result = new IndTestWeightedGSquare(new DiscreteCountEngine(data, weights), alpha);
+
+            for (List<Node> query : RandomQueries.create(dataSet.getVariables(), 200, 4, seed + replicateIndex)) {
+                Node x = query.get(0);
+                Node y = query.get(1);
+                List<Node> z = query.subList(2, query.size());
+                IndependenceResult expectedResult = expected.checkIndependence(x, y, z);
+                IndependenceResult actualResult = result.checkIndependence(x, y, z);
+                Assertions.assertEquals(expectedResult.getPValue(), actualResult.getPValue(), query.toString());
+                Assertions.assertEquals(expectedResult.independent(), actualResult.independent(), query.toString());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.independence;
+
+import edu.cmu.tetrad.algcomparison.independence.ProbabilisticTest;
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.search.IndTestProbabilistic;
+import edu.cmu.tetrad.util.Parameters;
+import edu.cmu.tetrad.util.Params;
+import edu.pitt.dbmi.causal.experiment.util.DataFiles;
+import edu.pitt.dbmi.causal.experiment.util.DataSampling;
+import edu.pitt.dbmi.causal.experiment.util.ResourceLoader;
+import edu.pitt.dbmi.data.reader.Delimiter;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * Apr 19, 2023 1:48:10 PM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class ProbabilisticTestCacheTest {
+
+    /**
+     * Test of getProbability method, of class ProbabilisticTestCache.
+     */
+    @Test
+    public void testGetProbability() throws Exception {
+        DataSet dataSet = (DataSet) ResourceLoader.loadDataModel(Paths.get(DataFiles.SIM_DISC_20VAR_1KCASE), Delimiter.TAB);
+        Parameters parameters = new Parameters();
+
+        List<Node> nodes = dataSet.getVariables();
+        Node x = nodes.get(0);
+        Node y = nodes.get(1);
+        List<Node> z = Arrays.asList(nodes.get(2), nodes.get(3));
+
+        IndTestProbabilistic independenceTest = (IndTestProbabilistic) (new ProbabilisticTest()).getTest(dataSet, parameters);
+        independenceTest.setThreshold(true);
+        double expected = independenceTest.checkIndependence(x, y, z).getPValue();
+
+        ProbabilisticTestCache cache = new ProbabilisticTestCache(dataSet, parameters);
+        Assertions.assertEquals(expected, cache.getProbability(x, y, z), 1e-10);
+        Assertions.assertEquals(0, cache.getNumOfHits());
+        Assertions.assertEquals(1, cache.getNumOfMisses());
+
+        // the same query with the variables in a different order is a hit
+        Assertions.assertEquals(expected, cache.getProbability(y, x, Arrays.asList(nodes.get(3), nodes.get(2))), 1e-10);
+        Assertions.assertEquals(1, cache.getNumOfHits());
+        Assertions.assertEquals(1, cache.getNumOfMisses());
+    }
+
+    /**
+     * Test of getProbability method, of class ProbabilisticTestCache, with a
+     * prior equivalent sample size other than the default on data without
+     * missing values.
+     */
+    @Test
+    public void testGetProbabilityPriorEquivalentSampleSize() throws Exception {
+        DataSet dataSet = (DataSet) ResourceLoader.loadDataModel(Paths.get(DataFiles.SIM_DISC_20VAR_1KCASE), Delimiter.TAB);
+
+        List<Node> nodes = dataSet.getVariables();
+        Node x = nodes.get(0);
+        Node y = nodes.get(1);
+        List<Node> z = Arrays.asList(nodes.get(2), nodes.get(3));
+
+        Parameters parameters = new Parameters();
+        parameters.set(Params.PRIOR_EQUIVALENT_SAMPLE_SIZE, 10.0);
+        double probability = (new ProbabilisticTestCache(dataSet, parameters)).getProbability(x, y, z);
+
+        // Tetrad's test would ignore the prior here
+        parameters.set(Params.PRIOR_EQUIVALENT_SAMPLE_SIZE, 1.0);
+        Assertions.assertNotEquals(probability, (new ProbabilisticTestCache(dataSet, parameters)).getProbability(x, y, z), 1e-6);
+    }
+
+    /**
+     * Test of getProbability method, of class ProbabilisticTestCache, on
+     * random queries.
+     */
+    @Test
+    public void testGetProbabilityRandomQueries() throws Exception {
+        DataSet dataSet = (DataSet) ResourceLoader.loadDataModel(Paths.get(DataFiles.SIM_DISC_20VAR_1KCASE), Delimiter.TAB);
+        Parameters parameters = new Parameters();
+        long seed = 1683797012L;
+
+        // the count engine gives the probabilities of Tetrad's test over the replicates and conditioning sets
+        DiscreteColumns data = new DiscreteColumns(dataSet);
+        for (int replicateIndex = 0; replicateIndex < 3; replicateIndex++) {
+            DataSet sampleData = DataSampling.sampleWithReplacement(dataSet, seed, replicateIndex);
+            int[] weights = DataSampling.sampleWeights(dataSet, seed, replicateIndex);
+            IndTestProbabilistic expected = (IndTestProbabilistic) (new ProbabilisticTest()).getTest(sampleData, parameters);
+            expected.setThreshold(true);
+            ProbabilisticTestCache result = new ProbabilisticTestCache(new DiscreteCountEngine(data, weights), parameters);
+
+            for (List<Node> query : RandomQueries.create(dataSet.getVariables(), 200, 4, seed + replicateIndex)) {
+                Node x = query.get(0);
+                Node y = query.get(1);
+                List<Node> z = query.subList(2, query.size());
+                Assertions.assertEquals(expected.checkIndependence(x, y, z).getPValue(), result.getProbability(x, y, z), 1e-10, query.toString());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.independence;
+
+import edu.cmu.tetrad.graph.Node;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Random queries of a test of independence, for comparing the tests of the
+ * count engine with Tetrad's tests.
+ *
+ * May 11, 2023 9:42:15 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+final class RandomQueries {
+
+    private RandomQueries() {
+    }
+
+    /**
+     * Draw the queries, each of two variables and a conditioning set. The
+     * sizes of the conditioning sets go round from 0 to maxDepth.
+     *
+     * @param variables variables to draw from
+     * @param numOfQueries number of queries
+     * @param maxDepth largest conditioning set
+     * @param seed seed of the draws
+     * @return the queries, each a list of x, y and the conditioning
+     * variables
+     */
+    static List<List<Node>> create(List<Node> variables, int numOfQueries, int maxDepth, long seed) {
+        Random random = new Random(seed);
+
+        List<List<Node>> queries = new ArrayList<>(numOfQueries);
+        List<Node> shuffled = new ArrayList<>(variables);
+        for (int i = 0; i < numOfQueries; i++) {
+            Collections.shuffle(shuffled, random);
+            queries.add(new ArrayList<>(shuffled.subList(0, 2 + i % (maxDepth + 1))));
+        }
+
+        return queries;
+    }
+
+}
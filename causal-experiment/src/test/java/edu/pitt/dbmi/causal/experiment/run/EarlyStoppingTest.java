@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.run;
+
+import edu.cmu.tetrad.graph.EdgeListGraph;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.GraphNode;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.util.Parameters;
+import edu.pitt.dbmi.causal.experiment.tetrad.EdgeTypeAggregator;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * May 11, 2023 2:17:36 PM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class EarlyStoppingTest {
+
+    /**
+     * Test of isConverged method, of class EarlyStopping.
+     */
+    @Test
+    public void testIsConverged() {
+        Parameters parameters = new Parameters();
+        parameters.set(RunnerParams.EARLY_STOPPING, true);
+        EarlyStopping earlyStopping = new EarlyStopping(parameters, 100);
+
+        Node x = new GraphNode("X");
+        Node y = new GraphNode("Y");
+        List<Node> nodes = Arrays.asList(x, y);
+
+        // an edge in all of the first 20 PAGs is not yet known well enough
+        EdgeTypeAggregator aggregator = new EdgeTypeAggregator();
+        for (int i = 0; i < 20; i++) {
+            Graph graph = new EdgeListGraph(nodes);
+            graph.addDirectedEdge(x, y);
+            aggregator.add(graph);
+        }
+        Assertions.assertFalse(earlyStopping.isConverged(aggregator));
+
+        // but is after 40
+        for (int i = 0; i < 20; i++) {
+            Graph graph = new EdgeListGraph(nodes);
+            graph.addDirectedEdge(x, y);
+            aggregator.add(graph);
+        }
+        Assertions.assertTrue(earlyStopping.isConverged(aggregator));
+    }
+
+}
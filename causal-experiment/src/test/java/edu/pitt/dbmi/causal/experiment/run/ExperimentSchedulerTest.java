@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.run;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * May 4, 2023 10:12:55 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class ExperimentSchedulerTest {
+
+    /**
+     * Test of await method, of class ExperimentScheduler.
+     */
+    @Test
+    public void testAwait() throws Exception {
+        int maxConcurrency = 3;
+        AtomicInteger numOfRunningTasks = new AtomicInteger();
+        AtomicInteger maxNumOfRunningTasks = new AtomicInteger();
+        AtomicInteger numOfTasks = new AtomicInteger();
+        try (ExperimentScheduler scheduler = new ExperimentScheduler(maxConcurrency)) {
+            ExperimentScheduler.Task task = () -> {
+                maxNumOfRunningTasks.accumulateAndGet(numOfRunningTasks.incrementAndGet(), Math::max);
+                Thread.sleep(5);
+                numOfRunningTasks.decrementAndGet();
+                numOfTasks.incrementAndGet();
+            };
+
+            // each seed submits its runners
+            for (int i = 0; i < 10; i++) {
+                scheduler.submit(() -> {
+                    task.run();
+                    for (int j = 0; j < 3; j++) {
+                        scheduler.submit(task);
+                    }
+                });
+            }
+
+            scheduler.await();
+            Assertions.assertEquals(40, numOfTasks.get());
+            Assertions.assertTrue(maxNumOfRunningTasks.get() <= maxConcurrency);
+        }
+    }
+
+    /**
+     * Test of close method, of class ExperimentScheduler.
+     */
+    @Test
+    public void testClose() throws Exception {
+        AtomicInteger numOfTasks = new AtomicInteger();
+        ExperimentScheduler scheduler = new ExperimentScheduler(2);
+        scheduler.submit(() -> {
+            throw new IOException("first");
+        });
+        scheduler.submit(() -> scheduler.submit(numOfTasks::incrementAndGet));
+        scheduler.submit(() -> {
+            throw new IOException("second");
+        });
+
+        IOException exception = Assertions.assertThrows(IOException.class, scheduler::close);
+        Assertions.assertEquals("first", exception.getMessage());
+        Assertions.assertEquals(1, exception.getSuppressed().length);
+        Assertions.assertEquals(1, numOfTasks.get());
+        Assertions.assertThrows(IllegalStateException.class, () -> scheduler.submit(numOfTasks::incrementAndGet));
+    }
+
+    /**
+     * Test of getNumOfThreadsPerTask method, of class ExperimentScheduler.
+     */
+    @Test
+    public void testGetNumOfThreadsPerTask() throws Exception {
+        int numOfProcessors = Runtime.getRuntime().availableProcessors();
+        try (ExperimentScheduler scheduler = new ExperimentScheduler(1)) {
+            Assertions.assertEquals(numOfProcessors, scheduler.getNumOfThreadsPerTask());
+        }
+        try (ExperimentScheduler scheduler = new ExperimentScheduler(numOfProcessors * 2)) {
+            Assertions.assertEquals(1, scheduler.getNumOfThreadsPerTask());
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.run;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * Apr 29, 2023 11:02:48 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class OutputStageTest {
+
+    /**
+     * Test of close method, of class OutputStage.
+     */
+    @Test
+    public void testClose() throws Exception {
+        AtomicInteger numOfOutputs = new AtomicInteger();
+        try (OutputStage outputStage = new OutputStage(2)) {
+            for (int i = 0; i < 100; i++) {
+                outputStage.submit(() -> {
+                    Thread.sleep(1);
+                    numOfOutputs.incrementAndGet();
+                });
+            }
+        }
+        Assertions.assertEquals(100, numOfOutputs.get());
+    }
+
+    /**
+     * Test of await method, of class OutputStage.
+     */
+    @Test
+    public void testAwait() throws Exception {
+        AtomicInteger numOfOutputs = new AtomicInteger();
+        try (OutputStage outputStage = new OutputStage(2)) {
+            outputStage.submit(() -> {
+                throw new IOException("first");
+            });
+            outputStage.submit(numOfOutputs::incrementAndGet);
+            outputStage.submit(() -> {
+                throw new IOException("second");
+            });
+
+            IOException exception = Assertions.assertThrows(IOException.class, outputStage::await);
+            Assertions.assertEquals("first", exception.getMessage());
+            Assertions.assertEquals(1, exception.getSuppressed().length);
+            Assertions.assertEquals(1, numOfOutputs.get());
+
+            // the failures have been reported
+            outputStage.await();
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.run;
+
+import edu.cmu.tetrad.util.Params;
+import edu.pitt.dbmi.causal.experiment.util.SweepFiles;
+import java.io.StringReader;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * May 9, 2023 3:11:27 PM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class ParameterSweepTest {
+
+    /**
+     * Test of read method, of class ParameterSweep.
+     */
+    @Test
+    public void testRead() throws Exception {
+        List<ParameterSweep.Job> jobs = ParameterSweep.read(Paths.get(SweepFiles.RFCI_SWEEP)).getJobs();
+
+        // 1 pag sampling job, 2 probabilistic jobs and 2 g square jobs
+        Assertions.assertEquals(5, jobs.size());
+        Assertions.assertEquals(
+                Arrays.asList(RunnerType.PAG_SAMPLING_RFCI, RunnerType.RFCI_PROBABILISTIC_BOOTSTRAP, RunnerType.RFCI_PROBABILISTIC_BOOTSTRAP, RunnerType.RFCI_G_SQUARE_BOOTSTRAP, RunnerType.RFCI_G_SQUARE_BOOTSTRAP),
+                jobs.stream().map(ParameterSweep.Job::getRunnerType).collect(Collectors.toList()));
+        Assertions.assertEquals(
+                Arrays.asList("job_1", "job_2", "job_3", "job_4", "job_5"),
+                jobs.stream().map(ParameterSweep.Job::getName).collect(Collectors.toList()));
+
+        Assertions.assertEquals(-1, jobs.get(1).getParameters().getInt(Params.DEPTH));
+        Assertions.assertEquals(3, jobs.get(2).getParameters().getInt(Params.DEPTH));
+
+        ParameterSweep.Job job = jobs.get(4);
+        Assertions.assertEquals(0.05, job.getParameters().getDouble(Params.ALPHA));
+        Assertions.assertEquals(-1, job.getParameters().getInt(Params.DEPTH));
+        Assertions.assertEquals(1673588774198L, job.getParameters().getLong(Params.SEED));
+        Assertions.assertTrue(job.getParameters().getBoolean(Params.ADD_ORIGINAL_DATASET));
+        Assertions.assertFalse(job.getParameters().getParametersNames().contains(Params.PRIOR_EQUIVALENT_SAMPLE_SIZE));
+    }
+
+    /**
+     * Test of read method, of class ParameterSweep, for a grid sweep.
+     */
+    @Test
+    public void testReadGrid() throws Exception {
+        String sweep = "runners = rfic_g2_bootstrap\n"
+                + "alpha = 0.01, 0.05\n"
+                + "depth = -1, 2, 3\n"
+                + "numThreads = 4\n";
+        List<ParameterSweep.Job> jobs = ParameterSweep.read(new StringReader(sweep)).getJobs();
+
+        // the first parameter varies the slowest
+        Assertions.assertEquals(
+                Arrays.asList("0.01 -1", "0.01 2", "0.01 3", "0.05 -1", "0.05 2", "0.05 3"),
+                jobs.stream()
+                        .map(job -> job.getParameters().getDouble(Params.ALPHA) + " " + job.getParameters().getInt(Params.DEPTH))
+                        .collect(Collectors.toList()));
+        Assertions.assertEquals(4, jobs.get(5).getParameters().getInt(RunnerParams.NUM_THREADS));
+    }
+
+    /**
+     * Test of read method, of class ParameterSweep, for a list sweep.
+     */
+    @Test
+    public void testReadList() throws Exception {
+        String sweep = "runners = rfic_g2_bootstrap\n"
+                + "sweep = list\n"
+                + "alpha = 0.01, 0.05, 0.1\n"
+                + "depth = -1, 2, 3\n"
+                + "seed = 7\n"
+                + "rfic_g2_bootstrap.seed = 11\n";
+        List<ParameterSweep.Job> jobs = ParameterSweep.read(new StringReader(sweep)).getJobs();
+
+        Assertions.assertEquals(
+                Arrays.asList("0.01 -1 11", "0.05 2 11", "0.1 3 11"),
+                jobs.stream()
+                        .map(job -> job.getParameters().getDouble(Params.ALPHA) + " " + job.getParameters().getInt(Params.DEPTH) + " " + job.getParameters().getLong(Params.SEED))
+                        .collect(Collectors.toList()));
+
+        String unequalLists = "runners = rfic_g2_bootstrap\n"
+                + "sweep = list\n"
+                + "alpha = 0.01, 0.05, 0.1\n"
+                + "depth = -1, 2\n";
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ParameterSweep.read(new StringReader(unequalLists)));
+
+        String unknownRunner = "runners = rfic_g2_bootstrap\n"
+                + "fci.alpha = 0.01\n";
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ParameterSweep.read(new StringReader(unknownRunner)));
+    }
+
+    /**
+     * Test of getJobGroups method, of class ParameterSweep.
+     */
+    @Test
+    public void testGetJobGroups() throws Exception {
+        String sweep = "runners = rfic_g2_bootstrap, rfic_chi2_bootstrap\n"
+                + "alpha = 0.01, 0.05\n"
+                + "graphImageFormat = png, svg\n";
+        ParameterSweep parameterSweep = ParameterSweep.read(new StringReader(sweep));
+
+        // jobs that differ only in the image format share their search results
+        List<List<ParameterSweep.Job>> jobGroups = parameterSweep.getJobGroups();
+        Assertions.assertEquals(8, parameterSweep.getJobs().size());
+        Assertions.assertEquals(4, jobGroups.size());
+        for (List<ParameterSweep.Job> jobs : jobGroups) {
+            Assertions.assertEquals(2, jobs.size());
+            Assertions.assertEquals(jobs.get(0).getRunnerType(), jobs.get(1).getRunnerType());
+            Assertions.assertEquals(jobs.get(0).getParameters().getDouble(Params.ALPHA), jobs.get(1).getParameters().getDouble(Params.ALPHA));
+        }
+    }
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.run;
+
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.util.Parameters;
+import edu.cmu.tetrad.util.Params;
+import edu.pitt.dbmi.causal.experiment.util.DataFiles;
+import edu.pitt.dbmi.causal.experiment.util.GraphFiles;
+import edu.pitt.dbmi.causal.experiment.util.ResourceLoader;
+import edu.pitt.dbmi.data.reader.Delimiter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ *
+ * May 8, 2023 3:05:12 PM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class ResultCacheTest {
+
+    private static final long SEED = 1683572712L;
+
+    @TempDir
+    public Path tempDir;
+
+    /**
+     * Test of createKey method, of class ResultCache.
+     */
+    @Test
+    public void testCreateKey() throws Exception {
+        DataSet dataSet = (DataSet) ResourceLoader.loadDataModel(Paths.get(DataFiles.SIM_DISC_20VAR_1KCASE), Delimiter.TAB);
+        DataSet dataSet2 = (DataSet) ResourceLoader.loadDataModel(Paths.get(DataFiles.SIM_DISC_20VAR_1KCASE_2), Delimiter.TAB);
+        Graph trueGraph = ResourceLoader.loadGraph(Paths.get(GraphFiles.SIM_DISC_20VAR_1KCASE_TRUE_GRAPH));
+
+        String key = ResultCache.createKey(dataSet, trueGraph, "RFCI", "G Square Test", getParameters(), SEED);
+        Assertions.assertEquals(64, key.length());
+
+        // same data and parameters loaded again
+        DataSet sameDataSet = (DataSet) ResourceLoader.loadDataModel(Paths.get(DataFiles.SIM_DISC_20VAR_1KCASE), Delimiter.TAB);
+        Graph sameTrueGraph = ResourceLoader.loadGraph(Paths.get(GraphFiles.SIM_DISC_20VAR_1KCASE_TRUE_GRAPH));
+        Assertions.assertEquals(key, ResultCache.createKey(sameDataSet, sameTrueGraph, "RFCI", "G Square Test", getParameters(), SEED));
+
+        // settings that do not change the results
+        Parameters parameters = getParameters();
+        parameters.set(RunnerParams.NUM_THREADS, 3);
+        parameters.set(RunnerParams.RESUME, true);
+        Assertions.assertEquals(key, ResultCache.createKey(dataSet, trueGraph, "RFCI", "G Square Test", parameters, SEED));
+
+        parameters = getParameters();
+        parameters.set(Params.ALPHA, 0.01);
+        Assertions.assertNotEquals(key, ResultCache.createKey(dataSet, trueGraph, "RFCI", "G Square Test", parameters, SEED));
+        Assertions.assertNotEquals(key, ResultCache.createKey(dataSet2, trueGraph, "RFCI", "G Square Test", getParameters(), SEED));
+        Assertions.assertNotEquals(key, ResultCache.createKey(dataSet, trueGraph, "RFCI", "Chi Square Test", getParameters(), SEED));
+        Assertions.assertNotEquals(key, ResultCache.createKey(dataSet, trueGraph, "RFCI", "G Square Test", getParameters(), SEED + 1));
+    }
+
+    /**
+     * Test of get method, of class ResultCache.
+     */
+    @Test
+    public void testGet() throws Exception {
+        ResultCache resultCache = new ResultCache(tempDir.resolve("cache"), ResultCache.DEFAULT_MAX_SIZE);
+        Path ensembleFile = tempDir.resolve("pag_ensemble.bin");
+        Path copiedEnsembleFile = tempDir.resolve("copied_pag_ensemble.bin");
+
+        Assertions.assertNull(resultCache.get("key", copiedEnsembleFile));
+
+        Files.write(ensembleFile, new byte[]{1, 2, 3});
+        resultCache.put("key", ensembleFile, new SearchResults(99, 101, 2));
+
+        SearchResults searchResults = resultCache.get("key", copiedEnsembleFile);
+        Assertions.assertNotNull(searchResults);
+        Assertions.assertEquals(99, searchResults.getNumOfLegalPags());
+        Assertions.assertEquals(101, searchResults.getNumOfSearchRuns());
+        Assertions.assertEquals(2, searchResults.getNumOfAdditionalSearchRuns());
+        Assertions.assertArrayEquals(Files.readAllBytes(ensembleFile), Files.readAllBytes(copiedEnsembleFile));
+    }
+
+    /**
+     * Test of put method, of class ResultCache.
+     */
+    @Test
+    public void testPut() throws Exception {
+        // room for two ensembles and their search counts
+        Path cacheDir = tempDir.resolve("cache");
+        ResultCache resultCache = new ResultCache(cacheDir, 2 * 1024 + 512);
+        Path ensembleFile = tempDir.resolve("pag_ensemble.bin");
+        Files.write(ensembleFile, new byte[1024]);
+        Path copiedEnsembleFile = tempDir.resolve("copied_pag_ensemble.bin");
+
+        resultCache.put("key1", ensembleFile, new SearchResults(1, 1, 0));
+        Thread.sleep(20);
+        resultCache.put("key2", ensembleFile, new SearchResults(2, 2, 0));
+        Thread.sleep(20);
+
+        // key1 is used more recently than key2
+        Assertions.assertNotNull(resultCache.get("key1", copiedEnsembleFile));
+        Thread.sleep(20);
+        resultCache.put("key3", ensembleFile, new SearchResults(3, 3, 0));
+
+        Assertions.assertNotNull(resultCache.get("key1", copiedEnsembleFile));
+        Assertions.assertNull(resultCache.get("key2", copiedEnsembleFile));
+        Assertions.assertNotNull(resultCache.get("key3", copiedEnsembleFile));
+        Assertions.assertTrue(Files.notExists(cacheDir.resolve("key2")));
+    }
+
+    private Parameters getParameters() {
+        Parameters parameters = new Parameters();
+        parameters.set(Params.DEPTH, -1);
+        parameters.set(Params.ALPHA, 0.05);
+        parameters.set(Params.SEED, SEED);
+        parameters.set(Params.NUMBER_RESAMPLING, 99);
+
+        return parameters;
+    }
+
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.run;
+
+import edu.cmu.tetrad.graph.EdgeListGraph;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.GraphNode;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.util.Parameters;
+import edu.cmu.tetrad.util.Params;
+import edu.pitt.dbmi.causal.experiment.tetrad.PagEnsembleWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ *
+ * May 5, 2023 11:20:41 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class SearchCheckpointTest {
+
+    private static final long SEED = 1683300041L;
+    private static final int NUM_OF_REPLICATES = 30;
+    private static final int CHECKPOINT_INTERVAL = 4;
+
+    private final List<Node> nodes = Arrays.asList(new GraphNode("X1"), new GraphNode("X2"), new GraphNode("X3"), new GraphNode("X4"));
+
+    @TempDir
+    public Path tempDir;
+
+    /**
+     * Test of restore method, of class SearchCheckpoint.
+     */
+    @Test
+    public void testRestore() throws Exception {
+        List<String> expected = new LinkedList<>();
+        SearchResults expectedResults = search(tempDir.resolve("uninterrupted"), SEED, expected, -1);
+
+        // the run dies at replicate 21 without closing the ensemble file
+        Path dirOut = tempDir.resolve("interrupted");
+        Assertions.assertThrows(ExecutionException.class, () -> search(dirOut, SEED, new LinkedList<>(), 21));
+
+        List<String> pags = new LinkedList<>();
+        SearchResults results = search(dirOut, SEED, pags, -1);
+
+        Assertions.assertEquals(expected, pags);
+        Assertions.assertEquals(expectedResults.getNumOfLegalPags(), results.getNumOfLegalPags());
+        Assertions.assertEquals(expectedResults.getNumOfSearchRuns(), results.getNumOfSearchRuns());
+        Assertions.assertEquals(expectedResults.getNumOfAdditionalSearchRuns(), results.getNumOfAdditionalSearchRuns());
+    }
+
+    /**
+     * Test of load method, of class SearchCheckpoint.
+     */
+    @Test
+    public void testLoad() throws Exception {
+        Path dirOut = tempDir.resolve("run");
+        Assertions.assertThrows(ExecutionException.class, () -> search(dirOut, SEED, new LinkedList<>(), 10));
+
+        SearchCheckpoint checkpoint = new SearchCheckpoint(dirOut, dirOut.resolve("pag_ensemble.bin"), SEED + 1, NUM_OF_REPLICATES, CHECKPOINT_INTERVAL);
+        Assertions.assertThrows(IOException.class, checkpoint::load);
+
+        // the PAGs of the checkpoint are gone
+        Files.delete(dirOut.resolve("pag_ensemble.bin"));
+        SearchCheckpoint resumed = new SearchCheckpoint(dirOut, dirOut.resolve("pag_ensemble.bin"), SEED, NUM_OF_REPLICATES, CHECKPOINT_INTERVAL);
+        IOException exception = Assertions.assertThrows(IOException.class, resumed::load);
+        Assertions.assertTrue(exception.getMessage().contains("has no PAG ensemble"));
+    }
+
+    /**
+     * Test of readSeed method, of class SearchCheckpoint.
+     */
+    @Test
+    public void testReadSeed() throws Exception {
+        Path dirOut = tempDir.resolve("unseeded");
+        Assertions.assertNull(SearchCheckpoint.readSeed(dirOut));
+
+        // a run without a seed picks one from the clock
+        Parameters parameters = new Parameters();
+        parameters.set(Params.SEED, -1);
+        AbstractRunner runner = new AbstractRunner(null, parameters) {
+            @Override
+            public void run(Path parentOutDir) {
+            }
+        };
+        long seed = runner.getSeed(dirOut);
+        Assertions.assertThrows(ExecutionException.class, () -> search(dirOut, seed, new LinkedList<>(), 13));
+
+        // resuming takes the seed of the run instead of a new one
+        parameters.set(RunnerParams.RESUME, true);
+        long resumedSeed = runner.getSeed(dirOut);
+        Assertions.assertEquals(seed, resumedSeed);
+
+        List<String> expected = new LinkedList<>();
+        search(tempDir.resolve("uninterrupted"), seed, expected, -1);
+
+        List<String> pags = new LinkedList<>();
+        search(dirOut, resumedSeed, pags, -1);
+        Assertions.assertEquals(expected, pags);
+    }
+
+    /**
+     * Run the searches the way the bootstrap runners do, continuing from the
+     * last checkpoint in the directory. The search of the replicate at the
+     * failure index throws an exception.
+     */
+    private SearchResults search(Path dirOut, long seed, List<String> pags, int failureIndex) throws Exception {
+        Files.createDirectories(dirOut);
+        Path ensembleFile = dirOut.resolve("pag_ensemble.bin");
+
+        SearchCheckpoint checkpoint = new SearchCheckpoint(dirOut, ensembleFile, seed, NUM_OF_REPLICATES, CHECKPOINT_INTERVAL);
+        SearchResults progress = checkpoint.load();
+
+        // not closed on failure, like a killed run
+        PagEnsembleWriter ensembleWriter = new PagEnsembleWriter(ensembleFile, nodes, true);
+        Consumer<Graph> legalPags = graph -> {
+            try {
+                ensembleWriter.write(graph);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+            pags.add(graph.getEdges().toString());
+        };
+        checkpoint.restore(progress, nodes, legalPags);
+
+        IntFunction<Integer> replicates = replicateIndex -> {
+            if (replicateIndex == failureIndex) {
+                throw new IllegalStateException("Out of memory.");
+            }
+
+            return replicateIndex;
+        };
+        SearchResults results = new ParallelSearchExecutor(3).search(
+                progress,
+                NUM_OF_REPLICATES,
+                replicates,
+                this::createPag,
+                legalPags,
+                () -> false,
+                checkpoint.saveEvery(ensembleWriter));
+        checkpoint.save(results, ensembleWriter);
+        ensembleWriter.close();
+
+        return results;
+    }
+
+    /**
+     * Every fifth replicate gives a directed edge, which is not a legal PAG.
+     */
+    private Graph createPag(int replicateIndex) {
+        Graph graph = new EdgeListGraph(nodes);
+        Node node1 = nodes.get(replicateIndex % nodes.size());
+        Node node2 = nodes.get((replicateIndex + 1 + replicateIndex / nodes.size()) % nodes.size());
+        if (node1 != node2) {
+            if (replicateIndex % 5 == 4) {
+                graph.addDirectedEdge(node1, node2);
+            } else {
+                graph.addNondirectedEdge(node1, node2);
+            }
+        }
+
+        return graph;
+    }
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.run;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * May 12, 2023 2:08:41 PM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class ShardCoordinatorTest {
+
+    /**
+     * Test of isWorkerOption method, of class ShardCoordinator.
+     */
+    @Test
+    public void testIsWorkerOption() {
+        Assertions.assertTrue(ShardCoordinator.isWorkerOption("-Xmx8g"));
+        Assertions.assertTrue(ShardCoordinator.isWorkerOption("-Djava.awt.headless=true"));
+        Assertions.assertTrue(ShardCoordinator.isWorkerOption("-Dfile.encoding=UTF-8"));
+
+        Assertions.assertFalse(ShardCoordinator.isWorkerOption("-agentlib:jdwp=transport=dt_socket,server=y,suspend=n,address=5005"));
+        Assertions.assertFalse(ShardCoordinator.isWorkerOption("-javaagent:/opt/agent.jar"));
+        Assertions.assertFalse(ShardCoordinator.isWorkerOption("-Xdebug"));
+        Assertions.assertFalse(ShardCoordinator.isWorkerOption("-Xrunjdwp:transport=dt_socket,address=5005"));
+        Assertions.assertFalse(ShardCoordinator.isWorkerOption("-Dcom.sun.management.jmxremote.port=9010"));
+    }
+
+}
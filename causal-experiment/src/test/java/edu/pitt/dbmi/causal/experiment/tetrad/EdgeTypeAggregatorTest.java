@@ -0,0 +1,246 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.tetrad;
+
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.graph.Edge;
+import edu.cmu.tetrad.graph.EdgeListGraph;
+import edu.cmu.tetrad.graph.EdgeTypeProbability;
+import edu.cmu.tetrad.graph.EdgeTypeProbability.EdgeType;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.GraphNode;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.search.IndTestGSquare;
+import edu.cmu.tetrad.search.Rfci;
+import edu.cmu.tetrad.util.GraphSampling;
+import edu.pitt.dbmi.causal.experiment.util.DataFiles;
+import edu.pitt.dbmi.causal.experiment.util.DataSampling;
+import edu.pitt.dbmi.causal.experiment.util.ResourceLoader;
+import edu.pitt.dbmi.data.reader.Delimiter;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ *
+ * Apr 20, 2023 4:48:10 PM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class EdgeTypeAggregatorTest {
+
+    @TempDir
+    public Path tempDir;
+
+    /**
+     * Test of getMaxConfidenceIntervalWidth method, of class
+     * EdgeTypeAggregator.
+     */
+    @Test
+    public void testGetMaxConfidenceIntervalWidth() {
+        Node x = new GraphNode("X");
+        Node y = new GraphNode("Y");
+        Node z = new GraphNode("Z");
+        List<Node> nodes = Arrays.asList(x, y, z);
+
+        // X-->Y in 2 of 4 graphs and Y<->Z in all of them
+        EdgeTypeAggregator aggregator = new EdgeTypeAggregator();
+        for (int i = 0; i < 4; i++) {
+            Graph graph = new EdgeListGraph(nodes);
+            if (i % 2 == 0) {
+                graph.addDirectedEdge(x, y);
+            }
+            graph.addBidirectedEdge(y, z);
+            aggregator.add(graph);
+        }
+
+        // Wilson score interval of X-->Y
+        double z2 = 1.96 * 1.96;
+        double expected = 2 * 1.96 * Math.sqrt(0.5 * 0.5 / 4 + z2 / (4 * 4 * 4)) / (1 + z2 / 4);
+        double result = aggregator.getMaxConfidenceIntervalWidth(1.96);
+        Assertions.assertEquals(expected, result, 1e-12);
+
+        // an edge in all the graphs still has an interval
+        EdgeTypeAggregator certainAggregator = new EdgeTypeAggregator();
+        for (int i = 0; i < 4; i++) {
+            Graph graph = new EdgeListGraph(nodes);
+            graph.addBidirectedEdge(y, z);
+            certainAggregator.add(graph);
+        }
+        Assertions.assertEquals(z2 / (4 + z2), certainAggregator.getMaxConfidenceIntervalWidth(1.96), 1e-12);
+    }
+
+    /**
+     * Test of createGraphWithHighProbabilityEdges method, of class
+     * EdgeTypeAggregator.
+     */
+    @Test
+    public void testCreateGraphWithHighProbabilityEdges() throws Exception {
+        DataSet dataSet = (DataSet) ResourceLoader.loadDataModel(Paths.get(DataFiles.SIM_DISC_20VAR_1KCASE), Delimiter.TAB);
+        long seed = 1682020090L;
+
+        EdgeTypeAggregator aggregator = new EdgeTypeAggregator();
+        List<Graph> graphs = new LinkedList<>();
+        for (int i = 0; i < 10; i++) {
+            Rfci rfci = new Rfci(new IndTestGSquare(DataSampling.sampleWithReplacement(dataSet, seed, i), 0.05));
+            Graph graph = rfci.search();
+
+            // both add PAG colorings to the graphs
+            graphs.add(new EdgeListGraph(graph));
+            aggregator.add(graph);
+        }
+
+        // GraphSampling orders edge types with equal probabilities by hash code
+        Graph expected = GraphSampling.createGraphWithHighProbabilityEdges(graphs);
+        Graph result = aggregator.createGraphWithHighProbabilityEdges();
+        Assertions.assertEquals(graphs.size(), aggregator.getNumOfGraphs());
+        Assertions.assertEquals(expected.getNumEdges(), result.getNumEdges());
+        Assertions.assertEquals(getEdgeTypeProbabilities(expected), getEdgeTypeProbabilities(result));
+    }
+
+    /**
+     * Test of createGraphWithHighProbabilityEdges method, of class
+     * EdgeTypeAggregator.
+     */
+    @Test
+    public void testCreateGraphWithHighProbabilityEdgesWithTies() {
+        Node x = new GraphNode("X");
+        Node y = new GraphNode("Y");
+        List<Node> nodes = Arrays.asList(x, y);
+
+        // X<->Y, X<--Y, X-->Y and X<->Y again
+        EdgeTypeAggregator aggregator = new EdgeTypeAggregator();
+        for (int i = 0; i < 4; i++) {
+            Graph graph = new EdgeListGraph(nodes);
+            switch (i) {
+                case 1:
+                    graph.addDirectedEdge(y, x);
+                    break;
+                case 2:
+                    graph.addDirectedEdge(x, y);
+                    break;
+                default:
+                    graph.addBidirectedEdge(x, y);
+            }
+            aggregator.add(graph);
+        }
+
+        // the edge types with equal probabilities are in the order they were first seen
+        Edge edge = aggregator.createGraphWithHighProbabilityEdges().getEdge(x, y);
+        List<EdgeType> edgeTypes = edge.getEdgeTypeProbabilities().stream()
+                .map(EdgeTypeProbability::getEdgeType)
+                .collect(Collectors.toList());
+        Assertions.assertEquals(Arrays.asList(EdgeType.aa, EdgeType.at, EdgeType.ta), edgeTypes);
+    }
+
+    /**
+     * Test of merge method, of class EdgeTypeAggregator.
+     */
+    @Test
+    public void testMerge() throws Exception {
+        DataSet dataSet = (DataSet) ResourceLoader.loadDataModel(Paths.get(DataFiles.SIM_DISC_20VAR_1KCASE), Delimiter.TAB);
+        long seed = 1683720120L;
+
+        // the first 4 graphs in one aggregator and the last 6 in another
+        EdgeTypeAggregator expected = new EdgeTypeAggregator();
+        EdgeTypeAggregator first = new EdgeTypeAggregator();
+        EdgeTypeAggregator last = new EdgeTypeAggregator();
+        for (int i = 0; i < 10; i++) {
+            Rfci rfci = new Rfci(new IndTestGSquare(DataSampling.sampleWithReplacement(dataSet, seed, i), 0.05));
+            Graph graph = rfci.search();
+
+            expected.add(new EdgeListGraph(graph));
+            if (i < 4) {
+                first.add(graph);
+            } else {
+                last.add(graph);
+            }
+        }
+
+        // the counts of the last graphs go through a file, like the ones of a shard worker
+        Path countsFile = tempDir.resolve("edge_type_counts.bin");
+        last.write(countsFile);
+        first.merge(EdgeTypeAggregator.read(countsFile));
+
+        Assertions.assertEquals(expected.getNumOfGraphs(), first.getNumOfGraphs());
+        Assertions.assertEquals(
+                expected.createGraphWithHighProbabilityEdges().toString(),
+                first.createGraphWithHighProbabilityEdges().toString());
+    }
+
+    /**
+     * Test of merge method, of class EdgeTypeAggregator, when the node pair
+     * is first seen in the other orientation.
+     */
+    @Test
+    public void testMergeReversed() {
+        Node x = new GraphNode("X");
+        Node y = new GraphNode("Y");
+        List<Node> nodes = Arrays.asList(x, y);
+
+        Graph graph1 = new EdgeListGraph(nodes);
+        graph1.addDirectedEdge(x, y);
+        Graph graph2 = new EdgeListGraph(nodes);
+        graph2.addDirectedEdge(y, x);
+        Graph graph3 = new EdgeListGraph(nodes);
+        graph3.addBidirectedEdge(y, x);
+
+        EdgeTypeAggregator expected = new EdgeTypeAggregator();
+        expected.add(new EdgeListGraph(graph1));
+        expected.add(new EdgeListGraph(graph2));
+        expected.add(new EdgeListGraph(graph3));
+
+        EdgeTypeAggregator first = new EdgeTypeAggregator();
+        first.add(graph1);
+        EdgeTypeAggregator last = new EdgeTypeAggregator();
+        last.add(graph2);
+        last.add(graph3);
+        first.merge(last);
+
+        Assertions.assertEquals(
+                expected.createGraphWithHighProbabilityEdges().toString(),
+                first.createGraphWithHighProbabilityEdges().toString());
+    }
+
+    /**
+     * Get the edge-type probabilities of each node pair, regardless of their
+     * order.
+     */
+    private static Map<String, Set<String>> getEdgeTypeProbabilities(Graph graph) {
+        Map<String, Set<String>> edgeTypeProbabilities = new HashMap<>();
+        for (Edge edge : graph.getEdges()) {
+            Set<String> probabilities = edge.getEdgeTypeProbabilities().stream()
+                    .map(etp -> String.format("%s %s %.4f", etp.getEdgeType(), etp.getProperties(), etp.getProbability()))
+                    .collect(Collectors.toSet());
+            edgeTypeProbabilities.put(edge.getNode1().getName() + " " + edge.getNode2().getName(), probabilities);
+        }
+
+        return edgeTypeProbabilities;
+    }
+
+}
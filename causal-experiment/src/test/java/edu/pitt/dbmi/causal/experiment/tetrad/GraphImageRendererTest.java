@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.tetrad;
+
+import edu.cmu.tetrad.graph.EdgeListGraph;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.GraphNode;
+import edu.cmu.tetrad.graph.Node;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * Apr 29, 2023 2:57:40 PM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class GraphImageRendererTest {
+
+    /**
+     * Test of render method, of class GraphImageRenderer.
+     */
+    @Test
+    public void testRender() {
+        System.setProperty("java.awt.headless", "true");
+
+        Node x = new GraphNode("X");
+        Node y = new GraphNode("Y");
+        Node z = new GraphNode("Z");
+        Node w = new GraphNode("W");
+        Graph graph = new EdgeListGraph(Arrays.asList(x, y, z, w));
+        graph.addDirectedEdge(x, y);
+        graph.addBidirectedEdge(y, z);
+        graph.addPartiallyOrientedEdge(z, w);
+        graph.addNondirectedEdge(w, x);
+
+        int centerX = x.getCenterX();
+        int centerY = x.getCenterY();
+
+        int width = 400;
+        int height = 400;
+        BufferedImage image = GraphImageRenderer.render(graph, width, height);
+        Assertions.assertEquals(width, image.getWidth());
+        Assertions.assertEquals(height, image.getHeight());
+
+        // the first of the sorted nodes is placed at the top of the circle, below its name
+        int white = 0xFFFFFFFF;
+        int nodeFill = 0xFF94C6E2;
+        Assertions.assertEquals(white, image.getRGB(width / 2, height / 2));
+        Assertions.assertEquals(nodeFill, image.getRGB(width / 2, height / 2 - (int) (width * 0.40) + 10));
+
+        // the renderer does not move the nodes
+        Assertions.assertEquals(centerX, x.getCenterX());
+        Assertions.assertEquals(centerY, x.getCenterY());
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.tetrad;
+
+import edu.cmu.tetrad.graph.Edge;
+import edu.cmu.tetrad.graph.EdgeListGraph;
+import edu.cmu.tetrad.graph.EdgeTypeProbability;
+import edu.cmu.tetrad.graph.EdgeTypeProbability.EdgeType;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.GraphNode;
+import edu.cmu.tetrad.graph.Node;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * May 2, 2023 11:31:08 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class GraphSvgWriterTest {
+
+    /**
+     * Test of write method, of class GraphSvgWriter.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testWrite() throws IOException {
+        Node x = new GraphNode("X");
+        Node y = new GraphNode("Y<1>");
+        Node z = new GraphNode("Z");
+        Graph graph = new EdgeListGraph(Arrays.asList(x, y, z));
+        graph.addDirectedEdge(x, y);
+        graph.addPartiallyOrientedEdge(y, z);
+
+        StringWriter writer = new StringWriter();
+        GraphSvgWriter.write(graph, 400, 400, writer);
+        String svg = writer.toString();
+
+        Assertions.assertTrue(svg.startsWith("<svg "));
+        Assertions.assertTrue(svg.trim().endsWith("</svg>"));
+        Assertions.assertTrue(svg.contains("width=\"400\" height=\"400\""));
+        Assertions.assertTrue(svg.contains(">Y&lt;1&gt;</text>"));
+        Assertions.assertEquals(2, count(svg, "<line "));
+        Assertions.assertEquals(3, count(svg, "<text "));
+        Assertions.assertEquals(2, count(svg, "<path "));
+        Assertions.assertEquals(1, count(svg, "<circle "));
+    }
+
+    /**
+     * Test of getEdgeWidth method, of class GraphSvgWriter.
+     */
+    @Test
+    public void testGetEdgeWidth() {
+        Node x = new GraphNode("X");
+        Node y = new GraphNode("Y");
+        Graph graph = new EdgeListGraph(Arrays.asList(x, y));
+        graph.addDirectedEdge(x, y);
+        Edge edge = graph.getEdges().iterator().next();
+
+        Assertions.assertEquals(GraphImageRenderer.EDGE_WIDTH, GraphSvgWriter.getEdgeWidth(edge), 1e-9);
+
+        edge.addEdgeTypeProbability(new EdgeTypeProbability(EdgeType.ta, 0.5));
+        edge.addEdgeTypeProbability(new EdgeTypeProbability(EdgeType.nil, 0.5));
+        Assertions.assertEquals(0.5 * GraphSvgWriter.MAX_EDGE_WIDTH, GraphSvgWriter.getEdgeWidth(edge), 1e-9);
+    }
+
+    private static int count(String text, String pattern) {
+        int count = 0;
+        for (int i = text.indexOf(pattern); i >= 0; i = text.indexOf(pattern, i + 1)) {
+            count++;
+        }
+
+        return count;
+    }
+
+}
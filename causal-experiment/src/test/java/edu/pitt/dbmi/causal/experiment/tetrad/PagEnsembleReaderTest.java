@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.tetrad;
+
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.graph.EdgeListGraph;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.GraphNode;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.search.IndTestGSquare;
+import edu.cmu.tetrad.search.Rfci;
+import edu.pitt.dbmi.causal.experiment.util.DataFiles;
+import edu.pitt.dbmi.causal.experiment.util.DataSampling;
+import edu.pitt.dbmi.causal.experiment.util.ResourceLoader;
+import edu.pitt.dbmi.data.reader.Delimiter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ *
+ * Apr 28, 2023 4:05:33 PM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class PagEnsembleReaderTest {
+
+    @TempDir
+    public Path tempDir;
+
+    /**
+     * Test of getGraph method, of class PagEnsembleReader.
+     */
+    @Test
+    public void testGetGraph() throws Exception {
+        DataSet dataSet = (DataSet) ResourceLoader.loadDataModel(Paths.get(DataFiles.SIM_DISC_20VAR_1KCASE), Delimiter.TAB);
+        long seed = 1682020090L;
+
+        List<Graph> graphs = new LinkedList<>();
+        for (int i = 0; i < 5; i++) {
+            Rfci rfci = new Rfci(new IndTestGSquare(DataSampling.sampleWithReplacement(dataSet, seed, i), 0.05));
+            rfci.setDepth(2);
+            graphs.add(rfci.search());
+        }
+        graphs.add(new EdgeListGraph(graphs.get(0)));
+
+        Path withDuplicates = tempDir.resolve("with_duplicates.bin");
+        Path withoutDuplicates = tempDir.resolve("without_duplicates.bin");
+        try (PagEnsembleWriter writer = new PagEnsembleWriter(withDuplicates, dataSet.getVariables(), false);
+                PagEnsembleWriter dedupWriter = new PagEnsembleWriter(withoutDuplicates, dataSet.getVariables(), true)) {
+            for (Graph graph : graphs) {
+                writer.write(graph);
+                dedupWriter.write(graph);
+            }
+        }
+        Assertions.assertTrue(Files.size(withoutDuplicates) < Files.size(withDuplicates));
+
+        // random access
+        for (Path file : Arrays.asList(withDuplicates, withoutDuplicates)) {
+            PagEnsembleReader reader = new PagEnsembleReader(file);
+            Assertions.assertEquals(graphs.size(), reader.getNumOfGraphs());
+            for (int i = graphs.size() - 1; i >= 0; i--) {
+                Assertions.assertEquals(toStrings(graphs.get(i)), toStrings(reader.getGraph(i)));
+            }
+        }
+
+        // adding PAG colorings changes the edges of the graphs
+        EdgeTypeAggregator expected = new EdgeTypeAggregator();
+        graphs.forEach(expected::add);
+        for (Path file : Arrays.asList(withDuplicates, withoutDuplicates)) {
+            PagEnsembleReader reader = new PagEnsembleReader(file);
+
+            EdgeTypeAggregator result = new EdgeTypeAggregator();
+            reader.forEach(result::add);
+            Assertions.assertEquals(
+                    expected.createGraphWithHighProbabilityEdges().toString(),
+                    result.createGraphWithHighProbabilityEdges().toString());
+        }
+    }
+
+    /**
+     * Test of getNumOfGraphs method, of class PagEnsembleReader, on a file
+     * that was not closed.
+     */
+    @Test
+    public void testGetNumOfGraphs() throws Exception {
+        Node x = new GraphNode("X");
+        Node y = new GraphNode("Y");
+        Node z = new GraphNode("Z");
+        List<Node> nodes = Arrays.asList(x, y, z);
+
+        Graph graph = new EdgeListGraph(nodes);
+        graph.addDirectedEdge(x, y);
+        graph.addNondirectedEdge(y, z);
+
+        Path file = tempDir.resolve("ensemble.bin");
+        try (PagEnsembleWriter writer = new PagEnsembleWriter(file, nodes, true)) {
+            writer.write(graph);
+            writer.write(new EdgeListGraph(nodes));
+            writer.write(graph);
+
+            PagEnsembleReader reader = new PagEnsembleReader(file);
+            Assertions.assertEquals(3, reader.getNumOfGraphs());
+            Assertions.assertEquals(toStrings(graph), toStrings(reader.getGraph(2)));
+            Assertions.assertTrue(reader.getGraph(1).getEdges().isEmpty());
+        }
+    }
+
+    /**
+     * The nodes of the graphs read are not the variables of the dataset, so
+     * the edges are compared by their text.
+     */
+    private static Set<String> toStrings(Graph graph) {
+        return graph.getEdges().stream()
+                .map(Object::toString)
+                .collect(Collectors.toSet());
+    }
+
+}
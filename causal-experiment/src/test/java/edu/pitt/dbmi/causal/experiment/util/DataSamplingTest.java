@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.util;
+
+import edu.cmu.tetrad.data.DataSet;
+import edu.pitt.dbmi.data.reader.Delimiter;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * Apr 15, 2023 10:05:12 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class DataSamplingTest {
+
+    /**
+     * Test of sampleWithReplacement method, of class DataSampling.
+     */
+    @Test
+    public void testSampleWithReplacement() throws Exception {
+        DataSet dataSet = (DataSet) ResourceLoader.loadDataModel(Paths.get(DataFiles.SIM_DISC_20VAR_1KCASE), Delimiter.TAB);
+        long seed = 1681567512L;
+
+        // replicates drawn out of order are the same as the ones drawn in order
+        DataSet replicate3 = DataSampling.sampleWithReplacement(dataSet, seed, 3);
+        DataSet replicate0 = DataSampling.sampleWithReplacement(dataSet, seed, 0);
+        Assertions.assertEquals(replicate0, DataSampling.sampleWithReplacement(dataSet, seed, 0));
+        Assertions.assertEquals(replicate3, DataSampling.sampleWithReplacement(dataSet, seed, 3));
+
+        // each replicate has its own sample
+        Assertions.assertNotEquals(replicate0, replicate3);
+    }
+
+    /**
+     * Test of createSearchRandomGenerator method, of class DataSampling.
+     */
+    @Test
+    public void testCreateSearchRandomGenerator() {
+        long seed = 1683903461L;
+
+        // the draws of a search depend on the seed and the index of the search alone
+        Assertions.assertEquals(
+                DataSampling.createSearchRandomGenerator(seed, 4).nextLong(),
+                DataSampling.createSearchRandomGenerator(seed, 4).nextLong());
+        Assertions.assertNotEquals(
+                DataSampling.createSearchRandomGenerator(seed, 4).nextLong(),
+                DataSampling.createSearchRandomGenerator(seed, 5).nextLong());
+
+        // and are not the draws of the cases of the replicate
+        Assertions.assertNotEquals(
+                DataSampling.createRandomGenerator(seed, 4).nextLong(),
+                DataSampling.createSearchRandomGenerator(seed, 4).nextLong());
+    }
+
+}
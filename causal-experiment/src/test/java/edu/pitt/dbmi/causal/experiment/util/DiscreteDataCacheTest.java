@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.causal.experiment.util;
+
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.data.DiscreteVariable;
+import edu.pitt.dbmi.data.reader.Delimiter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ *
+ * Apr 25, 2023 1:37:02 PM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class DiscreteDataCacheTest {
+
+    @TempDir
+    public static Path tempDir;
+
+    /**
+     * Test of read method, of class DiscreteDataCache.
+     */
+    @Test
+    public void testRead() throws Exception {
+        Path dataFile = Files.copy(Paths.get(DataFiles.SIM_DISC_20VAR_1KCASE), tempDir.resolve("data.txt"));
+        DataSet expected = (DataSet) ResourceLoader.readDataModel(dataFile, Delimiter.TAB);
+
+        // no cache yet
+        Assertions.assertNull(DiscreteDataCache.read(dataFile, Delimiter.TAB));
+
+        ResourceLoader.loadDataModel(dataFile, Delimiter.TAB);
+        Assertions.assertTrue(Files.exists(DiscreteDataCache.getCacheFile(dataFile)));
+
+        DataSet result = DiscreteDataCache.read(dataFile, Delimiter.TAB);
+        Assertions.assertNotNull(result);
+        assertSameData(expected, result);
+
+        // a different delimiter does not use the cache
+        Assertions.assertNull(DiscreteDataCache.read(dataFile, Delimiter.COMMA));
+
+        // the cache is stale once the data file has changed
+        Files.setLastModifiedTime(dataFile, FileTime.fromMillis(Files.getLastModifiedTime(dataFile).toMillis() + 60000));
+        Assertions.assertNull(DiscreteDataCache.read(dataFile, Delimiter.TAB));
+
+        assertSameData(expected, (DataSet) ResourceLoader.loadDataModel(dataFile, Delimiter.TAB));
+        Assertions.assertNotNull(DiscreteDataCache.read(dataFile, Delimiter.TAB));
+    }
+
+    private static void assertSameData(DataSet expected, DataSet result) {
+        Assertions.assertEquals(expected.getNumRows(), result.getNumRows());
+        Assertions.assertEquals(expected.getNumColumns(), result.getNumColumns());
+        for (int col = 0; col < expected.getNumColumns(); col++) {
+            DiscreteVariable expectedVariable = (DiscreteVariable) expected.getVariable(col);
+            DiscreteVariable resultVariable = (DiscreteVariable) result.getVariable(col);
+            Assertions.assertEquals(expectedVariable.getName(), resultVariable.getName());
+            Assertions.assertEquals(expectedVariable.getCategories(), resultVariable.getCategories());
+            for (int row = 0; row < expected.getNumRows(); row++) {
+                Assertions.assertEquals(expected.getInt(row, col), result.getInt(row, col));
+            }
+        }
+    }
+
+}
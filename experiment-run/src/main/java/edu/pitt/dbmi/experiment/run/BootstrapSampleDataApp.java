@@ -20,15 +20,18 @@ package edu.pitt.dbmi.experiment.run;
 
 import edu.cmu.tetrad.data.DataSet;
 import edu.pitt.dbmi.data.reader.Delimiter;
+import edu.pitt.dbmi.experiment.run.util.BootstrapManifest;
 import edu.pitt.dbmi.experiment.run.util.DataSampling;
+import edu.pitt.dbmi.experiment.run.util.DataSetWriter;
 import edu.pitt.dbmi.experiment.run.util.ResourceLoader;
-import java.io.BufferedWriter;
-import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Create dataset for bootstrapping.
@@ -39,12 +42,19 @@ import java.util.List;
  */
 public class BootstrapSampleDataApp {
 
+    public static final String MANIFEST_FILE_NAME = "bootstrap_manifest.bin";
+
     /**
+     * Write out the bootstrap samples of the data file, one data file per
+     * sample, along with their bootstrap manifest. Only the manifest is
+     * written out when the third argument is --manifest-only.
+     *
      * @param args the command line arguments
      */
     public static void main(String[] args) {
         Path dataFile = Paths.get(args[0]);
         Path dataDir = Paths.get(args[1]);
+        boolean manifestOnly = args.length > 2 && "--manifest-only".equals(args[2]);
         System.out.println("================================================================================");
         System.out.println("Bootstrapping Data Sampling");
         System.out.println("================================================================================");
@@ -52,22 +62,40 @@ public class BootstrapSampleDataApp {
             DataSet dataSet = (DataSet) ResourceLoader.readInDataModel(dataFile, Delimiter.TAB);
             long seed = 1673588774198L;
             int numberResampling = 99;
-            List<DataSet> dataSets = DataSampling.sampleWithReplacement(dataSet, seed, numberResampling, true);
-            writeOut(dataSets, dataDir);
+            BootstrapManifest manifest = BootstrapManifest.create(dataFile, dataSet.getNumRows(), seed, numberResampling, true);
+            manifest.write(Paths.get(dataDir.toString(), MANIFEST_FILE_NAME));
+            if (!manifestOnly) {
+                writeOut(DataSampling.sampleWithReplacement(dataSet, seed, numberResampling, true), dataDir);
+            }
         } catch (Exception exception) {
             exception.printStackTrace(System.err);
         }
         System.out.println("================================================================================");
     }
 
-    private static void writeOut(List<DataSet> dataSets, Path dataDir) throws IOException {
-        int count = 0;
-        for (DataSet dataSet : dataSets) {
-            String fileName = String.format("data_%03d.txt", ++count);
-            Path dataFile = Paths.get(dataDir.toString(), fileName);
-            try (BufferedWriter writer = Files.newBufferedWriter(dataFile, StandardOpenOption.CREATE)) {
-                writer.write(dataSet.toString());
+    /**
+     * Write the datasets to files concurrently, one file per task.
+     */
+    private static void writeOut(List<DataSet> dataSets, Path dataDir) throws InterruptedException, ExecutionException {
+        int numOfThreads = Math.min(dataSets.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, numOfThreads));
+        try {
+            List<Future<Void>> futures = new LinkedList<>();
+            int count = 0;
+            for (DataSet dataSet : dataSets) {
+                String fileName = String.format("data_%03d.txt", ++count);
+                Path dataFile = Paths.get(dataDir.toString(), fileName);
+                futures.add(pool.submit(() -> {
+                    DataSetWriter.write(dataSet, '\t', dataFile);
+                    return null;
+                }));
+            }
+
+            for (Future<Void> future : futures) {
+                future.get();
             }
+        } finally {
+            pool.shutdownNow();
         }
     }
 
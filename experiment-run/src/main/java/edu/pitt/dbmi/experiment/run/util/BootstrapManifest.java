@@ -0,0 +1,267 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.experiment.run.util;
+
+import edu.cmu.tetrad.data.BoxDataSet;
+import edu.cmu.tetrad.data.DataSet;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import org.apache.commons.math3.random.RandomGenerator;
+
+/**
+ * The bootstrap samples of a data file stored as row indices instead of
+ * copies of the data. The manifest keeps the name and the SHA-256 hash of the
+ * data file, the seed, and the rows of each sample. The rows are sorted and
+ * delta-encoded as variable-length integers, and the whole manifest is
+ * deflated, so a sample takes up a few bits per row.
+ *
+ * A sample is rebuilt as a view over the original dataset. Its rows are in
+ * ascending order rather than in the order they were drawn, which does not
+ * change the counts the independence tests are computed from.
+ *
+ * Apr 28, 2023 9:31:07 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class BootstrapManifest {
+
+    private static final int MAGIC = 0x42534D46; // "BSMF"
+    private static final int VERSION = 1;
+
+    private final String sourceFileName;
+    private final String sourceHash;
+    private final long seed;
+    private final int numOfRows;
+    private final List<int[]> samples;
+
+    private BootstrapManifest(String sourceFileName, String sourceHash, long seed, int numOfRows, List<int[]> samples) {
+        this.sourceFileName = sourceFileName;
+        this.sourceHash = sourceHash;
+        this.seed = seed;
+        this.numOfRows = numOfRows;
+        this.samples = samples;
+    }
+
+    /**
+     * Draw the rows of the bootstrap samples with the same random generator
+     * as {@link DataSampling#sampleWithReplacement(DataSet, long, int, boolean)}.
+     *
+     * @param dataFile data file the samples are drawn from
+     * @param numOfRows number of rows in the data file
+     * @param seed random seed
+     * @param numberResampling number of bootstrap samples
+     * @param includeOriginalDataset add the original dataset as the last
+     * sample
+     * @return the manifest
+     * @throws IOException
+     */
+    public static BootstrapManifest create(Path dataFile, int numOfRows, long seed, int numberResampling, boolean includeOriginalDataset) throws IOException {
+        List<int[]> samples = new ArrayList<>(numberResampling + 1);
+
+        RandomGenerator randomGenerator = DataSampling.createRandomGenerator(seed);
+        for (int i = 0; i < numberResampling; i++) {
+            int[] rows = DataSampling.drawBootstrapRows(numOfRows, numOfRows, randomGenerator);
+            Arrays.sort(rows);
+            samples.add(rows);
+        }
+
+        if (includeOriginalDataset) {
+            int[] rows = new int[numOfRows];
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = i;
+            }
+            samples.add(rows);
+        }
+
+        return new BootstrapManifest(dataFile.getFileName().toString(), computeHash(dataFile), seed, numOfRows, samples);
+    }
+
+    public static BootstrapManifest read(Path manifestFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new BufferedInputStream(Files.newInputStream(manifestFile))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(String.format("%s is not a bootstrap manifest.", manifestFile));
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException(String.format("Unsupported bootstrap manifest version %d.", version));
+            }
+
+            String sourceFileName = in.readUTF();
+            String sourceHash = in.readUTF();
+            long seed = in.readLong();
+            int numOfRows = in.readInt();
+
+            int numOfSamples = in.readInt();
+            List<int[]> samples = new ArrayList<>(numOfSamples);
+            for (int i = 0; i < numOfSamples; i++) {
+                int[] rows = new int[readVarInt(in)];
+                int row = 0;
+                for (int j = 0; j < rows.length; j++) {
+                    row += readVarInt(in);
+                    rows[j] = row;
+                }
+                samples.add(rows);
+            }
+
+            return new BootstrapManifest(sourceFileName, sourceHash, seed, numOfRows, samples);
+        }
+    }
+
+    public void write(Path manifestFile) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(new BufferedOutputStream(Files.newOutputStream(manifestFile))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(sourceFileName);
+            out.writeUTF(sourceHash);
+            out.writeLong(seed);
+            out.writeInt(numOfRows);
+
+            out.writeInt(samples.size());
+            for (int[] rows : samples) {
+                writeVarInt(out, rows.length);
+                int previous = 0;
+                for (int row : rows) {
+                    writeVarInt(out, row - previous);
+                    previous = row;
+                }
+            }
+        }
+    }
+
+    /**
+     * Check that the data file is the one the samples were drawn from.
+     *
+     * @param dataFile data file
+     * @throws IOException if the data file does not match the manifest
+     */
+    public void verify(Path dataFile) throws IOException {
+        if (!sourceHash.equals(computeHash(dataFile))) {
+            throw new IOException(String.format("%s does not match the data file %s of the bootstrap manifest.", dataFile, sourceFileName));
+        }
+    }
+
+    /**
+     * Rebuild a bootstrap sample as a view over the original dataset.
+     *
+     * @param dataSet original dataset
+     * @param index index of the sample
+     * @return the bootstrap sample
+     */
+    public DataSet getSample(DataSet dataSet, int index) {
+        if (dataSet.getNumRows() != numOfRows) {
+            throw new IllegalArgumentException(String.format("Expect dataset with %d rows but got %d.", numOfRows, dataSet.getNumRows()));
+        }
+
+        BoxDataSet sample = new BoxDataSet(new RowSelectionDataBox(((BoxDataSet) dataSet).getDataBox(), samples.get(index)), dataSet.getVariables());
+        sample.setKnowledge(dataSet.getKnowledge());
+
+        return sample;
+    }
+
+    public List<DataSet> getSamples(DataSet dataSet) {
+        List<DataSet> dataSets = new ArrayList<>(samples.size());
+        for (int i = 0; i < samples.size(); i++) {
+            dataSets.add(getSample(dataSet, i));
+        }
+
+        return dataSets;
+    }
+
+    public int getNumOfSamples() {
+        return samples.size();
+    }
+
+    public int[] getRows(int index) {
+        return samples.get(index).clone();
+    }
+
+    public String getSourceFileName() {
+        return sourceFileName;
+    }
+
+    public String getSourceHash() {
+        return sourceHash;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getNumOfRows() {
+        return numOfRows;
+    }
+
+    private static String computeHash(Path file) throws IOException {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IOException(exception);
+        }
+
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), messageDigest)) {
+            while (in.read(buffer) != -1) {
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (byte b : messageDigest.digest()) {
+            sb.append(String.format("%02x", b));
+        }
+
+        return sb.toString();
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IOException("Malformed variable-length integer.");
+    }
+
+}
@@ -59,4 +59,23 @@ public final class DataSampling {
         return dataSets;
     }
 
+    /**
+     * Draw the row indices of a bootstrap sample the same way
+     * {@link DataUtils#getBootstrapSample(DataSet, int, RandomGenerator)}
+     * does, so the generator ends up in the same state.
+     *
+     * @param numOfRows number of rows in the original dataset
+     * @param sampleSize number of rows to draw
+     * @param randomGenerator random generator
+     * @return the row indices in the order they were drawn
+     */
+    public static int[] drawBootstrapRows(int numOfRows, int sampleSize, RandomGenerator randomGenerator) {
+        int[] rows = new int[sampleSize];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = randomGenerator.nextInt(numOfRows);
+        }
+
+        return rows;
+    }
+
 }
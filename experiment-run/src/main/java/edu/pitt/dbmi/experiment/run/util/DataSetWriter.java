@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.experiment.run.util;
+
+import edu.cmu.tetrad.data.ContinuousVariable;
+import edu.cmu.tetrad.data.DataSet;
+import edu.cmu.tetrad.data.DiscreteVariable;
+import edu.cmu.tetrad.data.Knowledge;
+import edu.cmu.tetrad.graph.Node;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.NumberFormat;
+import java.util.List;
+
+/**
+ * Write a dataset to a file one row at a time. The values are encoded
+ * straight into a buffer that is flushed to the file channel whenever it is
+ * full, so the dataset is never turned into one big string. The file has the
+ * same layout as {@link DataSet#toString()}.
+ *
+ * Apr 27, 2023 10:12:41 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public final class DataSetWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final byte NEW_LINE = '\n';
+    private static final byte[] MISSING_VALUE = {'*'};
+
+    private DataSetWriter() {
+    }
+
+    public static void write(DataSet dataSet, char delimiter, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(dataSet, delimiter, channel);
+        }
+    }
+
+    public static void write(DataSet dataSet, char delimiter, FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        int numOfRows = dataSet.getNumRows();
+        int numOfCols = dataSet.getNumColumns();
+        byte[] delimiterBytes = encode(String.valueOf(delimiter));
+        byte[][][] categories = encodeCategories(dataSet, delimiter);
+
+        // header
+        put(buffer, channel, NEW_LINE);
+        List<Node> variables = dataSet.getVariables();
+        for (int col = 0; col < numOfCols; col++) {
+            if (col > 0) {
+                put(buffer, channel, delimiterBytes);
+            }
+            put(buffer, channel, encode(variables.get(col).getName()));
+        }
+        put(buffer, channel, NEW_LINE);
+
+        // data
+        NumberFormat numberFormat = dataSet.getNumberFormat();
+        for (int row = 0; row < numOfRows; row++) {
+            for (int col = 0; col < numOfCols; col++) {
+                if (col > 0) {
+                    put(buffer, channel, delimiterBytes);
+                }
+                if (categories[col] == null) {
+                    double value = dataSet.getDouble(row, col);
+                    put(buffer, channel, Double.isNaN(value) ? MISSING_VALUE : encode(numberFormat.format(value)));
+                } else {
+                    int value = dataSet.getInt(row, col);
+                    put(buffer, channel, (value == DiscreteVariable.MISSING_VALUE) ? MISSING_VALUE : categories[col][value]);
+                }
+            }
+            put(buffer, channel, NEW_LINE);
+        }
+        put(buffer, channel, NEW_LINE);
+
+        Knowledge knowledge = dataSet.getKnowledge();
+        if (knowledge != null && !knowledge.isEmpty()) {
+            put(buffer, channel, encode(knowledge.toString()));
+        }
+
+        flush(buffer, channel);
+    }
+
+    /**
+     * Encode the categories of each discrete column once. Continuous columns
+     * are left null.
+     */
+    private static byte[][][] encodeCategories(DataSet dataSet, char delimiter) {
+        int numOfCols = dataSet.getNumColumns();
+        byte[][][] categories = new byte[numOfCols][][];
+        for (int col = 0; col < numOfCols; col++) {
+            Node variable = dataSet.getVariable(col);
+            if (variable instanceof DiscreteVariable) {
+                List<String> names = ((DiscreteVariable) variable).getCategories();
+                categories[col] = new byte[names.size()][];
+                for (int i = 0; i < categories[col].length; i++) {
+                    String category = names.get(i);
+                    categories[col][i] = (category.indexOf(delimiter) == -1)
+                            ? encode(category)
+                            : encode("\"" + category + "\"");
+                }
+            } else if (!(variable instanceof ContinuousVariable)) {
+                throw new IllegalStateException("Expecting either a continuous variable or a discrete variable: variable = " + variable + " type = " + variable.getClass());
+            }
+        }
+
+        return categories;
+    }
+
+    private static byte[] encode(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void put(ByteBuffer buffer, FileChannel channel, byte value) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush(buffer, channel);
+        }
+        buffer.put(value);
+    }
+
+    private static void put(ByteBuffer buffer, FileChannel channel, byte[] values) throws IOException {
+        int offset = 0;
+        while (offset < values.length) {
+            if (!buffer.hasRemaining()) {
+                flush(buffer, channel);
+            }
+            int length = Math.min(buffer.remaining(), values.length - offset);
+            buffer.put(values, offset, length);
+            offset += length;
+        }
+    }
+
+    private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+}
@@ -0,0 +1,378 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.experiment.run.util;
+
+import edu.cmu.tetrad.graph.Edge;
+import edu.cmu.tetrad.graph.EdgeListGraph;
+import edu.cmu.tetrad.graph.EdgeTypeProbability;
+import edu.cmu.tetrad.graph.EdgeTypeProbability.EdgeType;
+import edu.cmu.tetrad.graph.Endpoint;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.GraphNode;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.graph.NodeType;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a graph in Tetrad's text format in a single pass over the lines.
+ * The nodes are looked up by name in a hash map and each edge line is
+ * scanned once, without regular expressions, so large graphs and graphs
+ * with edge-type probabilities, such as
+ * <pre>
+ * 1. X1 --&gt; X2 [no edge]:0.1000;[X1 --&gt; X2 dd nl]:0.9000;[edge]:0.9000 dd nl
+ * </pre>
+ * load in time linear in the size of the file.
+ *
+ * The graph is the same as the one from
+ * GraphPersistence.loadGraphTxt(File), except that the edge properties
+ * following the edge-type probabilities and a single edge-type probability
+ * are always read.
+ *
+ * May 3, 2023 10:02:17 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public final class GraphTextReader {
+
+    private static final String NODES_SECTION = "Graph Nodes:";
+    private static final String EDGES_SECTION = "Graph Edges:";
+
+    private GraphTextReader() {
+    }
+
+    /**
+     * Read the graph from a text file.
+     *
+     * @param file graph file
+     * @return the graph
+     * @throws IOException
+     */
+    public static Graph read(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return read(reader);
+        }
+    }
+
+    /**
+     * Read the graph from the reader. The reader is not closed.
+     *
+     * @param reader reader of the graph text
+     * @return the graph
+     * @throws IOException
+     */
+    public static Graph read(Reader reader) throws IOException {
+        BufferedReader in = (reader instanceof BufferedReader)
+                ? (BufferedReader) reader
+                : new BufferedReader(reader);
+
+        List<Node> nodes = new ArrayList<>();
+        Map<String, Node> nodeNames = new HashMap<>();
+        List<Edge> edges = new LinkedList<>();
+
+        String line;
+        while ((line = in.readLine()) != null) {
+            switch (line.trim()) {
+                case NODES_SECTION:
+                    while ((line = in.readLine()) != null && !(line = line.trim()).isEmpty()) {
+                        readNodes(line, nodes, nodeNames);
+                    }
+                    break;
+                case EDGES_SECTION:
+                    while ((line = in.readLine()) != null && !(line = line.trim()).isEmpty()) {
+                        edges.add(readEdge(line, nodes, nodeNames));
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        Graph graph = new EdgeListGraph(nodes);
+        edges.forEach(graph::addEdge);
+
+        return graph;
+    }
+
+    /**
+     * Read the node names separated by commas or semicolons. A name in
+     * parentheses is a latent node.
+     */
+    private static void readNodes(String line, List<Node> nodes, Map<String, Node> nodeNames) {
+        int length = line.length();
+        int start = 0;
+        while (start < length) {
+            int end = start;
+            while (end < length && line.charAt(end) != ',' && line.charAt(end) != ';') {
+                end++;
+            }
+
+            if (end > start) {
+                String name = line.substring(start, end);
+                if (name.length() > 1 && name.charAt(0) == '(' && name.charAt(name.length() - 1) == ')') {
+                    addNode(name.substring(1, name.length() - 1), NodeType.LATENT, nodes, nodeNames);
+                } else {
+                    addNode(name, NodeType.MEASURED, nodes, nodeNames);
+                }
+            }
+
+            start = end + 1;
+        }
+    }
+
+    private static Node addNode(String name, NodeType nodeType, List<Node> nodes, Map<String, Node> nodeNames) {
+        Node node = nodeNames.get(name);
+        if (node == null) {
+            node = new GraphNode(name);
+            node.setNodeType(nodeType);
+            nodes.add(node);
+            nodeNames.put(name, node);
+        }
+
+        return node;
+    }
+
+    /**
+     * Read an edge line: an optional line number, the two nodes and the edge
+     * type between them, followed by the edge-type probabilities and the
+     * edge properties, in any order.
+     */
+    private static Edge readEdge(String line, List<Node> nodes, Map<String, Node> nodeNames) {
+        Scanner scanner = new Scanner(line);
+        scanner.skipLineNumber();
+
+        Node node1 = addNode(scanner.nextToken(), NodeType.MEASURED, nodes, nodeNames);
+        String edgeType = scanner.nextToken();
+        Node node2 = addNode(scanner.nextToken(), NodeType.MEASURED, nodes, nodeNames);
+        if (edgeType.length() != 3 || node2.getName().isEmpty()) {
+            throw new IllegalArgumentException(String.format("Invalid edge: %s.", line));
+        }
+
+        Edge edge = new Edge(node1, node2, getEndpoint(edgeType.charAt(0)), getEndpoint(edgeType.charAt(2)));
+        while (scanner.skipSeparators()) {
+            if (scanner.peek() == '[') {
+                readProbability(scanner, edge, line);
+            } else {
+                Edge.Property property = getProperty(scanner.nextToken());
+                if (property != null) {
+                    edge.addProperty(property);
+                }
+            }
+        }
+
+        return edge;
+    }
+
+    /**
+     * Read a bracketed probability: [no edge]:p, [edge]:p or
+     * [X1 --&gt; X2 properties]:p.
+     */
+    private static void readProbability(Scanner scanner, Edge edge, String line) {
+        String label = scanner.nextBracket();
+        if (label == null || !scanner.skip(':')) {
+            throw new IllegalArgumentException(String.format("Invalid edge probability: %s.", line));
+        }
+        double probability = Double.parseDouble(scanner.nextNumber());
+
+        if ("edge".equals(label)) {
+            edge.setProbability(probability);
+        } else if ("no edge".equals(label)) {
+            edge.addEdgeTypeProbability(new EdgeTypeProbability(EdgeType.nil, probability));
+        } else {
+            Scanner labelScanner = new Scanner(label);
+            labelScanner.nextToken();
+            String edgeType = labelScanner.nextToken();
+            labelScanner.nextToken();
+            if (edgeType.length() != 3) {
+                throw new IllegalArgumentException(String.format("Invalid edge probability: %s.", line));
+            }
+
+            List<Edge.Property> properties = new LinkedList<>();
+            while (labelScanner.skipSeparators()) {
+                Edge.Property property = getProperty(labelScanner.nextToken());
+                if (property != null) {
+                    properties.add(property);
+                }
+            }
+
+            edge.addEdgeTypeProbability(new EdgeTypeProbability(getEdgeType(edgeType), properties, probability));
+        }
+    }
+
+    private static EdgeType getEdgeType(String edgeType) {
+        Endpoint endpoint1 = getEndpoint(edgeType.charAt(0));
+        Endpoint endpoint2 = getEndpoint(edgeType.charAt(2));
+        if (endpoint1 == Endpoint.TAIL && endpoint2 == Endpoint.ARROW) {
+            return EdgeType.ta;
+        } else if (endpoint1 == Endpoint.ARROW && endpoint2 == Endpoint.TAIL) {
+            return EdgeType.at;
+        } else if (endpoint1 == Endpoint.CIRCLE && endpoint2 == Endpoint.ARROW) {
+            return EdgeType.ca;
+        } else if (endpoint1 == Endpoint.ARROW && endpoint2 == Endpoint.CIRCLE) {
+            return EdgeType.ac;
+        } else if (endpoint1 == Endpoint.CIRCLE && endpoint2 == Endpoint.CIRCLE) {
+            return EdgeType.cc;
+        } else if (endpoint1 == Endpoint.ARROW && endpoint2 == Endpoint.ARROW) {
+            return EdgeType.aa;
+        } else if (endpoint1 == Endpoint.TAIL && endpoint2 == Endpoint.TAIL) {
+            return EdgeType.tt;
+        } else {
+            return EdgeType.nil;
+        }
+    }
+
+    private static Endpoint getEndpoint(char endpoint) {
+        switch (endpoint) {
+            case '>':
+            case '<':
+                return Endpoint.ARROW;
+            case 'o':
+                return Endpoint.CIRCLE;
+            case '-':
+                return Endpoint.TAIL;
+            case '.':
+                return Endpoint.NULL;
+            default:
+                throw new IllegalArgumentException(String.format("Unrecognized endpoint: %s.", endpoint));
+        }
+    }
+
+    private static Edge.Property getProperty(String property) {
+        switch (property) {
+            case "dd":
+                return Edge.Property.dd;
+            case "nl":
+                return Edge.Property.nl;
+            case "pd":
+                return Edge.Property.pd;
+            case "pl":
+                return Edge.Property.pl;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Reads the tokens of a line from left to right.
+     */
+    private static final class Scanner {
+
+        private final String line;
+        private final int length;
+        private int position;
+
+        public Scanner(String line) {
+            this.line = line;
+            this.length = line.length();
+        }
+
+        /**
+         * Skip the line number, e.g. "12. ", if there is one.
+         */
+        public void skipLineNumber() {
+            int end = position;
+            while (end < length && Character.isDigit(line.charAt(end))) {
+                end++;
+            }
+            if (end > position && end < length && line.charAt(end) == '.') {
+                position = end + 1;
+            }
+        }
+
+        /**
+         * Skip the white spaces and semicolons.
+         *
+         * @return true if there is more to read
+         */
+        public boolean skipSeparators() {
+            while (position < length && (line.charAt(position) == ';' || Character.isWhitespace(line.charAt(position)))) {
+                position++;
+            }
+
+            return position < length;
+        }
+
+        public char peek() {
+            return line.charAt(position);
+        }
+
+        public boolean skip(char c) {
+            if (position < length && line.charAt(position) == c) {
+                position++;
+                return true;
+            }
+
+            return false;
+        }
+
+        /**
+         * Get the next token delimited by white spaces.
+         */
+        public String nextToken() {
+            while (position < length && Character.isWhitespace(line.charAt(position))) {
+                position++;
+            }
+            int start = position;
+            while (position < length && !Character.isWhitespace(line.charAt(position))) {
+                position++;
+            }
+
+            return line.substring(start, position);
+        }
+
+        /**
+         * Get the text between the brackets at the current position.
+         *
+         * @return the text, or null if there is no closing bracket
+         */
+        public String nextBracket() {
+            int end = line.indexOf(']', position);
+            if (end < 0) {
+                return null;
+            }
+            String text = line.substring(position + 1, end);
+            position = end + 1;
+
+            return text;
+        }
+
+        /**
+         * Get the number up to the next semicolon or white space.
+         */
+        public String nextNumber() {
+            int start = position;
+            while (position < length && line.charAt(position) != ';' && !Character.isWhitespace(line.charAt(position))) {
+                position++;
+            }
+
+            return line.substring(start, position);
+        }
+
+    }
+
+}
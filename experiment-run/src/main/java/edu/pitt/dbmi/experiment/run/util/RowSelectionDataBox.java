@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.experiment.run.util;
+
+import edu.cmu.tetrad.data.DataBox;
+
+/**
+ * A read-only view of the selected rows of another data box. The rows are
+ * looked up in the original data box, so the view holds nothing but the row
+ * indices. Rows may be selected more than once.
+ *
+ * Apr 28, 2023 9:04:52 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class RowSelectionDataBox implements DataBox {
+
+    private static final long serialVersionUID = 23L;
+
+    private final DataBox dataBox;
+    private final int[] rows;
+
+    public RowSelectionDataBox(DataBox dataBox, int[] rows) {
+        for (int row : rows) {
+            if (row < 0 || row >= dataBox.numRows()) {
+                throw new IllegalArgumentException(String.format("Row index %d is out of range.", row));
+            }
+        }
+
+        this.dataBox = dataBox;
+        this.rows = rows;
+    }
+
+    @Override
+    public int numRows() {
+        return rows.length;
+    }
+
+    @Override
+    public int numCols() {
+        return dataBox.numCols();
+    }
+
+    @Override
+    public void set(int row, int col, Number value) throws IllegalArgumentException {
+        throw new UnsupportedOperationException("Row selection data box is read-only.");
+    }
+
+    @Override
+    public Number get(int row, int col) {
+        return dataBox.get(rows[row], col);
+    }
+
+    /**
+     * @return a copy of the selected rows that no longer depends on the
+     * original data box
+     */
+    @Override
+    public DataBox copy() {
+        int[] cols = new int[dataBox.numCols()];
+        for (int i = 0; i < cols.length; i++) {
+            cols[i] = i;
+        }
+
+        return dataBox.viewSelection(rows, cols);
+    }
+
+    @Override
+    public DataBox viewSelection(int[] rows, int[] cols) {
+        int[] selectedRows = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            selectedRows[i] = this.rows[rows[i]];
+        }
+
+        return dataBox.viewSelection(selectedRows, cols);
+    }
+
+    @Override
+    public DataBox like() {
+        return copy().like();
+    }
+
+    /**
+     * Serialize a copy of the selected rows.
+     */
+    private Object writeReplace() {
+        return copy();
+    }
+
+}
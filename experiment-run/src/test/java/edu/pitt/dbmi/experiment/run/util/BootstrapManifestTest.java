@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.experiment.run.util;
+
+import edu.cmu.tetrad.data.DataSet;
+import edu.pitt.dbmi.data.reader.Delimiter;
+import edu.pitt.dbmi.experiment.run.TestData;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ *
+ * Apr 28, 2023 10:15:26 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class BootstrapManifestTest {
+
+    @TempDir
+    public Path tempDir;
+
+    /**
+     * Test of read method, of class BootstrapManifest.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRead() throws Exception {
+        Path dataFile = Paths.get(TestData.SIM_DISCRETE_DATA);
+        DataSet dataSet = (DataSet) ResourceLoader.readInDataModel(dataFile, Delimiter.TAB);
+        long seed = 1673588774198L;
+        int numberResampling = 9;
+
+        BootstrapManifest manifest = BootstrapManifest.create(dataFile, dataSet.getNumRows(), seed, numberResampling, true);
+        Path manifestFile = tempDir.resolve("bootstrap_manifest.bin");
+        manifest.write(manifestFile);
+        Assertions.assertTrue(Files.size(manifestFile) < Files.size(dataFile) / 10);
+
+        BootstrapManifest loaded = BootstrapManifest.read(manifestFile);
+        loaded.verify(dataFile);
+        Assertions.assertEquals(manifest.getSourceHash(), loaded.getSourceHash());
+        Assertions.assertEquals(seed, loaded.getSeed());
+        Assertions.assertEquals(numberResampling + 1, loaded.getNumOfSamples());
+        for (int i = 0; i < loaded.getNumOfSamples(); i++) {
+            Assertions.assertArrayEquals(manifest.getRows(i), loaded.getRows(i));
+        }
+
+        Path otherFile = tempDir.resolve("data.txt");
+        Files.write(otherFile, new byte[]{'x'});
+        Assertions.assertThrows(IOException.class, () -> loaded.verify(otherFile));
+    }
+
+    /**
+     * Test of getSamples method, of class BootstrapManifest.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGetSamples() throws Exception {
+        Path dataFile = Paths.get(TestData.SIM_DISCRETE_DATA);
+        DataSet dataSet = (DataSet) ResourceLoader.readInDataModel(dataFile, Delimiter.TAB);
+        long seed = 1673588774198L;
+        int numberResampling = 9;
+
+        BootstrapManifest manifest = BootstrapManifest.create(dataFile, dataSet.getNumRows(), seed, numberResampling, true);
+        List<DataSet> expected = DataSampling.sampleWithReplacement(dataSet, seed, numberResampling, true);
+        List<DataSet> actual = manifest.getSamples(dataSet);
+        Assertions.assertEquals(expected.size(), actual.size());
+
+        // same rows, possibly in a different order
+        for (int i = 0; i < expected.size(); i++) {
+            Assertions.assertEquals(countValues(expected.get(i)), countValues(actual.get(i)));
+        }
+
+        // the original dataset is the last sample
+        Assertions.assertEquals(dataSet.toString(), actual.get(actual.size() - 1).toString());
+    }
+
+    private static Map<String, Integer> countValues(DataSet dataSet) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int row = 0; row < dataSet.getNumRows(); row++) {
+            StringBuilder sb = new StringBuilder();
+            for (int col = 0; col < dataSet.getNumColumns(); col++) {
+                sb.append(dataSet.getInt(row, col)).append(',');
+            }
+            counts.merge(sb.toString(), 1, Integer::sum);
+        }
+
+        return counts;
+    }
+
+}
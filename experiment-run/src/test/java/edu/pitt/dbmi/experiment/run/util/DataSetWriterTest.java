@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.experiment.run.util;
+
+import edu.cmu.tetrad.data.DataSet;
+import edu.pitt.dbmi.data.reader.Delimiter;
+import edu.pitt.dbmi.experiment.run.TestData;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ *
+ * Apr 27, 2023 10:48:05 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class DataSetWriterTest {
+
+    @TempDir
+    public Path tempDir;
+
+    /**
+     * Test of write method, of class DataSetWriter.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testWrite() throws Exception {
+        DataSet dataSet = (DataSet) ResourceLoader.readInDataModel(Paths.get(TestData.SIM_DISCRETE_DATA), Delimiter.TAB);
+        List<DataSet> dataSets = DataSampling.sampleWithReplacement(dataSet, 1673588774198L, 2, true);
+        for (DataSet sample : dataSets) {
+            Path dataFile = Files.createTempFile(tempDir, "data", ".txt");
+            DataSetWriter.write(sample, '\t', dataFile);
+
+            String expected = sample.toString();
+            String actual = new String(Files.readAllBytes(dataFile), StandardCharsets.UTF_8);
+            Assertions.assertEquals(expected, actual);
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2023 University of Pittsburgh.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+package edu.pitt.dbmi.experiment.run.util;
+
+import edu.cmu.tetrad.graph.Edge;
+import edu.cmu.tetrad.graph.EdgeTypeProbability;
+import edu.cmu.tetrad.graph.Graph;
+import edu.cmu.tetrad.graph.GraphPersistence;
+import edu.cmu.tetrad.graph.Node;
+import edu.cmu.tetrad.graph.NodeType;
+import edu.pitt.dbmi.experiment.run.TestData;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * May 3, 2023 10:36:08 AM
+ *
+ * @author Kevin V. Bui (kvb2univpitt@gmail.com)
+ */
+public class GraphTextReaderTest {
+
+    /**
+     * Test of read method, of class GraphTextReader.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testRead() throws IOException {
+        String[] graphFiles = {
+            TestData.SIM_DISCRETE_DATA_TRUE_GRAPH,
+            TestData.SIM_DISCRETE_DATA_TRUE_PAG_FROM_DAG_GRAPH,
+            Paths.get(TestData.RFCI_DATA_DIR, "graph_rfci_bootstrapping.txt").toString()
+        };
+        for (String graphFile : graphFiles) {
+            Graph expected = GraphPersistence.loadGraphTxt(Paths.get(graphFile).toFile());
+            Graph graph = GraphTextReader.read(Paths.get(graphFile));
+
+            Assertions.assertEquals(expected.getNodeNames(), graph.getNodeNames());
+            Assertions.assertEquals(toStrings(expected), toStrings(graph));
+        }
+    }
+
+    /**
+     * Test of read method, of class GraphTextReader.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testReadEdgeProbabilities() throws IOException {
+        String text = "Graph Nodes:\n"
+                + "X1;X2,(L1)\n"
+                + "\n"
+                + "Graph Edges:\n"
+                + "1. X1 --> X2 [X1 --> X2 dd nl]:1.0000;\n"
+                + "2. L1 <-> X2 [no edge]:0.2500;[L1 <-> X2]:0.7500; pd pl\n";
+        Graph graph = GraphTextReader.read(new StringReader(text));
+
+        Node latent = graph.getNode("L1");
+        Assertions.assertEquals(NodeType.LATENT, latent.getNodeType());
+        Assertions.assertEquals(NodeType.MEASURED, graph.getNode("X1").getNodeType());
+
+        Edge edge = graph.getEdge(graph.getNode("X1"), graph.getNode("X2"));
+        Assertions.assertEquals(1, edge.getEdgeTypeProbabilities().size());
+        EdgeTypeProbability edgeTypeProbability = edge.getEdgeTypeProbabilities().get(0);
+        Assertions.assertEquals(EdgeTypeProbability.EdgeType.ta, edgeTypeProbability.getEdgeType());
+        Assertions.assertEquals(1.0, edgeTypeProbability.getProbability());
+        Assertions.assertTrue(edgeTypeProbability.getProperties().contains(Edge.Property.dd));
+        Assertions.assertTrue(edgeTypeProbability.getProperties().contains(Edge.Property.nl));
+
+        edge = graph.getEdge(latent, graph.getNode("X2"));
+        Assertions.assertEquals(2, edge.getEdgeTypeProbabilities().size());
+        Assertions.assertEquals(EdgeTypeProbability.EdgeType.nil, edge.getEdgeTypeProbabilities().get(0).getEdgeType());
+        Assertions.assertEquals(0.25, edge.getEdgeTypeProbabilities().get(0).getProbability());
+        Assertions.assertTrue(edge.getProperties().contains(Edge.Property.pd));
+        Assertions.assertTrue(edge.getProperties().contains(Edge.Property.pl));
+    }
+
+    private static Set<String> toStrings(Graph graph) {
+        return graph.getEdges().stream()
+                .map(Edge::toString)
+                .collect(Collectors.toSet());
+    }
+
+}